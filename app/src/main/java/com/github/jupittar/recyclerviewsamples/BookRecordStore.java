@@ -0,0 +1,243 @@
+package com.github.jupittar.recyclerviewsamples;
+
+
+import com.github.jupittar.commlib.recyclerview.LazyItemAdapter;
+import com.github.jupittar.recyclerviewsamples.entity.BookRecord;
+import com.github.jupittar.recyclerviewsamples.entity.BookRecordHolder;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+/**
+ * Read-only store of books in a binary file mapped in memory, so that a catalogue of any size costs no heap until
+ * its rows are bound. Serves as the {@link LazyItemAdapter.RecordSource} of a {@link LazyItemAdapter}.
+ * <p/>
+ * The file holds a fixed header (magic, version, count), then an index of fixed-size entries (id, record offset)
+ * and the variable-length records, each the title then the author as an unsigned 16 bit byte length followed by
+ * UTF-8 bytes. The count and ids are read from the index, the fields by {@link BookRecord} on demand.
+ * <p/>
+ * The store may be read from any thread once opened, e.g. by a {@link
+ * com.github.jupittar.commlib.recyclerview.FastScroller} building its index in the background: the index is read
+ * with absolute gets and each thread decodes the strings through its own duplicate of the buffer.
+ */
+public class BookRecordStore implements LazyItemAdapter.RecordSource<BookRecordHolder> {
+
+    private static final int MAGIC = 0x424f4f4b;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+    private static final int INDEX_ENTRY_SIZE = 12;
+    private static final int MAX_STRING_LENGTH = 0xffff;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer mBuffer;
+    private final int mCount;
+
+    /**
+     * the decoder of each thread reading the strings
+     */
+    private final ThreadLocal<Decoder> mDecoders = new ThreadLocal<Decoder>() {
+        @Override
+        protected Decoder initialValue() {
+            return new Decoder(mBuffer.duplicate());
+        }
+    };
+
+    private BookRecordStore(ByteBuffer buffer, int count) {
+        mBuffer = buffer;
+        mCount = count;
+    }
+
+    /**
+     * The view of the buffer moved around to decode the strings, and the bytes decoded, owned by one thread.
+     */
+    private static class Decoder {
+        final ByteBuffer mBuffer;
+        byte[] mBytes = new byte[64];
+
+        Decoder(ByteBuffer buffer) {
+            mBuffer = buffer;
+        }
+
+        String decode(int offset, int length) {
+            if (mBytes.length < length) {
+                mBytes = new byte[Math.max(length, mBytes.length * 2)];
+            }
+            mBuffer.position(offset);
+            mBuffer.get(mBytes, 0, length);
+            return new String(mBytes, 0, length, UTF_8);
+        }
+    }
+
+    /**
+     * Maps the specified store file, which may be done in the background.
+     *
+     * @throws IOException if the file can't be read or is not a store of the supported version
+     */
+    public static BookRecordStore open(File file) throws IOException {
+        final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+        final MappedByteBuffer buffer;
+        try {
+            final FileChannel channel = randomAccessFile.getChannel();
+            // the mapping stays valid once the file is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccessFile.close();
+        }
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a book record store: " + file);
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported book record store version " + buffer.getInt(4) + ": " + file);
+        }
+        final int count = buffer.getInt(8);
+        if (count < 0 || HEADER_SIZE + (long) count * INDEX_ENTRY_SIZE > buffer.capacity()) {
+            throw new IOException("Truncated book record store: " + file);
+        }
+        return new BookRecordStore(buffer, count);
+    }
+
+    private int getIndexEntry(int index) {
+        if (index < 0 || index >= mCount) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Count: " + mCount);
+        }
+        return HEADER_SIZE + index * INDEX_ENTRY_SIZE;
+    }
+
+    /**
+     * @return the offset in the file of the record at the specified index
+     */
+    public int getOffset(int index) {
+        return mBuffer.getInt(getIndexEntry(index) + 8);
+    }
+
+    /**
+     * @param index  the index of the record
+     * @param reused a record view to point to the record, e.g. while iterating the store, or {@code null}
+     * @return the view of the record at the specified index
+     */
+    public BookRecord getRecord(int index, BookRecord reused) {
+        return reused != null ? reused.moveTo(getOffset(index)) : new BookRecord(this, getOffset(index));
+    }
+
+    /**
+     * Decodes the string at the specified offset, from any thread.
+     */
+    public String readString(int offset) {
+        final int length = mBuffer.getShort(offset) & MAX_STRING_LENGTH;
+        return mDecoders.get().decode(offset + 2, length);
+    }
+
+    /**
+     * @return the offset following the string at the specified offset
+     */
+    public int skipString(int offset) {
+        return offset + 2 + (mBuffer.getShort(offset) & MAX_STRING_LENGTH);
+    }
+
+    @Override
+    public int getCount() {
+        return mCount;
+    }
+
+    @Override
+    public long getId(int index) {
+        return mBuffer.getLong(getIndexEntry(index));
+    }
+
+    @Override
+    public int getViewType(int index) {
+        return R.layout.item_book;
+    }
+
+    @Override
+    public BookRecordHolder createItemHolder(int index) {
+        return new BookRecordHolder(getRecord(index, null), getId(index));
+    }
+
+    /**
+     * Writes a store file record by record, the records being streamed to the file and the index kept until
+     * {@link #close()}.
+     */
+    public static class Writer implements Closeable {
+
+        private final FileOutputStream mOutput;
+        private final DataOutputStream mRecords;
+        private final ByteBuffer mHeaderAndIndex;
+        private final int mCapacity;
+        private int mCount;
+        private int mOffset;
+
+        /**
+         * @param file     the file to write, replaced if it exists
+         * @param capacity the max count of records to append
+         */
+        public Writer(File file, int capacity) throws IOException {
+            mCapacity = capacity;
+            mHeaderAndIndex = ByteBuffer.allocate(HEADER_SIZE + capacity * INDEX_ENTRY_SIZE);
+            mOffset = mHeaderAndIndex.capacity();
+            mOutput = new FileOutputStream(file);
+            // the records follow the room left for the header and the index
+            mOutput.getChannel().position(mOffset);
+            mRecords = new DataOutputStream(new BufferedOutputStream(mOutput));
+        }
+
+        /**
+         * Appends a record.
+         *
+         * @return this object, allowing calls to methods in this class to be chained
+         * @throws IllegalStateException    if the capacity is reached
+         * @throws IllegalArgumentException if a string is longer than 65535 bytes in UTF-8
+         */
+        public Writer append(long id, String title, String author) throws IOException {
+            if (mCount == mCapacity) {
+                throw new IllegalStateException("The capacity of " + mCapacity + " records is reached");
+            }
+            final int entry = HEADER_SIZE + mCount * INDEX_ENTRY_SIZE;
+            mHeaderAndIndex.putLong(entry, id).putInt(entry + 8, mOffset);
+            mOffset += writeString(title);
+            mOffset += writeString(author);
+            mCount++;
+            return this;
+        }
+
+        /**
+         * @return the count of bytes written
+         */
+        private int writeString(String string) throws IOException {
+            final byte[] bytes = (string != null ? string : "").getBytes(UTF_8);
+            if (bytes.length > MAX_STRING_LENGTH) {
+                throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long");
+            }
+            mRecords.writeShort(bytes.length);
+            mRecords.write(bytes);
+            return 2 + bytes.length;
+        }
+
+        /**
+         * Writes the header and the index, then closes the file.
+         */
+        @Override
+        public void close() throws IOException {
+            try {
+                mRecords.flush();
+                mHeaderAndIndex.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, mCount);
+                final FileChannel channel = mOutput.getChannel();
+                channel.position(0);
+                while (mHeaderAndIndex.hasRemaining()) {
+                    channel.write(mHeaderAndIndex);
+                }
+            } finally {
+                mRecords.close();
+            }
+        }
+    }
+}
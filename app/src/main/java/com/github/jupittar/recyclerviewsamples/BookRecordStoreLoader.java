@@ -0,0 +1,114 @@
+package com.github.jupittar.recyclerviewsamples;
+
+
+import android.content.Context;
+import android.util.Log;
+
+import com.github.jupittar.commlib.recyclerview.util.MainThreadExecutor;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process-wide owner of the {@link BookRecordStore} of the catalogue, writing the store file once and opening it in
+ * the background. Outlives the activities, so that a recreated activity gets the store opened for the previous one
+ * instead of writing the file again, and no background thread holds an activity.
+ * <p/>
+ * Note: Must be used from the main thread.
+ */
+public class BookRecordStoreLoader {
+
+    private static final String TAG = "BookRecordStoreLoader";
+    private static final String STORE_FILE_NAME = "books.store";
+    private static final int BOOK_COUNT = 200000;
+
+    private static BookRecordStoreLoader sInstance;
+
+    public interface Callback {
+        /**
+         * Called on the main thread once the store is opened.
+         */
+        void onStoreLoaded(BookRecordStore store);
+    }
+
+    private final File mFile;
+    private BookRecordStore mStore;
+    private boolean mLoading;
+    private final List<Callback> mCallbacks = new ArrayList<>();
+
+    private BookRecordStoreLoader(File file) {
+        mFile = file;
+    }
+
+    public static BookRecordStoreLoader getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new BookRecordStoreLoader(
+                    new File(context.getApplicationContext().getFilesDir(), STORE_FILE_NAME));
+        }
+        return sInstance;
+    }
+
+    /**
+     * Gets the store, opening it first if needed. The callback is invoked right away if the store is open already.
+     *
+     * @param callback the {@link Callback} to invoke with the store, until removed by {@link #cancel(Callback)}
+     */
+    public void load(Callback callback) {
+        if (mStore != null) {
+            callback.onStoreLoaded(mStore);
+            return;
+        }
+        mCallbacks.add(callback);
+        if (mLoading) {
+            return;
+        }
+        mLoading = true;
+        final File file = mFile;
+        new Thread(new Runnable() {
+            @Override
+            public void run() {
+                BookRecordStore store = null;
+                try {
+                    if (!file.exists()) {
+                        DataFactory.writeBooks(file, BOOK_COUNT);
+                    }
+                    store = BookRecordStore.open(file);
+                } catch (IOException e) {
+                    Log.e(TAG, "Couldn't open the book record store", e);
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+                final BookRecordStore result = store;
+                MainThreadExecutor.getInstance().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onLoaded(result);
+                    }
+                });
+            }
+        }, "BookRecordStore").start();
+    }
+
+    /**
+     * Removes a callback passed to {@link #load(Callback)}, e.g. when its activity is destroyed.
+     */
+    public void cancel(Callback callback) {
+        mCallbacks.remove(callback);
+    }
+
+    private void onLoaded(BookRecordStore store) {
+        mLoading = false;
+        mStore = store;
+        final List<Callback> callbacks = new ArrayList<>(mCallbacks);
+        mCallbacks.clear();
+        if (store == null) {
+            // a later load tries again
+            return;
+        }
+        for (Callback callback : callbacks) {
+            callback.onStoreLoaded(store);
+        }
+    }
+}
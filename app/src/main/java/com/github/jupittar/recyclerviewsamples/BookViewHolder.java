@@ -5,38 +5,73 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.TextView;
 
+import com.github.jupittar.commlib.recyclerview.ItemHolder;
 import com.github.jupittar.commlib.recyclerview.ItemViewHolder;
-import com.github.jupittar.recyclerviewsamples.entity.BookHolder;
+import com.github.jupittar.commlib.recyclerview.TextPrecomputer;
+import com.github.jupittar.recyclerviewsamples.entity.ReadableBook;
 
 
-public class BookViewHolder extends ItemViewHolder<BookHolder> {
+/**
+ * Binds the books of a {@link com.github.jupittar.recyclerviewsamples.entity.BookHolder} or of a
+ * {@link com.github.jupittar.recyclerviewsamples.entity.BookRecordHolder}, whose fields are decoded as they are read.
+ */
+public class BookViewHolder extends ItemViewHolder<ItemHolder<? extends ReadableBook>> {
 
     private TextView mTitleTv;
     private TextView mAuthorTv;
+    private final TextPrecomputer mTextPrecomputer;
 
     /**
      * Designated constructor
      *
      * @param itemView the item {@link View} to associate with this holder
+     * @param textPrecomputer the {@link TextPrecomputer} providing the texts, or {@code null}
      */
-    public BookViewHolder(View itemView) {
+    public BookViewHolder(View itemView, TextPrecomputer textPrecomputer) {
         super(itemView);
+        mTextPrecomputer = textPrecomputer;
         mTitleTv = (TextView) itemView.findViewById(R.id.tv_book_title);
         mAuthorTv = (TextView) itemView.findViewById(R.id.tv_book_author);
     }
 
     @Override
-    protected void onBindItemView(BookHolder itemHolder) {
-        mTitleTv.setText(itemHolder.mItem.title);
-        mAuthorTv.setText(itemHolder.mItem.author);
+    protected void onBindItemView(ItemHolder<? extends ReadableBook> itemHolder) {
+        if (mTextPrecomputer != null) {
+            mTextPrecomputer.setText(mTitleTv, itemHolder.mItemId, itemHolder.mItem.getTitle());
+            mTextPrecomputer.setText(mAuthorTv, itemHolder.mItemId, itemHolder.mItem.getAuthor());
+        } else {
+            mTitleTv.setText(itemHolder.mItem.getTitle());
+            mAuthorTv.setText(itemHolder.mItem.getAuthor());
+        }
+    }
+
+    @Override
+    protected boolean onBindItemViewLite(ItemHolder<? extends ReadableBook> itemHolder) {
+        // only the title while flinging, the author follows once the scroll settles
+        if (mTextPrecomputer != null) {
+            mTextPrecomputer.setText(mTitleTv, itemHolder.mItemId, itemHolder.mItem.getTitle());
+        } else {
+            mTitleTv.setText(itemHolder.mItem.getTitle());
+        }
+        mAuthorTv.setText(null);
+        return true;
     }
 
     public static class Factory implements ItemViewHolder.Factory {
 
+        private TextPrecomputer mTextPrecomputer;
+
+        /**
+         * Sets the {@link TextPrecomputer} of the holders created afterwards.
+         */
+        public void setTextPrecomputer(TextPrecomputer textPrecomputer) {
+            mTextPrecomputer = textPrecomputer;
+        }
+
         @Override
         public ItemViewHolder<?> createViewHolder(ViewGroup parent, int ViewType) {
             LayoutInflater inflater = LayoutInflater.from(parent.getContext());
-            return new BookViewHolder(inflater.inflate(ViewType, parent, false));
+            return new BookViewHolder(inflater.inflate(ViewType, parent, false), mTextPrecomputer);
         }
     }
 }
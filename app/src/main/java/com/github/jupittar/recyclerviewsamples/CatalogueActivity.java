@@ -0,0 +1,52 @@
+package com.github.jupittar.recyclerviewsamples;
+
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.DividerItemDecoration;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import com.github.jupittar.commlib.recyclerview.LazyItemAdapter;
+import com.github.jupittar.recyclerviewsamples.entity.BookRecordHolder;
+
+/**
+ * Shows a large catalogue of books from a {@link BookRecordStore}, only the bound rows being held on the heap.
+ */
+public class CatalogueActivity extends AppCompatActivity {
+
+    private RecyclerView mRecyclerView;
+
+    private LazyItemAdapter<BookRecordHolder> mItemAdapter;
+
+    private final BookRecordStoreLoader.Callback mStoreCallback = new BookRecordStoreLoader.Callback() {
+        @Override
+        public void onStoreLoaded(BookRecordStore store) {
+            mItemAdapter.setSource(store);
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_main);
+
+        mRecyclerView = (RecyclerView) findViewById(R.id.recyclerView);
+
+        mItemAdapter = new LazyItemAdapter<>();
+        mItemAdapter.withViewTypes(new BookViewHolder.Factory(), R.layout.item_book)
+                .setHasStableIds();
+
+        mRecyclerView.setLayoutManager(new LinearLayoutManager(this));
+        mRecyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
+        mRecyclerView.setAdapter(mItemAdapter);
+
+        // the loader outlives this activity, the store being written and opened once for every recreation
+        BookRecordStoreLoader.getInstance(this).load(mStoreCallback);
+    }
+
+    @Override
+    protected void onDestroy() {
+        BookRecordStoreLoader.getInstance(this).cancel(mStoreCallback);
+        super.onDestroy();
+    }
+}
@@ -2,9 +2,12 @@ package com.github.jupittar.recyclerviewsamples;
 
 
 import com.github.javafaker.Faker;
+import com.github.jupittar.commlib.recyclerview.util.TreeList;
 import com.github.jupittar.recyclerviewsamples.entity.Book;
 import com.github.jupittar.recyclerviewsamples.entity.BookHolder;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,8 +20,37 @@ public class DataFactory {
             final Book book = new Book();
             book.title = sFaker.book().title();
             book.author = sFaker.book().author();
-            books.add(new BookHolder(book, 0));
+            books.add(new BookHolder(book, i));
+        }
+        // reordered by drag and drop
+        return new TreeList<>(books);
+    }
+
+    /**
+     * Writes a {@link BookRecordStore} of the specified count of books, streamed to the file without keeping them.
+     * The books are written to a temporary file renamed once complete, so that the file is either missing or whole.
+     */
+    public static void writeBooks(File file, int count) throws IOException {
+        final File tempFile = new File(file.getPath() + ".tmp");
+        final BookRecordStore.Writer writer = new BookRecordStore.Writer(tempFile, count);
+        boolean written = false;
+        try {
+            try {
+                for (int i = 0; i < count; i++) {
+                    writer.append(i, sFaker.book().title(), sFaker.book().author());
+                }
+            } finally {
+                writer.close();
+            }
+            if (!tempFile.renameTo(file)) {
+                throw new IOException("Couldn't rename " + tempFile + " to " + file);
+            }
+            written = true;
+        } finally {
+            if (!written) {
+                //noinspection ResultOfMethodCallIgnored
+                tempFile.delete();
+            }
         }
-        return books;
     }
 }
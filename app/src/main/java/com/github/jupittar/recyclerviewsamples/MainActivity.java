@@ -1,13 +1,18 @@
 package com.github.jupittar.recyclerviewsamples;
 
 import android.os.Bundle;
+import android.support.v4.util.LongSparseArray;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.DividerItemDecoration;
 import android.support.v7.widget.LinearLayoutCompat;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 
+import com.github.jupittar.commlib.recyclerview.DragReorderHelper;
 import com.github.jupittar.commlib.recyclerview.ItemAdapter;
+import com.github.jupittar.commlib.recyclerview.ItemSizeCache;
+import com.github.jupittar.commlib.recyclerview.MeasuredLinearLayoutManager;
+import com.github.jupittar.commlib.recyclerview.TextPrecomputer;
 import com.github.jupittar.recyclerviewsamples.entity.BookHolder;
 
 public class MainActivity extends AppCompatActivity {
@@ -23,15 +28,31 @@ public class MainActivity extends AppCompatActivity {
 
         mRecyclerView = (RecyclerView) findViewById(R.id.recyclerView);
 
-        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
-        layoutManager.setOrientation(LinearLayoutManager.VERTICAL);
-        mRecyclerView.setLayoutManager(layoutManager);
-        mRecyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
-
+        final BookViewHolder.Factory factory = new BookViewHolder.Factory();
         //noinspection unchecked
         mItemAdapter = new ItemAdapter<>()
-                .withViewTypes(new BookViewHolder.Factory(), R.layout.item_book)
+                .withViewTypes(factory, R.layout.item_book)
                 .setItems(DataFactory.generateBooks(9));
+
+        LinearLayoutManager layoutManager = new MeasuredLinearLayoutManager(this, ItemSizeCache.attach(mItemAdapter));
+        layoutManager.setOrientation(LinearLayoutManager.VERTICAL);
+        mRecyclerView.setLayoutManager(layoutManager);
+        mRecyclerView.addItemDecoration(new DividerItemDecoration(this, DividerItemDecoration.VERTICAL));
         mRecyclerView.setAdapter(mItemAdapter);
+        factory.setTextPrecomputer(TextPrecomputer.attach(mRecyclerView, mItemAdapter));
+        DragReorderHelper.attach(mRecyclerView, mItemAdapter, new DragReorderHelper.Callback<BookHolder>() {
+            @Override
+            public String getOrderKey(BookHolder itemHolder) {
+                return itemHolder.mItem.orderKey;
+            }
+
+            @Override
+            public void onOrderKeysChanged(LongSparseArray<String> orderKeys) {
+                // a real app persists the batch here, e.g. in one database transaction
+                for (int i = 0; i < orderKeys.size(); i++) {
+                    mItemAdapter.findItemById(orderKeys.keyAt(i)).mItem.orderKey = orderKeys.valueAt(i);
+                }
+            }
+        });
     }
 }
@@ -1,7 +1,22 @@
 package com.github.jupittar.recyclerviewsamples.entity;
 
 
-public class Book {
+public class Book implements ReadableBook {
     public String title;
     public String author;
+
+    /**
+     * the fractional key ordering the book in the list, or {@code null} if never reordered
+     */
+    public String orderKey;
+
+    @Override
+    public String getTitle() {
+        return title;
+    }
+
+    @Override
+    public String getAuthor() {
+        return author;
+    }
 }
@@ -1,6 +1,8 @@
 package com.github.jupittar.recyclerviewsamples.entity;
 
 import com.github.jupittar.commlib.recyclerview.ItemHolder;
+import com.github.jupittar.commlib.recyclerview.TextPrecomputer;
+import com.github.jupittar.commlib.recyclerview.util.ContentHash;
 import com.github.jupittar.recyclerviewsamples.R;
 
 
@@ -10,6 +12,17 @@ public class BookHolder extends ItemHolder<Book> {
         super(item, itemId);
     }
 
+    @Override
+    public void onPrecomputeText(TextPrecomputer precomputer) {
+        precomputer.precompute(mItemId, R.id.tv_book_title, mItem.title);
+        precomputer.precompute(mItemId, R.id.tv_book_author, mItem.author);
+    }
+
+    @Override
+    protected long computeContentHash() {
+        return new ContentHash().add(mItem.title).add(mItem.author).get();
+    }
+
     @Override
     public int getItemViewType() {
         return R.layout.item_book;
@@ -0,0 +1,45 @@
+package com.github.jupittar.recyclerviewsamples.entity;
+
+
+import com.github.jupittar.recyclerviewsamples.BookRecordStore;
+
+/**
+ * Flyweight view of a book record in a {@link BookRecordStore}: holds only the offset of the record in the mapped
+ * file and decodes a field each time it is asked for, so that no string stays on the heap.
+ */
+public class BookRecord implements ReadableBook {
+
+    private final BookRecordStore mStore;
+    private int mOffset;
+
+    public BookRecord(BookRecordStore store, int offset) {
+        mStore = store;
+        mOffset = offset;
+    }
+
+    /**
+     * Points this view to another record, e.g. to reuse it while iterating the store.
+     *
+     * @param offset the offset of the record in the store
+     * @return this object
+     */
+    public BookRecord moveTo(int offset) {
+        mOffset = offset;
+        return this;
+    }
+
+    public int getOffset() {
+        return mOffset;
+    }
+
+    @Override
+    public String getTitle() {
+        return mStore.readString(mOffset);
+    }
+
+    @Override
+    public String getAuthor() {
+        // the author follows the title
+        return mStore.readString(mStore.skipString(mOffset));
+    }
+}
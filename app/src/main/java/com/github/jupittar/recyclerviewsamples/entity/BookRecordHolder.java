@@ -0,0 +1,17 @@
+package com.github.jupittar.recyclerviewsamples.entity;
+
+import com.github.jupittar.commlib.recyclerview.ItemHolder;
+import com.github.jupittar.recyclerviewsamples.R;
+
+
+public class BookRecordHolder extends ItemHolder<BookRecord> {
+
+    public BookRecordHolder(BookRecord item, long itemId) {
+        super(item, itemId);
+    }
+
+    @Override
+    public int getItemViewType() {
+        return R.layout.item_book;
+    }
+}
@@ -0,0 +1,12 @@
+package com.github.jupittar.recyclerviewsamples.entity;
+
+
+/**
+ * The fields of a book shown by {@link com.github.jupittar.recyclerviewsamples.BookViewHolder}, either held on the
+ * heap by a {@link Book} or decoded on demand by a {@link BookRecord}.
+ */
+public interface ReadableBook {
+    String getTitle();
+
+    String getAuthor();
+}
@@ -2,15 +2,63 @@ package com.github.jupittar.commlib.recyclerview;
 
 import android.content.Context;
 import android.content.res.TypedArray;
+import android.os.Bundle;
+import android.os.Parcelable;
 import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
+import android.util.SparseIntArray;
+
+import com.github.jupittar.commlib.recyclerview.util.ViewTypeMeasurementCache;
 
 public class AutoFitRecyclerView extends RecyclerView {
 
+    private static final String KEY_SUPER_STATE = "super_state";
+    private static final String KEY_MEASUREMENTS = "measurements";
+
+    /**
+     * the amount of positions looked at for view types to measure
+     */
+    private static final int SAMPLE_LIMIT = 100;
+
     private GridLayoutManager mLayoutManager;
+    private ViewTypeSpanSizeLookup mSpanSizeLookup;
     private int mColumnWidth = -1;
 
+    /**
+     * whether the span count and span sizes are derived from the measured view types
+     */
+    private boolean mAdaptiveColumns;
+    private ViewTypeMeasurementCache mMeasurementCache = new ViewTypeMeasurementCache();
+
+    /**
+     * the first position of every view type found in the adapter, to be sampled if not measured yet
+     */
+    private final SparseIntArray mSamplePositions = new SparseIntArray();
+    private boolean mSamplesDirty = true;
+
+    private final AdapterDataObserver mDataObserver = new AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            onDataChanged();
+        }
+    };
+
     public AutoFitRecyclerView(Context context) {
 
         super(context);
@@ -43,18 +91,175 @@ public class AutoFitRecyclerView extends RecyclerView {
         }
 
         mLayoutManager = new GridLayoutManager(getContext(), 1);
+        mSpanSizeLookup = new ViewTypeSpanSizeLookup(this);
+        mLayoutManager.setSpanSizeLookup(mSpanSizeLookup);
         setLayoutManager(mLayoutManager);
     }
 
+    /**
+     * @return the {@link ViewTypeSpanSizeLookup} deciding which view types span all the columns
+     */
+    public ViewTypeSpanSizeLookup getSpanSizeLookup() {
+        return mSpanSizeLookup;
+    }
+
+    /**
+     * Derives the span count and the span sizes from the natural widths of the view types instead of
+     * {@code android:columnWidth}. A sample of each view type is measured once per list width, further
+     * measurements are served from the {@link ViewTypeMeasurementCache}, which is kept across configuration
+     * changes so that rotating back and forth measures no sample again.
+     * <p/>
+     * The narrowest view type spans one column, wider view types span as many columns as they need.
+     * <p/>
+     * Note: The cache only decides the spans, the rows are still measured by the {@link GridLayoutManager} when
+     * laid out.
+     *
+     * @param adaptiveColumns {@code true} to enable the adaptive columns
+     */
+    public void setAdaptiveColumns(boolean adaptiveColumns) {
+        mAdaptiveColumns = adaptiveColumns;
+        mSamplesDirty = true;
+        requestLayout();
+    }
+
+    /**
+     * Sets the {@link ViewTypeMeasurementCache} of the adaptive columns, e.g. to share it between lists
+     * displaying the same view types.
+     */
+    public void setMeasurementCache(ViewTypeMeasurementCache measurementCache) {
+        mMeasurementCache = measurementCache;
+        mSamplesDirty = true;
+        requestLayout();
+    }
+
+    public ViewTypeMeasurementCache getMeasurementCache() {
+        return mMeasurementCache;
+    }
+
+    @Override
+    public void setAdapter(Adapter adapter) {
+        final Adapter oldAdapter = getAdapter();
+        if (oldAdapter != null) {
+            oldAdapter.unregisterAdapterDataObserver(mDataObserver);
+        }
+        super.setAdapter(adapter);
+        if (adapter != null) {
+            adapter.registerAdapterDataObserver(mDataObserver);
+        }
+        onDataChanged();
+    }
+
+    private void onDataChanged() {
+        mSamplesDirty = true;
+    }
+
+    @Override
+    protected Parcelable onSaveInstanceState() {
+        final Bundle state = new Bundle();
+        state.putParcelable(KEY_SUPER_STATE, super.onSaveInstanceState());
+        state.putLongArray(KEY_MEASUREMENTS, mMeasurementCache.toArray());
+        return state;
+    }
+
+    @Override
+    protected void onRestoreInstanceState(Parcelable state) {
+        if (state instanceof Bundle) {
+            final Bundle bundle = (Bundle) state;
+            final long[] measurements = bundle.getLongArray(KEY_MEASUREMENTS);
+            if (measurements != null) {
+                mMeasurementCache.fromArray(measurements);
+            }
+            state = bundle.getParcelable(KEY_SUPER_STATE);
+        }
+        super.onRestoreInstanceState(state);
+    }
+
     @Override
     protected void onMeasure(int widthSpec, int heightSpec) {
 
         super.onMeasure(widthSpec, heightSpec);
 
-        if (mColumnWidth > 0) {
+        if (mAdaptiveColumns) {
+
+            updateAdaptiveColumns(getMeasuredWidth() - getPaddingLeft() - getPaddingRight());
+        } else if (mColumnWidth > 0) {
 
             int spanCount = Math.max(1, getMeasuredWidth() / mColumnWidth);
+            // setting the span count drops the span caches and requests another layout
+            if (spanCount != mLayoutManager.getSpanCount()) {
+                mLayoutManager.setSpanCount(spanCount);
+            }
+        }
+    }
+
+    private void updateAdaptiveColumns(int availableWidth) {
+        final Adapter adapter = getAdapter();
+        if (adapter == null || availableWidth <= 0) {
+            return;
+        }
+        if (mSamplesDirty) {
+            mSamplesDirty = false;
+            mSamplePositions.clear();
+            final int count = Math.min(SAMPLE_LIMIT, adapter.getItemCount());
+            for (int position = 0; position < count; position++) {
+                final int viewType = adapter.getItemViewType(position);
+                if (mSamplePositions.indexOfKey(viewType) < 0) {
+                    mSamplePositions.put(viewType, position);
+                }
+            }
+        }
+
+        // the natural widths depend on the width available to the list, e.g. once rotated
+        final int widthSpec = MeasureSpec.makeMeasureSpec(availableWidth, MeasureSpec.AT_MOST);
+        // the narrowest view type defines the column width
+        int unitWidth = Integer.MAX_VALUE;
+        for (int i = 0; i < mSamplePositions.size(); i++) {
+            final int viewType = mSamplePositions.keyAt(i);
+            if (mSpanSizeLookup.isFullSpan(viewType)) {
+                continue;
+            }
+            if (!mMeasurementCache.contains(viewType, widthSpec)) {
+                measureSample(adapter, viewType, mSamplePositions.valueAt(i), widthSpec);
+            }
+            final int width = mMeasurementCache.getMeasuredWidth(viewType, widthSpec);
+            if (width > 0) {
+                unitWidth = Math.min(unitWidth, width);
+            }
+        }
+        if (unitWidth == Integer.MAX_VALUE) {
+            return;
+        }
+
+        final int spanCount = Math.max(1, availableWidth / unitWidth);
+        final int columnWidth = availableWidth / spanCount;
+        for (int i = 0; i < mSamplePositions.size(); i++) {
+            final int viewType = mSamplePositions.keyAt(i);
+            final int width = mMeasurementCache.getMeasuredWidth(viewType, widthSpec);
+            if (width > 0) {
+                mSpanSizeLookup.setSpanSize(viewType, Math.min(spanCount, (width + columnWidth - 1) / columnWidth));
+            }
+        }
+        if (spanCount != mLayoutManager.getSpanCount()) {
             mLayoutManager.setSpanCount(spanCount);
         }
     }
+
+    /**
+     * Measures the natural size of the specified view type within the available width. The sample is taken from
+     * the recycled view pool if possible, and handed back to it to be reused by the next layout.
+     */
+    @SuppressWarnings("unchecked")
+    private void measureSample(Adapter adapter, int viewType, int position, int widthSpec) {
+        ViewHolder holder = getRecycledViewPool().getRecycledView(viewType);
+        if (holder == null) {
+            holder = adapter.createViewHolder(this, viewType);
+        }
+        adapter.bindViewHolder(holder, position);
+        holder.itemView.measure(widthSpec, MeasureSpec.makeMeasureSpec(0, MeasureSpec.UNSPECIFIED));
+        mMeasurementCache.put(viewType, widthSpec,
+                holder.itemView.getMeasuredWidth(), holder.itemView.getMeasuredHeight());
+        // unbinds the sample as RecyclerView does before pooling a holder, e.g. cancelling its deferred work
+        adapter.onViewRecycled(holder);
+        getRecycledViewPool().putRecycledView(holder);
+    }
 }
@@ -0,0 +1,491 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.view.ViewGroup;
+
+import com.github.jupittar.commlib.recyclerview.listener.OnItemChangedListener;
+import com.github.jupittar.commlib.recyclerview.listener.OnItemClickedListener;
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Base adapter class for displaying a collection of items through {@link ItemHolder}s, whatever holds them.
+ * Provides functionality for headers and footers, changing items, item click events, reusable item views and lite
+ * binds during fast flings.
+ * <p/>
+ * Subclasses provide the item holders excluding headers and footers, e.g. {@link ItemAdapter} from a list and
+ * {@link LazyItemAdapter} from an indexed record source. Helpers which only read the items take a
+ * {@link BaseItemAdapter}.
+ *
+ * @param <T> the item holder type excluding headers and footers
+ * @see <a href="https://android.googlesource.com/platform/packages/apps/DeskClock/+/master/src/com/android/deskclock
+ * /ItemAdapter.java">Original code</a>
+ */
+public abstract class BaseItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<ItemViewHolder> {
+
+    /**
+     * payload of the changes upgrading the views bound by {@link ItemViewHolder#onBindItemViewLite(ItemHolder)}
+     * to a full bind once the scroll settles
+     */
+    public static final Object PAYLOAD_FULL_BIND = new Object();
+
+    /**
+     * default fling velocity in pixels per second above which views are bound lite
+     */
+    private static final float DEFAULT_LITE_BIND_VELOCITY = 8000;
+
+    /**
+     * List of {@link ItemHolder} for the headers this adapter represented
+     */
+    private List<ItemHolder> mHeaderHolders;
+
+    /**
+     * List of {@link ItemHolder} for the footers this adapter represented
+     */
+    private List<ItemHolder> mFooterHolders;
+
+    public List<ItemHolder> getHeaderHolders() {
+        if (mHeaderHolders == null) {
+            mHeaderHolders = new ArrayList<>();
+        }
+        return mHeaderHolders;
+    }
+
+    public List<ItemHolder> getFooterHolders() {
+        if (mFooterHolders == null) {
+            mFooterHolders = new ArrayList<>();
+        }
+        return mFooterHolders;
+    }
+
+
+    /**
+     * Invoked when any item changed
+     */
+    private OnItemChangedListener mOnItemChangedListener;
+
+    /**
+     * Factories for creating new {@link ItemViewHolder}
+     */
+    private final SparseArray<ItemViewHolder.Factory> mFactoriesByViewType = new SparseArray<>();
+
+    /**
+     * Click listeners to invoke in {@link #mOnItemClickedListener}
+     */
+    private final SparseArray<OnItemClickedListener> mClickListenersByViewType = new SparseArray<>();
+
+    /**
+     * the {@link RecyclerView} this adapter is attached to, whose scroll is tracked
+     */
+    private RecyclerView mRecyclerView;
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+    private float mScrollVelocity;
+    private float mLiteBindVelocity = DEFAULT_LITE_BIND_VELOCITY;
+
+    /**
+     * Tracks the scroll state and velocity, and upgrades the views bound lite once the scroll settles
+     */
+    private final OnScrollFrameListener mScrollTracker = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            mScrollState = snapshot.getScrollState();
+            mScrollVelocity = Math.max(Math.abs(snapshot.getVelocityX()), Math.abs(snapshot.getVelocityY()));
+            if (mScrollState == RecyclerView.SCROLL_STATE_IDLE) {
+                upgradeLiteBoundViews();
+            }
+        }
+    };
+
+    /**
+     * Finds the position of the changed item holder and invoke {@link #notifyItemChanged(int)} or
+     * {@link #notifyItemChanged(int, Object)} if payloads are present(in order to do in-place animation)
+     */
+    private final OnItemChangedListener mItemChangedNotifier = new OnItemChangedListener() {
+        @Override
+        public void onItemChanged(ItemHolder<?> itemHolder) {
+            if (mOnItemChangedListener != null) {
+                mOnItemChangedListener.onItemChanged(itemHolder);
+            }
+            final int index = indexOfItemHolder(itemHolder);
+            if (index != RecyclerView.NO_POSITION) {
+                notifyItemChanged(index + getHeaderCount());
+            }
+        }
+
+        @Override
+        public void onItemChanged(ItemHolder<?> itemHolder, Object payload) {
+            if (mOnItemChangedListener != null) {
+                mOnItemChangedListener.onItemChanged(itemHolder, payload);
+            }
+            final int index = indexOfItemHolder(itemHolder);
+            if (index != RecyclerView.NO_POSITION) {
+                notifyItemChanged(index + getHeaderCount(), payload);
+            }
+        }
+    };
+
+    /**
+     * Invokes the {@link OnItemClickedListener} in {@link #mClickListenersByViewType} corresponding to
+     * {@link ItemViewHolder#getItemViewType()}
+     */
+    private final OnItemClickedListener mOnItemClickedListener = new OnItemClickedListener() {
+        @Override
+        public void onItemClicked(ItemViewHolder<?> viewHolder, int id) {
+            final OnItemClickedListener listener = mClickListenersByViewType.get(viewHolder.getItemViewType());
+            if (listener != null) {
+                listener.onItemClicked(viewHolder, id);
+            }
+        }
+    };
+
+    /**
+     * @return the listener to add to every item holder excluding headers and footers, notifying the changes of
+     * the holder
+     */
+    protected final OnItemChangedListener getItemChangedNotifier() {
+        return mItemChangedNotifier;
+    }
+
+    /**
+     * Convenience for calling {@link #setHasStableIds(boolean)} with {@code true}
+     *
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public BaseItemAdapter setHasStableIds() {
+        setHasStableIds(true);
+        return this;
+    }
+
+    /**
+     * Sets the {@link ItemViewHolder.Factory} used to create
+     * new item view holders in {@link #onCreateViewHolder(ViewGroup, int)}.
+     *
+     * @param factory   the {@link ItemViewHolder.Factory} used to create new item view holders
+     * @param viewTypes the unique identifier for the view types to be created
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public BaseItemAdapter withViewTypes(ItemViewHolder.Factory factory, int... viewTypes) {
+        for (int viewType :
+                viewTypes) {
+            mFactoriesByViewType.put(viewType, factory);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the {@link OnItemClickedListener}
+     *
+     * @param listener  the {@link OnItemClickedListener} invoked by {@link #mOnItemClickedListener}
+     * @param viewTypes the unique identifier for the view types to be created
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public BaseItemAdapter click(OnItemClickedListener listener, int... viewTypes) {
+        for (int viewType :
+                viewTypes) {
+            mClickListenersByViewType.put(viewType, listener);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the fling velocity above which the views are bound with
+     * {@link ItemViewHolder#onBindItemViewLite(ItemHolder)}, 8000 pixels per second by default.
+     *
+     * @param velocity the velocity in pixels per second, or {@link Float#MAX_VALUE} to never bind lite
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public BaseItemAdapter setLiteBindVelocity(float velocity) {
+        mLiteBindVelocity = velocity;
+        return this;
+    }
+
+    /**
+     * @return the scroll state of the attached {@link RecyclerView}, e.g. {@link RecyclerView#SCROLL_STATE_IDLE}
+     */
+    public int getScrollState() {
+        return mScrollState;
+    }
+
+    /**
+     * @return the scroll velocity in pixels per second of the attached {@link RecyclerView}
+     */
+    public float getScrollVelocity() {
+        return mScrollVelocity;
+    }
+
+    /**
+     * @return {@code true} if the list is flinging faster than the lite bind velocity
+     */
+    public boolean isFlinging() {
+        return mScrollState == RecyclerView.SCROLL_STATE_SETTLING && mScrollVelocity >= mLiteBindVelocity;
+    }
+
+    /**
+     * @return the count of the headers this adapter represented
+     */
+    protected final int getHeaderCount() {
+        return getHeaderHolders().size();
+    }
+
+    /**
+     * @return the count of the footers this adapter represented
+     */
+    protected final int getFooterCount() {
+        return getFooterHolders().size();
+    }
+
+    /**
+     * Returns {@code true} if the item holder in the specified position is header
+     *
+     * @param position in which the item holder to judge
+     * @return {@code true} if the item holder in the specified position is header
+     */
+    protected final boolean isPositionForHeader(int position) {
+        return position < getHeaderCount();
+    }
+
+    /**
+     * Returns {@code true} if the item holder in the specified position is footer
+     *
+     * @param position in which the item holder to judge
+     * @return {@code true} if the item holder in the specified position is footer
+     */
+    protected final boolean isPositionForFooter(int position) {
+        return position >= getHeaderCount() + getContentItemCount();
+    }
+
+    /**
+     * @return {@code true} if the specified adapter position is the position of an item holder, neither a header
+     * nor a footer
+     */
+    public boolean isContentPosition(int position) {
+        return position >= getHeaderCount() && position < getHeaderCount() + getContentItemCount();
+    }
+
+    /**
+     * Inserts the specified {@link ItemHolder}s as a header and
+     * invokes {@link #notifyItemInserted(int)} to update the UI.
+     *
+     * @param header the item holder to add
+     * @return this object, allowing calls of methods in this class to be chained
+     */
+    public BaseItemAdapter addHeader(ItemHolder... header) {
+        for (ItemHolder itemHolder :
+                header) {
+            getHeaderHolders().add(itemHolder);
+            notifyItemInserted(getHeaderCount() - 1);
+        }
+        return this;
+    }
+
+    /**
+     * Inserts the specified {@link ItemHolder}s as a footer and
+     * invokes {@link #notifyItemInserted(int)} to update the UI.
+     *
+     * @param footer the item holder to add
+     * @return this object, allowing calls of methods in this class to be chained
+     */
+    public BaseItemAdapter addFooter(ItemHolder... footer) {
+        for (ItemHolder itemHolder :
+                footer) {
+            getFooterHolders().add(itemHolder);
+            notifyItemInserted(getItemCount() - 1);
+        }
+        return this;
+    }
+
+    /**
+     * Sets the listener to be invoked whenever any item changes.
+     *
+     * @param listener the {@link OnItemChangedListener} to set
+     */
+    public void setOnItemChangedListener(OnItemChangedListener listener) {
+        mOnItemChangedListener = listener;
+    }
+
+    /**
+     * Finds the item holder associating with the specified identifier.
+     *
+     * @param id the identifier by which to find
+     * @return the item holder associating with the specified identifier
+     */
+    public abstract T findItemById(long id);
+
+    @NonNull @Override
+    public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final ItemViewHolder.Factory factory = mFactoriesByViewType.get(viewType);
+        if (factory != null) {
+            return factory.createViewHolder(parent, viewType);
+        }
+        throw new IllegalArgumentException("Unsupported view type: " + viewType);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position) {
+        // suppress any unchecked warnings since it is up to the subclass to guarantee
+        // compatibility of their view holders with the item holder corresponding position
+        holder.bindItemView(getItemHolder(position));
+        holder.setOnItemClickedListener(mOnItemClickedListener);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        holder.setScrollState(mScrollState, mScrollVelocity);
+        if (payloads.isEmpty() && isFlinging()) {
+            // the view is likely thrown away within a few frames, bind only what is needed to fly by
+            holder.bindItemViewLite(getItemHolder(position));
+        } else {
+            // partial rebinds keep the holder's item and listener, only the payloads are applied
+            holder.bindItemView(getItemHolder(position), payloads);
+        }
+        holder.setOnItemClickedListener(mOnItemClickedListener);
+    }
+
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        ScrollObserver.of(recyclerView).addOnScrollFrameListener(mScrollTracker);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        ScrollObserver.of(recyclerView).removeOnScrollFrameListener(mScrollTracker);
+        mRecyclerView = null;
+        mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+        mScrollVelocity = 0;
+    }
+
+    /**
+     * Notifies the views bound lite with {@link #PAYLOAD_FULL_BIND}, one change per run of adjacent positions.
+     */
+    private void upgradeLiteBoundViews() {
+        if (mRecyclerView == null) {
+            return;
+        }
+        int runStart = RecyclerView.NO_POSITION;
+        int runEnd = RecyclerView.NO_POSITION;
+        for (int i = 0, count = mRecyclerView.getChildCount(); i < count; i++) {
+            final RecyclerView.ViewHolder holder = mRecyclerView.getChildViewHolder(mRecyclerView.getChildAt(i));
+            if (!(holder instanceof ItemViewHolder) || !((ItemViewHolder) holder).isLiteBound()) {
+                continue;
+            }
+            final int position = holder.getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                continue;
+            }
+            if (position == runEnd + 1 && runStart != RecyclerView.NO_POSITION) {
+                runEnd = position;
+                continue;
+            }
+            if (runStart != RecyclerView.NO_POSITION) {
+                notifyItemRangeChanged(runStart, runEnd - runStart + 1, PAYLOAD_FULL_BIND);
+            }
+            runStart = position;
+            runEnd = position;
+        }
+        if (runStart != RecyclerView.NO_POSITION) {
+            notifyItemRangeChanged(runStart, runEnd - runStart + 1, PAYLOAD_FULL_BIND);
+        }
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        if (isContentPosition(position)) {
+            return getContentItemViewType(position - getHeaderCount());
+        }
+        return getItemHolder(position).getItemViewType();
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return hasStableIds() ? getItemHolderId(position) : RecyclerView.NO_ID;
+    }
+
+    /**
+     * Returns the {@link ItemHolder#mItemId} of the item holder in the specified adapter position, without
+     * creating the item holder if the subclass creates them on demand.
+     *
+     * @param position the adapter position of the item holder
+     * @return the id of the item holder in the specified position
+     */
+    public long getItemHolderId(int position) {
+        if (isContentPosition(position)) {
+            return getContentItemId(position - getHeaderCount());
+        }
+        return getItemHolder(position).mItemId;
+    }
+
+    /**
+     * Returns the item holder in the specified adapter position, which may be a header or a footer.
+     *
+     * @param position the adapter position of the item holder
+     * @return the item holder in the specified position
+     */
+    public ItemHolder getItemHolder(int position) {
+        if (isPositionForHeader(position)) {
+            return getHeaderHolders().get(position);
+        }
+        if (isPositionForFooter(position)) {
+            return getFooterHolders().get(position - getHeaderCount() - getContentItemCount());
+        }
+        return getContentItemHolder(position - getHeaderCount());
+    }
+
+    @Override
+    public void onViewRecycled(@NonNull ItemViewHolder holder) {
+        holder.setOnItemClickedListener(null);
+        holder.recycleItemView();
+    }
+
+    @Override
+    public void onViewDetachedFromWindow(@NonNull ItemViewHolder holder) {
+        holder.onItemViewDetached();
+    }
+
+    @Override
+    public int getItemCount() {
+        return getContentItemCount() + getHeaderCount() + getFooterCount();
+    }
+
+    /**
+     *
+     * @return the count of items excluding headers and footers
+     */
+    public abstract int getContentItemCount();
+
+    /**
+     * @param index the index among the item holders excluding headers and footers
+     * @return the item holder at the specified index
+     */
+    protected abstract T getContentItemHolder(int index);
+
+    /**
+     * @param index the index among the item holders excluding headers and footers
+     * @return the id of the item holder at the specified index, subclasses may read it without the holder
+     */
+    protected long getContentItemId(int index) {
+        return getContentItemHolder(index).mItemId;
+    }
+
+    /**
+     * @param index the index among the item holders excluding headers and footers
+     * @return the view type of the item holder at the specified index, subclasses may read it without the holder
+     */
+    protected int getContentItemViewType(int index) {
+        return getContentItemHolder(index).getItemViewType();
+    }
+
+    /**
+     * @param itemHolder an item holder notifying a change
+     * @return the index among the item holders excluding headers and footers of the specified holder, or
+     * {@link RecyclerView#NO_POSITION} if it is not held
+     */
+    protected abstract int indexOfItemHolder(ItemHolder<?> itemHolder);
+}
@@ -0,0 +1,348 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.view.View;
+
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
+import com.github.jupittar.commlib.recyclerview.util.LayoutManagerUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Helper class paging an {@link ItemAdapter} in both directions for long-running feeds.
+ * <p/>
+ * The adapter holds a window of consecutive pages around the viewport. Older and newer pages are requested
+ * from a {@link PageLoader} when the viewport gets close to either end of the window, and pages further than
+ * {@link #maxPagesAway(int)} pages from the viewport are dropped, to be loaded again when the user scrolls
+ * back to them. The adapter therefore never holds more than about {@code 2 * maxPagesAway + 1} pages.
+ * <p/>
+ * The first visible item keeps its position on screen across prepends and evictions, in either orientation.
+ * Evictions are posted from the scroll frame rather than run in it, so that the adapter is never modified while
+ * the list is scrolling or laying out.
+ * <p/>
+ * Note: The helper owns the item holders of the adapter, do not modify them while it is attached.
+ *
+ * @param <T> the item holder type of the adapter
+ */
+public class BidirectionalPagingHelper<T extends ItemHolder> {
+
+    private final RecyclerView mRecyclerView;
+    private final ItemAdapter<T> mAdapter;
+    private final PageLoader<T> mPageLoader;
+
+    /**
+     * the min amount of items to have beyond the viewport before loading the next page in that direction
+     */
+    private int mPrefetchDistance = 10;
+
+    /**
+     * the max distance in pages between a held page and the page of the viewport
+     */
+    private int mMaxPagesAway = 2;
+
+    /**
+     * page number of the first page held by the adapter
+     */
+    private int mFirstPage;
+
+    /**
+     * item counts of the held pages, in order starting from {@link #mFirstPage}
+     */
+    private final List<Integer> mPageSizes = new ArrayList<>();
+
+    private boolean mLoadingBefore;
+    private boolean mLoadingAfter;
+    private boolean mReachedStart;
+    private boolean mReachedEnd;
+
+    /**
+     * incremented by every {@link #start(int)} so that pages requested before are dropped
+     */
+    private int mGeneration;
+
+    private final Runnable mUpdateWindowRunnable = new Runnable() {
+        @Override
+        public void run() {
+            updateWindow();
+        }
+    };
+
+    private final OnScrollFrameListener mOnScrollFrameListener = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            updateWindow(snapshot.getFirstVisiblePosition(), snapshot.getLastVisiblePosition(), false);
+        }
+    };
+
+    private BidirectionalPagingHelper(RecyclerView recyclerView, ItemAdapter<T> adapter, PageLoader<T> pageLoader) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        mPageLoader = pageLoader;
+    }
+
+    public static <T extends ItemHolder> BidirectionalPagingHelper<T> attach(@NonNull RecyclerView recyclerView,
+                                                                             @NonNull ItemAdapter<T> adapter,
+                                                                             @NonNull PageLoader<T> pageLoader) {
+        final BidirectionalPagingHelper<T> helper = new BidirectionalPagingHelper<>(recyclerView, adapter, pageLoader);
+        ScrollObserver.of(recyclerView).addOnScrollFrameListener(helper.mOnScrollFrameListener);
+        return helper;
+    }
+
+    public BidirectionalPagingHelper<T> prefetchDistance(int items) {
+        mPrefetchDistance = Math.max(1, items);
+        return this;
+    }
+
+    public BidirectionalPagingHelper<T> maxPagesAway(int pages) {
+        mMaxPagesAway = Math.max(1, pages);
+        return this;
+    }
+
+    /**
+     * Replaces the content of the adapter by the specified page and the pages around it.
+     *
+     * @param page the page number to start from
+     */
+    public void start(int page) {
+        mGeneration++;
+        mFirstPage = page;
+        mPageSizes.clear();
+        mLoadingBefore = false;
+        mLoadingAfter = true;
+        mReachedStart = false;
+        mReachedEnd = false;
+        mAdapter.setItems(new ArrayList<T>());
+        requestPage(page, true);
+    }
+
+    public void detach() {
+        mGeneration++;
+        mRecyclerView.removeCallbacks(mUpdateWindowRunnable);
+        ScrollObserver.of(mRecyclerView).removeOnScrollFrameListener(mOnScrollFrameListener);
+    }
+
+    private void requestPage(final int page, final boolean after) {
+        final int generation = mGeneration;
+        mPageLoader.loadPage(page, new PageCallback<T>() {
+            @Override
+            public void onPageLoaded(List<T> items) {
+                if (generation == mGeneration) {
+                    onPageDelivered(page, after, items);
+                }
+            }
+
+            @Override
+            public void onPageFailed(Throwable error) {
+                if (generation == mGeneration) {
+                    // allow the next scroll to request the page again
+                    if (after) {
+                        mLoadingAfter = false;
+                    } else {
+                        mLoadingBefore = false;
+                    }
+                }
+            }
+        });
+    }
+
+    private void onPageDelivered(int page, boolean after, List<T> items) {
+        if (after) {
+            mLoadingAfter = false;
+            if (page != mFirstPage + mPageSizes.size()) {
+                // the window moved while loading
+                return;
+            }
+            if (items.isEmpty()) {
+                mReachedEnd = true;
+                return;
+            }
+            mAdapter.addItems(getContentCount(), items);
+            mPageSizes.add(items.size());
+        } else {
+            mLoadingBefore = false;
+            if (page != mFirstPage - 1) {
+                return;
+            }
+            if (items.isEmpty()) {
+                mReachedStart = true;
+                return;
+            }
+            final Anchor anchor = saveAnchor();
+            mAdapter.addItems(0, items);
+            mPageSizes.add(0, items.size());
+            mFirstPage = page;
+            restoreAnchor(anchor, items.size());
+        }
+        // wait for the new items to be laid out before looking at the viewport again
+        mRecyclerView.post(mUpdateWindowRunnable);
+    }
+
+    private void updateWindow() {
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        updateWindow(LayoutManagerUtils.findFirstVisibleItemPosition(layoutManager),
+                LayoutManagerUtils.findLastVisibleItemPosition(layoutManager), true);
+    }
+
+    /**
+     * Evicts the pages far from the specified visible range and loads the pages next to it.
+     *
+     * @param canEvict {@code false} to post the evictions instead, e.g. from a scroll frame
+     */
+    private void updateWindow(int firstVisiblePosition, int lastVisiblePosition, boolean canEvict) {
+        if (mPageSizes.isEmpty()) {
+            return;
+        }
+        final int headerCount = mAdapter.getHeaderCount();
+        final int firstVisible = firstVisiblePosition - headerCount;
+        final int lastVisible = lastVisiblePosition - headerCount;
+        if (firstVisible < 0 && lastVisible < 0) {
+            return;
+        }
+
+        // evict the pages far before or after the viewport, the layout is stale until the next pass
+        final int evictBefore = pageIndexOf(Math.max(0, firstVisible)) - mMaxPagesAway;
+        final int keepPages = pageIndexOf(Math.max(0, lastVisible)) + mMaxPagesAway + 1;
+        if (!canEvict && (evictBefore > 0 || mPageSizes.size() > keepPages)) {
+            // modifying the adapter from the scroll would race with the layout, the visible range is read again
+            mRecyclerView.removeCallbacks(mUpdateWindowRunnable);
+            mRecyclerView.post(mUpdateWindowRunnable);
+            return;
+        }
+        if (evictBefore > 0) {
+            int evictCount = 0;
+            for (int i = 0; i < evictBefore; i++) {
+                evictCount += mPageSizes.remove(0);
+            }
+            mFirstPage += evictBefore;
+            mReachedStart = false;
+            final Anchor anchor = saveAnchor();
+            mAdapter.removeItems(0, evictCount);
+            restoreAnchor(anchor, -evictCount);
+            mRecyclerView.post(mUpdateWindowRunnable);
+            return;
+        }
+
+        if (mPageSizes.size() > keepPages) {
+            int evictCount = 0;
+            while (mPageSizes.size() > keepPages) {
+                evictCount += mPageSizes.remove(mPageSizes.size() - 1);
+            }
+            mReachedEnd = false;
+            mAdapter.removeItems(getContentCount(), evictCount);
+        }
+
+        // load the pages next to the viewport
+        if (!mLoadingBefore && !mReachedStart && firstVisible < mPrefetchDistance) {
+            mLoadingBefore = true;
+            requestPage(mFirstPage - 1, false);
+        }
+        if (!mLoadingAfter && !mReachedEnd && getContentCount() - 1 - lastVisible < mPrefetchDistance) {
+            mLoadingAfter = true;
+            requestPage(mFirstPage + mPageSizes.size(), true);
+        }
+    }
+
+    /**
+     * @return the count of items held, which is the sum of the held page sizes
+     */
+    private int getContentCount() {
+        int count = 0;
+        for (int size : mPageSizes) {
+            count += size;
+        }
+        return count;
+    }
+
+    /**
+     * @return the index among the held pages of the page containing the specified content index
+     */
+    private int pageIndexOf(int index) {
+        for (int i = 0; i < mPageSizes.size(); i++) {
+            index -= mPageSizes.get(i);
+            if (index < 0) {
+                return i;
+            }
+        }
+        return mPageSizes.size() - 1;
+    }
+
+    private Anchor saveAnchor() {
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        final int position = LayoutManagerUtils.findFirstVisibleItemPosition(layoutManager);
+        if (position == RecyclerView.NO_POSITION) {
+            return null;
+        }
+        final View view = layoutManager.findViewByPosition(position);
+        return new Anchor(position, view == null ? 0 : getStartOffset(layoutManager, view));
+    }
+
+    /**
+     * @return the distance between the start edge of the view and the start edge of the list, in the
+     * orientation of the layout manager and from the end of the list for reverse layouts, as expected by
+     * {@link LinearLayoutManager#scrollToPositionWithOffset(int, int)}
+     */
+    private int getStartOffset(RecyclerView.LayoutManager layoutManager, View view) {
+        final boolean reverse = layoutManager instanceof LinearLayoutManager
+                ? ((LinearLayoutManager) layoutManager).getReverseLayout()
+                : layoutManager instanceof StaggeredGridLayoutManager
+                && ((StaggeredGridLayoutManager) layoutManager).getReverseLayout();
+        if (layoutManager.canScrollHorizontally()) {
+            return reverse ? mRecyclerView.getWidth() - mRecyclerView.getPaddingRight() - view.getRight()
+                    : view.getLeft() - mRecyclerView.getPaddingLeft();
+        }
+        return reverse ? mRecyclerView.getHeight() - mRecyclerView.getPaddingBottom() - view.getBottom()
+                : view.getTop() - mRecyclerView.getPaddingTop();
+    }
+
+    /**
+     * Scrolls back to the anchor item once the specified count of items has been inserted(or removed if
+     * negative) before it.
+     */
+    private void restoreAnchor(Anchor anchor, int shift) {
+        if (anchor == null) {
+            return;
+        }
+        final int position = Math.max(0, anchor.position + shift);
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(position, anchor.offset);
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            ((StaggeredGridLayoutManager) layoutManager).scrollToPositionWithOffset(position, anchor.offset);
+        }
+    }
+
+    private static class Anchor {
+        final int position;
+        final int offset;
+
+        Anchor(int position, int offset) {
+            this.position = position;
+            this.offset = offset;
+        }
+    }
+
+    /**
+     * Loads the pages of a {@link BidirectionalPagingHelper}.
+     */
+    public interface PageLoader<T extends ItemHolder> {
+        /**
+         * Loads the specified page and delivers it through the callback on the main thread. Page numbers
+         * decrease towards older items. Delivering an empty page marks the end of the feed in that direction.
+         *
+         * @param page     the page number
+         * @param callback the {@link PageCallback} to deliver the page to
+         */
+        void loadPage(int page, PageCallback<T> callback);
+    }
+
+    public interface PageCallback<T extends ItemHolder> {
+        void onPageLoaded(List<T> items);
+
+        void onPageFailed(Throwable error);
+    }
+}
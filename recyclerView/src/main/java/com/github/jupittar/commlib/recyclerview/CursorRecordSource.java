@@ -0,0 +1,72 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.database.Cursor;
+import android.support.annotation.NonNull;
+
+/**
+ * {@link LazyItemAdapter.RecordSource} reading the records from the rows of a {@link Cursor}, the ids from an id
+ * column. Subclasses read the view type and build the item holder of the row the cursor is moved to.
+ * <p/>
+ * The cursor is not closed by the source, its owner closes it once replaced, e.g. after
+ * {@link LazyItemAdapter#setSource(LazyItemAdapter.RecordSource)}.
+ *
+ * @param <T> the item holder type of the records
+ */
+public abstract class CursorRecordSource<T extends ItemHolder> implements LazyItemAdapter.RecordSource<T> {
+
+    private final Cursor mCursor;
+    private final int mIdColumnIndex;
+
+    /**
+     * @param cursor       the cursor of the records
+     * @param idColumnName the name of the column holding the unique ids, e.g. {@code "_id"}
+     */
+    public CursorRecordSource(@NonNull Cursor cursor, @NonNull String idColumnName) {
+        mCursor = cursor;
+        mIdColumnIndex = cursor.getColumnIndexOrThrow(idColumnName);
+    }
+
+    public Cursor getCursor() {
+        return mCursor;
+    }
+
+    private Cursor moveTo(int index) {
+        if (!mCursor.moveToPosition(index)) {
+            throw new IllegalStateException("Couldn't move the cursor to position " + index);
+        }
+        return mCursor;
+    }
+
+    @Override
+    public int getCount() {
+        return mCursor.isClosed() ? 0 : mCursor.getCount();
+    }
+
+    @Override
+    public long getId(int index) {
+        return moveTo(index).getLong(mIdColumnIndex);
+    }
+
+    @Override
+    public int getViewType(int index) {
+        return readViewType(moveTo(index));
+    }
+
+    @Override
+    public T createItemHolder(int index) {
+        return readItemHolder(moveTo(index));
+    }
+
+    /**
+     * @param cursor the cursor moved to the row to read
+     * @return the view type of the row, e.g. read from a type column
+     */
+    protected abstract int readViewType(Cursor cursor);
+
+    /**
+     * @param cursor the cursor moved to the row to read, not to be kept since it moves on
+     * @return a new item holder for the row
+     */
+    protected abstract T readItemHolder(Cursor cursor);
+}
@@ -0,0 +1,122 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.support.annotation.MainThread;
+import android.view.Choreographer;
+
+import java.util.ArrayDeque;
+
+/**
+ * Runs the bind work which does not need to finish before the frame draws, e.g. analytics tagging or
+ * secondary formatting, when the main thread is idle.
+ * <p/>
+ * Tasks are posted by {@link ItemViewHolder#postDeferred(Runnable)} and run in order, once the message queue of
+ * the main thread is idle, for at most {@link #setFrameBudget(long)} milliseconds per frame. Tasks whose holder
+ * has been recycled or bound to another item meanwhile are dropped.
+ * <p/>
+ * Note: Must be used from the main thread.
+ */
+public class DeferredTaskScheduler {
+
+    private static final long DEFAULT_FRAME_BUDGET = 4;
+
+    private static DeferredTaskScheduler sInstance;
+
+    private final ArrayDeque<Task> mTasks = new ArrayDeque<>();
+    private long mFrameBudget = DEFAULT_FRAME_BUDGET;
+    private boolean mIdleHandlerAdded;
+    private boolean mFrameCallbackPosted;
+
+    private final MessageQueue.IdleHandler mIdleHandler = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mIdleHandlerAdded = false;
+            runTasks();
+            return false;
+        }
+    };
+
+    /**
+     * Waits for the next frame before running the remaining tasks, so that they never delay two frames in a row
+     */
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameCallbackPosted = false;
+            scheduleIdleRun();
+        }
+    };
+
+    private DeferredTaskScheduler() {
+    }
+
+    @MainThread
+    public static DeferredTaskScheduler getInstance() {
+        if (sInstance == null) {
+            sInstance = new DeferredTaskScheduler();
+        }
+        return sInstance;
+    }
+
+    /**
+     * @param millis the max time in milliseconds spent running tasks per frame
+     */
+    public void setFrameBudget(long millis) {
+        mFrameBudget = Math.max(1, millis);
+    }
+
+    /**
+     * @return the count of tasks waiting to run, cancelled ones included until their turn comes
+     */
+    public int getPendingCount() {
+        return mTasks.size();
+    }
+
+    /**
+     * Posts a task tied to the item currently bound to the specified holder.
+     *
+     * @param owner the {@link ItemViewHolder} the task works for
+     * @param task  the work to run
+     */
+    void post(ItemViewHolder<?> owner, Runnable task) {
+        mTasks.add(new Task(owner, owner.getDeferredGeneration(), task));
+        scheduleIdleRun();
+    }
+
+    private void scheduleIdleRun() {
+        if (!mIdleHandlerAdded && !mTasks.isEmpty()) {
+            mIdleHandlerAdded = true;
+            Looper.myQueue().addIdleHandler(mIdleHandler);
+        }
+    }
+
+    private void runTasks() {
+        final long deadline = SystemClock.uptimeMillis() + mFrameBudget;
+        while (!mTasks.isEmpty() && SystemClock.uptimeMillis() < deadline) {
+            final Task task = mTasks.pollFirst();
+            // the holder may have been recycled or bound to another item since, which cancels its tasks
+            if (task.mOwner.getDeferredGeneration() == task.mGeneration) {
+                task.mRunnable.run();
+            }
+        }
+        if (!mTasks.isEmpty() && !mFrameCallbackPosted) {
+            mFrameCallbackPosted = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private static class Task {
+        final ItemViewHolder<?> mOwner;
+        final int mGeneration;
+        final Runnable mRunnable;
+
+        Task(ItemViewHolder<?> owner, int generation, Runnable runnable) {
+            mOwner = owner;
+            mGeneration = generation;
+            mRunnable = runnable;
+        }
+    }
+}
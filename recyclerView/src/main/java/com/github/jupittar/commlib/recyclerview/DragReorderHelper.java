@@ -0,0 +1,211 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.LongSparseArray;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+import android.support.v7.widget.helper.ItemTouchHelper;
+
+import com.github.jupittar.commlib.recyclerview.util.OrderKeys;
+import com.github.jupittar.commlib.recyclerview.util.TreeList;
+
+/**
+ * Helper class reordering the items of an {@link ItemAdapter} by drag and drop, built on {@link ItemTouchHelper}.
+ * <p/>
+ * Every step of a drag moves the item with {@link ItemAdapter#moveItem(int, int)}, a single
+ * {@link RecyclerView.Adapter#notifyItemMoved(int, int)} and an O(log n) move when the items are held in a
+ * {@link TreeList}. Headers and footers stay in place.
+ * <p/>
+ * The order is persisted as fractional {@link OrderKeys}: when the item is dropped, it gets a key between the
+ * keys of its new neighbours and {@link Callback#onOrderKeysChanged(LongSparseArray)} is called once with that
+ * key only. Items without keys yet next to the dropped item are keyed along with it, up to the nearest keyed
+ * items on either side, e.g. every item on the first drop in a list never reordered.
+ *
+ * @param <T> the item holder type of the adapter
+ */
+public class DragReorderHelper<T extends ItemHolder> {
+
+    /**
+     * Gives the order keys of the items and persists the new ones.
+     */
+    public interface Callback<T extends ItemHolder> {
+        /**
+         * @return the current order key of the item, or {@code null} if none yet
+         */
+        String getOrderKey(T itemHolder);
+
+        /**
+         * Called once per drop with the changed order keys, to be persisted in one batch and applied to the items
+         * so that {@link #getOrderKey(ItemHolder)} returns them from then on.
+         *
+         * @param orderKeys the new order keys by {@link ItemHolder#mItemId}
+         */
+        void onOrderKeysChanged(LongSparseArray<String> orderKeys);
+    }
+
+    private final ItemAdapter<T> mAdapter;
+    private final Callback<T> mCallback;
+    private final ItemTouchHelper mItemTouchHelper;
+    private boolean mLongPressDragEnabled = true;
+
+    /**
+     * the adapter position of the dragged item when the drag started
+     */
+    private int mDragStartPosition = RecyclerView.NO_POSITION;
+
+    private final ItemTouchHelper.Callback mTouchCallback = new ItemTouchHelper.Callback() {
+        @Override
+        public int getMovementFlags(@NonNull RecyclerView recyclerView,
+                                    @NonNull RecyclerView.ViewHolder viewHolder) {
+            if (!mAdapter.isContentPosition(viewHolder.getAdapterPosition())) {
+                return 0;
+            }
+            final RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+            final int dragFlags;
+            if (layoutManager instanceof GridLayoutManager || layoutManager instanceof StaggeredGridLayoutManager) {
+                dragFlags = ItemTouchHelper.UP | ItemTouchHelper.DOWN | ItemTouchHelper.LEFT | ItemTouchHelper.RIGHT;
+            } else if (layoutManager instanceof LinearLayoutManager
+                    && ((LinearLayoutManager) layoutManager).getOrientation() == LinearLayoutManager.HORIZONTAL) {
+                dragFlags = ItemTouchHelper.LEFT | ItemTouchHelper.RIGHT;
+            } else {
+                dragFlags = ItemTouchHelper.UP | ItemTouchHelper.DOWN;
+            }
+            return makeMovementFlags(dragFlags, 0);
+        }
+
+        @Override
+        public boolean canDropOver(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder current,
+                                   @NonNull RecyclerView.ViewHolder target) {
+            return mAdapter.isContentPosition(target.getAdapterPosition());
+        }
+
+        @Override
+        public boolean onMove(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder,
+                              @NonNull RecyclerView.ViewHolder target) {
+            final int fromPosition = viewHolder.getAdapterPosition();
+            final int toPosition = target.getAdapterPosition();
+            if (!mAdapter.isContentPosition(fromPosition) || !mAdapter.isContentPosition(toPosition)) {
+                return false;
+            }
+            mAdapter.moveItem(fromPosition, toPosition);
+            return true;
+        }
+
+        @Override
+        public void onSwiped(@NonNull RecyclerView.ViewHolder viewHolder, int direction) {
+            // swipe is disabled
+        }
+
+        @Override
+        public boolean isLongPressDragEnabled() {
+            return mLongPressDragEnabled;
+        }
+
+        @Override
+        public boolean isItemViewSwipeEnabled() {
+            return false;
+        }
+
+        @Override
+        public void onSelectedChanged(RecyclerView.ViewHolder viewHolder, int actionState) {
+            super.onSelectedChanged(viewHolder, actionState);
+            if (actionState == ItemTouchHelper.ACTION_STATE_DRAG && viewHolder != null) {
+                mDragStartPosition = viewHolder.getAdapterPosition();
+            }
+        }
+
+        @Override
+        public void clearView(@NonNull RecyclerView recyclerView, @NonNull RecyclerView.ViewHolder viewHolder) {
+            super.clearView(recyclerView, viewHolder);
+            final int position = viewHolder.getAdapterPosition();
+            if (mDragStartPosition != RecyclerView.NO_POSITION && position != RecyclerView.NO_POSITION
+                    && position != mDragStartPosition) {
+                onDropped(position);
+            }
+            mDragStartPosition = RecyclerView.NO_POSITION;
+        }
+    };
+
+    private DragReorderHelper(ItemAdapter<T> adapter, Callback<T> callback) {
+        mAdapter = adapter;
+        mCallback = callback;
+        mItemTouchHelper = new ItemTouchHelper(mTouchCallback);
+    }
+
+    public static <T extends ItemHolder> DragReorderHelper<T> attach(@NonNull RecyclerView recyclerView,
+                                                                     @NonNull ItemAdapter<T> adapter,
+                                                                     @NonNull Callback<T> callback) {
+        final DragReorderHelper<T> helper = new DragReorderHelper<>(adapter, callback);
+        helper.mItemTouchHelper.attachToRecyclerView(recyclerView);
+        return helper;
+    }
+
+    public void detach() {
+        mItemTouchHelper.attachToRecyclerView(null);
+    }
+
+    /**
+     * @param enabled whether a long press on an item starts dragging it, {@code true} by default
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public DragReorderHelper<T> longPressDragEnabled(boolean enabled) {
+        mLongPressDragEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Starts dragging the item of the specified holder, e.g. from the touch listener of a drag handle.
+     */
+    public void startDrag(@NonNull RecyclerView.ViewHolder viewHolder) {
+        mItemTouchHelper.startDrag(viewHolder);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T getItemHolder(int position) {
+        return (T) mAdapter.getItemHolder(position);
+    }
+
+    /**
+     * @return the order key of the item at the specified position, or {@code null} if it is not an item
+     */
+    private String getOrderKey(int position) {
+        return mAdapter.isContentPosition(position) ? mCallback.getOrderKey(getItemHolder(position)) : null;
+    }
+
+    /**
+     * @return {@code true} if the item at the specified position has a valid order key
+     */
+    private boolean hasOrderKey(int position) {
+        return OrderKeys.isBetween(getOrderKey(position), null, null);
+    }
+
+    private void onDropped(int position) {
+        final LongSparseArray<String> orderKeys = new LongSparseArray<>();
+        // key the dropped item and the unkeyed items around it, up to the nearest keyed items
+        int lowerPosition = position - 1;
+        while (mAdapter.isContentPosition(lowerPosition) && !hasOrderKey(lowerPosition)) {
+            lowerPosition--;
+        }
+        int upperPosition = position + 1;
+        while (mAdapter.isContentPosition(upperPosition) && !hasOrderKey(upperPosition)) {
+            upperPosition++;
+        }
+        String lower = mAdapter.isContentPosition(lowerPosition) ? getOrderKey(lowerPosition) : null;
+        String upper = mAdapter.isContentPosition(upperPosition) ? getOrderKey(upperPosition) : null;
+        if (lower != null && upper != null && !OrderKeys.isBetween(upper, lower, null)) {
+            // the keys around are out of order, key every item once
+            lowerPosition = mAdapter.getHeaderCount() - 1;
+            upperPosition = mAdapter.getHeaderCount() + mAdapter.getContentItemCount();
+            lower = null;
+            upper = null;
+        }
+        final String[] keys = OrderKeys.between(lower, upper, upperPosition - lowerPosition - 1);
+        for (int i = 0; i < keys.length; i++) {
+            orderKeys.put(getItemHolder(lowerPosition + 1 + i).mItemId, keys[i]);
+        }
+        mCallback.onOrderKeysChanged(orderKeys);
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+import android.view.View;
+
+/**
+ * {@link RecyclerView.OnItemTouchListener} selecting the items a finger is dragged over, started by
+ * {@link #startDragSelection(int)}, e.g. on a long click.
+ * <p/>
+ * The items between the start item and the item under the finger are checked through
+ * {@link MultiChoiceHelper#setItemsChecked(int, int, boolean)}, so that every move applies as a single range
+ * update notified with {@link MultiChoiceHelper#PAYLOAD_SELECTION}. Items left out of the range when the finger
+ * goes back are unchecked. The list scrolls by itself while the finger is near its top or bottom edge.
+ * <p/>
+ * A typical use:
+ * <pre>
+ *     recyclerView.addOnItemTouchListener(dragSelectTouchListener);
+ *
+ *     public boolean onLongClick(View view) {
+ *         dragSelectTouchListener.startDragSelection(getAdapterPosition());
+ *         return true;
+ *     }
+ * </pre>
+ */
+public class DragSelectTouchListener implements RecyclerView.OnItemTouchListener {
+
+    private final MultiChoiceHelper mMultiChoiceHelper;
+
+    /**
+     * the height of the auto-scroll zones at the edges, a eighth of the list height if negative
+     */
+    private int mAutoScrollEdge = -1;
+
+    /**
+     * the auto-scroll distance in pixels per frame at the very edge
+     */
+    private int mMaxScrollSpeed = 24;
+
+    private RecyclerView mRecyclerView;
+    private boolean mActive;
+    private int mStartPosition = RecyclerView.NO_POSITION;
+
+    /**
+     * the range currently checked by the drag, inclusive
+     */
+    private int mRangeStart;
+    private int mRangeEnd;
+
+    private float mLastX;
+    private float mLastY;
+    private int mScrollSpeed;
+
+    private final Runnable mAutoScrollRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (!mActive || mScrollSpeed == 0 || mRecyclerView == null) {
+                return;
+            }
+            mRecyclerView.scrollBy(0, mScrollSpeed);
+            updateSelection(mLastX, mLastY);
+            mRecyclerView.postOnAnimation(this);
+        }
+    };
+
+    public DragSelectTouchListener(@NonNull MultiChoiceHelper multiChoiceHelper) {
+        mMultiChoiceHelper = multiChoiceHelper;
+    }
+
+    /**
+     * @param edge the height in pixels of the auto-scroll zones at the top and bottom of the list
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public DragSelectTouchListener autoScrollEdge(int edge) {
+        mAutoScrollEdge = edge;
+        return this;
+    }
+
+    /**
+     * @param speed the auto-scroll distance in pixels per frame at the very edge of the list
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public DragSelectTouchListener maxScrollSpeed(int speed) {
+        mMaxScrollSpeed = Math.max(1, speed);
+        return this;
+    }
+
+    /**
+     * Checks the specified item and starts selecting the items the finger is dragged over until it is lifted.
+     *
+     * @param position the adapter position of the item the drag starts from
+     */
+    public void startDragSelection(int position) {
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        mActive = true;
+        mStartPosition = position;
+        mRangeStart = position;
+        mRangeEnd = position;
+        mMultiChoiceHelper.setItemsChecked(position, 1, true);
+    }
+
+    public boolean isActive() {
+        return mActive;
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+        mRecyclerView = rv;
+        final int action = e.getActionMasked();
+        if (mActive && (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL)) {
+            stopDragSelection();
+            return false;
+        }
+        // take over the gesture so that the list does not scroll with the finger
+        return mActive;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (!mActive) {
+            return;
+        }
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                mLastX = e.getX();
+                mLastY = e.getY();
+                updateSelection(mLastX, mLastY);
+                updateAutoScroll(rv, mLastY);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                stopDragSelection();
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        // ignored, a drag selection is only stopped by lifting the finger
+    }
+
+    private void stopDragSelection() {
+        mActive = false;
+        mStartPosition = RecyclerView.NO_POSITION;
+        mScrollSpeed = 0;
+        if (mRecyclerView != null) {
+            mRecyclerView.removeCallbacks(mAutoScrollRunnable);
+        }
+    }
+
+    private void updateSelection(float x, float y) {
+        final View child = mRecyclerView.findChildViewUnder(x, y);
+        if (child == null) {
+            return;
+        }
+        final int position = mRecyclerView.getChildAdapterPosition(child);
+        if (position == RecyclerView.NO_POSITION) {
+            return;
+        }
+        final int start = Math.min(mStartPosition, position);
+        final int end = Math.max(mStartPosition, position);
+        if (start == mRangeStart && end == mRangeEnd) {
+            return;
+        }
+
+        // the ranges share the start item, so each side changes by one contiguous range at most
+        if (start < mRangeStart) {
+            mMultiChoiceHelper.setItemsChecked(start, mRangeStart - start, true);
+        } else if (start > mRangeStart) {
+            mMultiChoiceHelper.setItemsChecked(mRangeStart, start - mRangeStart, false);
+        }
+        if (end > mRangeEnd) {
+            mMultiChoiceHelper.setItemsChecked(mRangeEnd + 1, end - mRangeEnd, true);
+        } else if (end < mRangeEnd) {
+            mMultiChoiceHelper.setItemsChecked(end + 1, mRangeEnd - end, false);
+        }
+        mRangeStart = start;
+        mRangeEnd = end;
+    }
+
+    private void updateAutoScroll(RecyclerView rv, float y) {
+        final int height = rv.getHeight();
+        final int edge = mAutoScrollEdge >= 0 ? mAutoScrollEdge : height / 8;
+        final int speed;
+        if (edge > 0 && y < edge) {
+            speed = -(int) Math.ceil(mMaxScrollSpeed * (edge - Math.max(0, y)) / edge);
+        } else if (edge > 0 && y > height - edge) {
+            speed = (int) Math.ceil(mMaxScrollSpeed * (Math.min(height, y) - (height - edge)) / edge);
+        } else {
+            speed = 0;
+        }
+        final boolean wasScrolling = mScrollSpeed != 0;
+        mScrollSpeed = speed;
+        if (speed != 0 && !wasScrolling) {
+            rv.postOnAnimation(mAutoScrollRunnable);
+        } else if (speed == 0 && wasScrolling) {
+            rv.removeCallbacks(mAutoScrollRunnable);
+        }
+    }
+}
@@ -1,66 +1,76 @@
 package com.github.jupittar.commlib.recyclerview;
 
-import android.support.v7.widget.GridLayoutManager;
-import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 
-import com.github.jupittar.commlib.recyclerview.adapter.BaseViewAdapter;
-import com.github.jupittar.commlib.recyclerview.adapter.CommonViewAdapter;
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
 
+/**
+ * {@link RecyclerView.OnScrollListener} invoking {@link #onLoadMore()} when the end of the list is about to be
+ * reached, driven by the same {@link PaginationEngine} as {@link LoadMoreScrollHelper}.
+ * <p/>
+ * On a scroll event the listener hands over to the {@link ScrollObserver} of the {@link RecyclerView} and works
+ * from its per-frame {@link ScrollSnapshot}s until the scroll settles, so that it stops once removed with
+ * {@link RecyclerView#removeOnScrollListener(RecyclerView.OnScrollListener)}. {@link #detach()} stops it right
+ * away.
+ */
 public abstract class EndlessScrollListener extends RecyclerView.OnScrollListener {
 
-    private int mPreviousTotal = 0; // the total number of items in the data set after the last loading.
-    private int mVisibleThreshold = 3; // the min amount of items to have below current scroll position before loading more.
-    private boolean mLoading = true; // true if still waiting for the last set of data to load
+    private int mVisibleThreshold = 3; // the min amount of rows to have below current scroll position before loading more.
+    private final PaginationEngine mPaginationEngine = new PaginationEngine(mVisibleThreshold);
+    private ScrollObserver mScrollObserver;
+
+    private final OnScrollFrameListener mOnScrollFrameListener = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            mPaginationEngine.setMinThreshold(mVisibleThreshold * snapshot.getSpanCount());
+            if (mPaginationEngine.onScrolled(snapshot.getFrameTimeMillis(), snapshot.getLastVisiblePosition(),
+                    snapshot.getItemCount())) {
+                onLoadMore();
+            }
+            if (snapshot.getScrollState() == RecyclerView.SCROLL_STATE_IDLE) {
+                // listen again on the next scroll event, if still added to the list
+                detach();
+            }
+        }
+    };
 
     @Override
     public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
         super.onScrolled(recyclerView, dx, dy);
 
-        int firstVisibleItem = 0;
-        int visibleItemCount = 0;
-        int totalItemCount = 0;
-        RecyclerView.Adapter adapter = recyclerView.getAdapter();
-        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
-        visibleItemCount = layoutManager.getChildCount();
-
-        if (layoutManager instanceof GridLayoutManager) {
-            GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-            firstVisibleItem = gridLayoutManager.findFirstVisibleItemPosition();
-            totalItemCount = gridLayoutManager.getItemCount();
-        } else if (layoutManager instanceof LinearLayoutManager) {
-            LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
-            firstVisibleItem = linearLayoutManager.findFirstVisibleItemPosition();
-            totalItemCount = linearLayoutManager.getItemCount();
+        if (mScrollObserver != null && mScrollObserver.getRecyclerView() != recyclerView) {
+            // added to another list
+            detach();
         }
-
-        if (adapter instanceof BaseViewAdapter && ((BaseViewAdapter) adapter).isEmpty()) {
-            mPreviousTotal = 0;
-        }
-
-        if (mLoading) {
-            if (adapter instanceof CommonViewAdapter) {
-                if (((CommonViewAdapter) adapter).hasHeader()) {
-                    mPreviousTotal++;
-                }
-                if (((CommonViewAdapter) adapter).hasFooter()) {
-                    mPreviousTotal++;
-                }
-            }
-            if (totalItemCount > mPreviousTotal) {
-                mLoading = false;
-                mPreviousTotal = totalItemCount;
-            }
+        if (mScrollObserver == null) {
+            mScrollObserver = ScrollObserver.of(recyclerView);
+            mScrollObserver.addOnScrollFrameListener(mOnScrollFrameListener);
+            mScrollObserver.requestFrame();
         }
+    }
 
-        if (!mLoading && totalItemCount - firstVisibleItem <=
-                mVisibleThreshold + visibleItemCount) {
-            onLoadMore();
-            mLoading = true;
+    /**
+     * Stops listening to the frames of the {@link ScrollObserver}, e.g. along with
+     * {@link RecyclerView#removeOnScrollListener(RecyclerView.OnScrollListener)}. The listener starts again on
+     * the next scroll event it receives.
+     */
+    public void detach() {
+        if (mScrollObserver != null) {
+            mScrollObserver.removeOnScrollFrameListener(mOnScrollFrameListener);
+            mScrollObserver = null;
         }
+    }
 
+    /**
+     * Ends the current load, see {@link LoadMoreScrollHelper#notifyLoadFinished(boolean)}.
+     */
+    public void notifyLoadFinished(boolean hasMore) {
+        mPaginationEngine.onLoadFinished(hasMore);
     }
 
+    public void reset() {
+        mPaginationEngine.reset();
+    }
 
     public void setVisibleThreshold(int visibleThreshold) {
         mVisibleThreshold = visibleThreshold;
@@ -0,0 +1,519 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.annotation.AnyThread;
+import android.support.annotation.NonNull;
+import android.support.annotation.WorkerThread;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.MotionEvent;
+
+import com.github.jupittar.commlib.recyclerview.adapter.BaseViewAdapter;
+import com.github.jupittar.commlib.recyclerview.util.BucketIndex;
+import com.github.jupittar.commlib.recyclerview.util.LayoutManagerUtils;
+import com.github.jupittar.commlib.recyclerview.util.MainThreadExecutor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Fast scroller drawn over a {@link RecyclerView} whose items are sorted by bucket, e.g. by first letter, for
+ * an {@link ItemAdapter}, a {@link LazyItemAdapter} or a {@link BaseViewAdapter}.
+ * <p/>
+ * The {@link BucketIndex} of the items is built from the keys given by a {@link BucketFunction} on a background
+ * thread. Dragging the thumb maps its position to an adapter position through the index, every bucket getting
+ * an equal share of the track, and jumps there with {@link LinearLayoutManager#scrollToPositionWithOffset(int,
+ * int)} at most once per frame, so that the items in between are never bound. The bucket under the thumb is
+ * shown in a bubble while dragging.
+ * <p/>
+ * The index is updated in place when up to {@link #INCREMENTAL_LIMIT} items are inserted, removed or changed
+ * in existing buckets, and built again in the background otherwise.
+ * <p/>
+ * Note: Must be used from the main thread.
+ */
+public class FastScroller extends RecyclerView.ItemDecoration implements RecyclerView.OnItemTouchListener {
+
+    /**
+     * the max amount of items updated in place, larger updates build the index again
+     */
+    public static final int INCREMENTAL_LIMIT = 256;
+
+    /**
+     * Gives the bucket of an item of the list.
+     *
+     * @param <T> the item type of the adapter
+     */
+    public interface BucketFunction<T> {
+        /**
+         * Called on a background thread while building the index, and on the main thread for small updates.
+         *
+         * @return the bucket of the item, e.g. its first letter
+         */
+        @AnyThread
+        String getBucket(T item);
+    }
+
+    /**
+     * Gives the bucket of a record of a {@link LazyItemAdapter}, read from its source without creating the item
+     * holder. The source must therefore support reads from the thread of the index.
+     */
+    public interface RecordBucketFunction {
+        /**
+         * Called on a background thread while building the index, and on the main thread only for updates of up
+         * to {@link #INCREMENTAL_LIMIT} records.
+         *
+         * @param index the index of the record in the source
+         * @return the bucket of the record, e.g. its first letter
+         */
+        @WorkerThread
+        String getBucket(int index);
+    }
+
+    /**
+     * Reads the keys of the items of the adapter, on the main thread for small updates and through a
+     * {@link KeyReader} on the thread of the index otherwise.
+     */
+    private abstract static class ItemSource {
+        abstract int getCount();
+
+        /**
+         * @return the key of the item in the specified position, read on the main thread
+         */
+        abstract String getKey(int position);
+
+        /**
+         * Captures on the main thread what is needed to read the keys of the specified count of items in the
+         * background, which must be cheap.
+         */
+        abstract KeyReader snapshot(int count);
+    }
+
+    private interface KeyReader {
+        @WorkerThread
+        String[] readKeys();
+    }
+
+    /**
+     * Source of the items held by the adapter, collected on the main thread and mapped to their keys in the
+     * background.
+     */
+    private abstract static class HeldItemSource<T> extends ItemSource {
+        private final BucketFunction<? super T> mBucketFunction;
+
+        HeldItemSource(BucketFunction<? super T> bucketFunction) {
+            mBucketFunction = bucketFunction;
+        }
+
+        abstract T getItem(int position);
+
+        @Override
+        String getKey(int position) {
+            return mBucketFunction.getBucket(getItem(position));
+        }
+
+        @Override
+        KeyReader snapshot(int count) {
+            final List<T> items = new ArrayList<>(count);
+            for (int position = 0; position < count; position++) {
+                items.add(getItem(position));
+            }
+            return new KeyReader() {
+                @Override
+                public String[] readKeys() {
+                    final String[] keys = new String[items.size()];
+                    for (int i = 0; i < keys.length; i++) {
+                        keys[i] = mBucketFunction.getBucket(items.get(i));
+                    }
+                    return keys;
+                }
+            };
+        }
+    }
+
+    private final RecyclerView mRecyclerView;
+    private final RecyclerView.Adapter<?> mAdapter;
+    private final ItemSource mItemSource;
+    private Executor mExecutor;
+
+    /**
+     * the executor created by {@link #getExecutor()} if none was set, shut down by {@link #detach()}
+     */
+    private ExecutorService mOwnedExecutor;
+
+    private BucketIndex mIndex;
+
+    /**
+     * incremented by every build, to drop the results of outdated builds
+     */
+    private int mBuildGeneration;
+    private boolean mBuilding;
+
+    private final Paint mThumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mBubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint mTextPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF mThumbRect = new RectF();
+    private final int mThumbWidth;
+    private final int mThumbHeight;
+    private final int mTouchWidth;
+    private final int mBubbleRadius;
+
+    private boolean mDragging;
+    private float mDragFraction;
+    private int mPendingPosition = RecyclerView.NO_POSITION;
+    private boolean mJumpPosted;
+
+    private final Runnable mJumpRunnable = new Runnable() {
+        @Override
+        public void run() {
+            mJumpPosted = false;
+            if (mPendingPosition == RecyclerView.NO_POSITION) {
+                return;
+            }
+            final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+            if (layoutManager instanceof LinearLayoutManager) {
+                ((LinearLayoutManager) layoutManager).scrollToPositionWithOffset(mPendingPosition, 0);
+            } else if (layoutManager != null) {
+                layoutManager.scrollToPosition(mPendingPosition);
+            }
+            mPendingPosition = RecyclerView.NO_POSITION;
+        }
+    };
+
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            rebuild();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            // partial changes, e.g. a selection, are not expected to change the bucket
+            if (payload == null) {
+                onItemRangeChanged(positionStart, itemCount);
+            }
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            if (!canUpdate(itemCount) || !mIndex.change(positionStart, getKeys(positionStart, itemCount))) {
+                rebuild();
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            if (!canUpdate(itemCount) || !mIndex.insert(positionStart, getKeys(positionStart, itemCount))) {
+                rebuild();
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            if (!canUpdate(itemCount) || !mIndex.remove(positionStart, itemCount)) {
+                rebuild();
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            if (!canUpdate(itemCount) || itemCount != 1) {
+                rebuild();
+            } else {
+                mIndex.move(fromPosition, toPosition);
+            }
+        }
+    };
+
+    private FastScroller(RecyclerView recyclerView, RecyclerView.Adapter<?> adapter, ItemSource itemSource) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        mItemSource = itemSource;
+
+        final float density = recyclerView.getResources().getDisplayMetrics().density;
+        mThumbWidth = (int) (6 * density);
+        mThumbHeight = (int) (48 * density);
+        mTouchWidth = (int) (32 * density);
+        mBubbleRadius = (int) (32 * density);
+        mThumbPaint.setColor(Color.GRAY);
+        mBubblePaint.setColor(Color.DKGRAY);
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(28 * density);
+        mTextPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    public static FastScroller attach(@NonNull RecyclerView recyclerView, @NonNull final ItemAdapter<?> adapter,
+                                      @NonNull BucketFunction<ItemHolder> bucketFunction) {
+        return attach(recyclerView, new FastScroller(recyclerView, adapter,
+                new HeldItemSource<ItemHolder>(bucketFunction) {
+                    @Override
+                    int getCount() {
+                        return adapter.getItemCount();
+                    }
+
+                    @Override
+                    ItemHolder getItem(int position) {
+                        return adapter.getItemHolder(position);
+                    }
+                }));
+    }
+
+    /**
+     * Attaches to a {@link LazyItemAdapter}, the buckets being read by index on the thread of the index so that
+     * no item holder is created and no record is read on the main thread to build the index. Headers and footers
+     * belong to no bucket.
+     */
+    public static FastScroller attach(@NonNull RecyclerView recyclerView, @NonNull final LazyItemAdapter<?> adapter,
+                                      @NonNull final RecordBucketFunction bucketFunction) {
+        return attach(recyclerView, new FastScroller(recyclerView, adapter, new ItemSource() {
+            @Override
+            int getCount() {
+                return adapter.getItemCount();
+            }
+
+            @Override
+            String getKey(int position) {
+                return adapter.isContentPosition(position)
+                        ? bucketFunction.getBucket(position - adapter.getHeaderCount())
+                        : null;
+            }
+
+            @Override
+            KeyReader snapshot(final int count) {
+                final int headerCount = adapter.getHeaderCount();
+                final int contentCount = adapter.getContentItemCount();
+                return new KeyReader() {
+                    @Override
+                    public String[] readKeys() {
+                        final String[] keys = new String[count];
+                        for (int index = 0; index < contentCount; index++) {
+                            keys[headerCount + index] = bucketFunction.getBucket(index);
+                        }
+                        return keys;
+                    }
+                };
+            }
+        }));
+    }
+
+    public static <T> FastScroller attach(@NonNull RecyclerView recyclerView,
+                                          @NonNull final BaseViewAdapter<T> adapter,
+                                          @NonNull BucketFunction<? super T> bucketFunction) {
+        return attach(recyclerView, new FastScroller(recyclerView, adapter, new HeldItemSource<T>(bucketFunction) {
+            @Override
+            int getCount() {
+                return adapter.getItemCount();
+            }
+
+            @Override
+            T getItem(int position) {
+                return adapter.getItem(position);
+            }
+        }));
+    }
+
+    private static FastScroller attach(RecyclerView recyclerView, FastScroller fastScroller) {
+        recyclerView.addItemDecoration(fastScroller);
+        recyclerView.addOnItemTouchListener(fastScroller);
+        fastScroller.mAdapter.registerAdapterDataObserver(fastScroller.mDataObserver);
+        fastScroller.rebuild();
+        return fastScroller;
+    }
+
+    public void detach() {
+        mRecyclerView.removeItemDecoration(this);
+        mRecyclerView.removeOnItemTouchListener(this);
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
+        mBuildGeneration++;
+        if (mOwnedExecutor != null) {
+            mOwnedExecutor.shutdownNow();
+            mOwnedExecutor = null;
+            mExecutor = null;
+        }
+    }
+
+    /**
+     * Sets the {@link Executor} on which to build the index, a low priority thread shut down by {@link #detach()}
+     * otherwise.
+     */
+    public FastScroller executor(Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    public FastScroller thumbColor(int color) {
+        mThumbPaint.setColor(color);
+        return this;
+    }
+
+    public FastScroller bubbleColor(int color) {
+        mBubblePaint.setColor(color);
+        return this;
+    }
+
+    public FastScroller textColor(int color) {
+        mTextPaint.setColor(color);
+        return this;
+    }
+
+    /**
+     * @return the current index, or {@code null} while the first one is being built
+     */
+    public BucketIndex getIndex() {
+        return mIndex;
+    }
+
+    private Executor getExecutor() {
+        if (mExecutor == null) {
+            mOwnedExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "FastScroller");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+            mExecutor = mOwnedExecutor;
+        }
+        return mExecutor;
+    }
+
+    private boolean canUpdate(int itemCount) {
+        return mIndex != null && !mBuilding && itemCount <= INCREMENTAL_LIMIT;
+    }
+
+    private String[] getKeys(int positionStart, int itemCount) {
+        final String[] keys = new String[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            keys[i] = mItemSource.getKey(positionStart + i);
+        }
+        return keys;
+    }
+
+    /**
+     * Builds the index again in the background, at most the held items are collected on the main thread
+     */
+    private void rebuild() {
+        final KeyReader keyReader = mItemSource.snapshot(mItemSource.getCount());
+        final int generation = ++mBuildGeneration;
+        mBuilding = true;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final String[] keys = keyReader.readKeys();
+                final BucketIndex index = BucketIndex.build(keys, keys.length);
+                MainThreadExecutor.getInstance().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mBuildGeneration) {
+                            mIndex = index;
+                            mBuilding = false;
+                            mRecyclerView.invalidate();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private boolean isShown() {
+        return mIndex != null && mIndex.getBucketCount() > 0
+                && mRecyclerView.computeVerticalScrollRange() > mRecyclerView.getHeight();
+    }
+
+    private float getThumbTop(float fraction) {
+        return fraction * (mRecyclerView.getHeight() - mThumbHeight);
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        if (!isShown()) {
+            return;
+        }
+        final float fraction;
+        if (mDragging) {
+            fraction = mDragFraction;
+        } else {
+            final int position = LayoutManagerUtils.findFirstVisibleItemPosition(parent.getLayoutManager());
+            if (position == RecyclerView.NO_POSITION) {
+                return;
+            }
+            fraction = mIndex.getFractionForPosition(position);
+        }
+        final float top = getThumbTop(fraction);
+        final int right = parent.getWidth();
+        mThumbRect.set(right - mThumbWidth, top, right, top + mThumbHeight);
+        c.drawRoundRect(mThumbRect, mThumbWidth / 2f, mThumbWidth / 2f, mThumbPaint);
+
+        if (mDragging) {
+            final int position = mIndex.getPositionForFraction(fraction);
+            final String name = mIndex.getBucketName(mIndex.getBucketForPosition(position));
+            final float centerX = right - mTouchWidth - mBubbleRadius;
+            final float centerY = Math.max(mBubbleRadius, top + mThumbHeight / 2f);
+            c.drawCircle(centerX, centerY, mBubbleRadius, mBubblePaint);
+            c.drawText(name, centerX, centerY - (mTextPaint.descent() + mTextPaint.ascent()) / 2, mTextPaint);
+        }
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (e.getActionMasked() != MotionEvent.ACTION_DOWN || !isShown()
+                || e.getX() < rv.getWidth() - mTouchWidth) {
+            return false;
+        }
+        final int position = LayoutManagerUtils.findFirstVisibleItemPosition(rv.getLayoutManager());
+        final float top = getThumbTop(mIndex.getFractionForPosition(position));
+        if (e.getY() < top - mThumbHeight / 2f || e.getY() > top + mThumbHeight * 1.5f) {
+            return false;
+        }
+        mDragging = true;
+        rv.stopScroll();
+        rv.getParent().requestDisallowInterceptTouchEvent(true);
+        drag(e.getY());
+        return true;
+    }
+
+    @Override
+    public void onTouchEvent(RecyclerView rv, MotionEvent e) {
+        if (!mDragging) {
+            return;
+        }
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                drag(e.getY());
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                mDragging = false;
+                rv.invalidate();
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        // ignored
+    }
+
+    private void drag(float y) {
+        final int track = mRecyclerView.getHeight() - mThumbHeight;
+        mDragFraction = track <= 0 ? 0 : Math.max(0, Math.min(1, (y - mThumbHeight / 2f) / track));
+        final int position = mIndex.getPositionForFraction(mDragFraction);
+        if (position != RecyclerView.NO_POSITION) {
+            // jump once per frame whatever the amount of move events, to the latest position only
+            mPendingPosition = position;
+            if (!mJumpPosted) {
+                mJumpPosted = true;
+                mRecyclerView.postOnAnimation(mJumpRunnable);
+            }
+        }
+        mRecyclerView.invalidate();
+    }
+}
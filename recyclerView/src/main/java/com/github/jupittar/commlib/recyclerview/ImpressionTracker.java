@@ -0,0 +1,339 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.os.SystemClock;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+
+/**
+ * Tracks which items of an {@link ItemAdapter} have been seen and for how long, by their
+ * {@link ItemHolder#mItemId}.
+ * <p/>
+ * An impression starts when at least {@link #minVisibleFraction(float)} of the area of an item becomes visible
+ * and ends when it drops below it. Impressions shorter than {@link #minDwell(long)} are dropped. Completed
+ * impressions are collected in a bounded buffer which is handed to a {@link Sink} on an {@link Executor} once
+ * full, or on {@link #flush()}.
+ * <p/>
+ * Visibility is updated once per frame from the {@link ScrollObserver} of the {@link RecyclerView}, looking at
+ * the attached children only. No objects are allocated while scrolling, only when flushing.
+ * <p/>
+ * A typical use:
+ * <pre>
+ *     tracker = ImpressionTracker.attach(recyclerView, adapter, sink, executor);
+ *
+ *     protected void onPause() {
+ *         super.onPause();
+ *         tracker.endAll();
+ *         tracker.flush();
+ *     }
+ * </pre>
+ * Note: Must be used from the main thread, the adapter must have stable ids.
+ */
+public class ImpressionTracker {
+
+    private static final int DEFAULT_BUFFER_SIZE = 256;
+
+    private final RecyclerView mRecyclerView;
+    private final BaseItemAdapter<?> mAdapter;
+    private final Sink mSink;
+    private final Executor mExecutor;
+
+    private float mMinVisibleFraction = 0.5f;
+    private long mMinDwell;
+
+    /**
+     * the items currently visible, in slots {@code 0} to {@code mVisibleCount - 1}
+     */
+    private long[] mVisibleIds = new long[16];
+    private long[] mStartTimes = new long[16];
+    private float[] mMaxFractions = new float[16];
+
+    /**
+     * whether the item of a slot has been found visible in the current frame
+     */
+    private boolean[] mSeen = new boolean[16];
+    private int mVisibleCount;
+
+    /**
+     * the completed impressions not flushed yet, in slots {@code 0} to {@code mBufferCount - 1}
+     */
+    private long[] mBufferIds;
+    private long[] mBufferDurations;
+    private float[] mBufferFractions;
+    private int mBufferCount;
+
+    private final OnScrollFrameListener mOnScrollFrameListener = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            update(snapshot.getFrameTimeMillis());
+        }
+    };
+
+    /**
+     * Children may appear or disappear without any scroll when the data set changes
+     */
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+    };
+
+    private ImpressionTracker(RecyclerView recyclerView, BaseItemAdapter<?> adapter, Sink sink, Executor executor) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+        mSink = sink;
+        mExecutor = executor;
+        bufferSize(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param recyclerView the {@link RecyclerView} displaying the adapter
+     * @param adapter      the {@link ItemAdapter} of the items to track
+     * @param sink         the {@link Sink} receiving the completed impressions
+     * @param executor     the {@link Executor} on which to invoke the sink
+     */
+    public static ImpressionTracker attach(@NonNull RecyclerView recyclerView, @NonNull BaseItemAdapter<?> adapter,
+                                           @NonNull Sink sink, @NonNull Executor executor) {
+        final ImpressionTracker tracker = new ImpressionTracker(recyclerView, adapter, sink, executor);
+        adapter.registerAdapterDataObserver(tracker.mDataObserver);
+        final ScrollObserver observer = ScrollObserver.of(recyclerView);
+        observer.addOnScrollFrameListener(tracker.mOnScrollFrameListener);
+        // pick up the items visible before any scroll
+        observer.requestFrame();
+        return tracker;
+    }
+
+    /**
+     * @param fraction the min fraction of the area of an item to be visible to count as seen, 0.5 by default
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ImpressionTracker minVisibleFraction(float fraction) {
+        mMinVisibleFraction = Math.max(0f, Math.min(1f, fraction));
+        return this;
+    }
+
+    /**
+     * @param millis the min duration of an impression to be reported
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ImpressionTracker minDwell(long millis) {
+        mMinDwell = Math.max(0, millis);
+        return this;
+    }
+
+    /**
+     * @param size the max amount of completed impressions to hold before flushing them
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ImpressionTracker bufferSize(int size) {
+        flush();
+        size = Math.max(1, size);
+        mBufferIds = new long[size];
+        mBufferDurations = new long[size];
+        mBufferFractions = new float[size];
+        return this;
+    }
+
+    public void detach() {
+        endAll();
+        flush();
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
+        ScrollObserver.of(mRecyclerView).removeOnScrollFrameListener(mOnScrollFrameListener);
+    }
+
+    /**
+     * Ends the impressions of every visible item, e.g. when the screen is left. They start again on the next
+     * frame the items are visible in.
+     */
+    public void endAll() {
+        final long now = SystemClock.uptimeMillis();
+        for (int i = mVisibleCount - 1; i >= 0; i--) {
+            end(i, now);
+        }
+    }
+
+    /**
+     * Hands the completed impressions buffered so far to the {@link Sink}.
+     */
+    public void flush() {
+        if (mBufferCount == 0) {
+            return;
+        }
+        final ImpressionBatch batch = new ImpressionBatch(
+                Arrays.copyOf(mBufferIds, mBufferCount),
+                Arrays.copyOf(mBufferDurations, mBufferCount),
+                Arrays.copyOf(mBufferFractions, mBufferCount));
+        mBufferCount = 0;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mSink.onImpressions(batch);
+            }
+        });
+    }
+
+    private void update(long now) {
+        for (int i = 0; i < mVisibleCount; i++) {
+            mSeen[i] = false;
+        }
+
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        final boolean vertical = layoutManager == null || !layoutManager.canScrollHorizontally();
+        final int start = vertical ? mRecyclerView.getPaddingTop() : mRecyclerView.getPaddingLeft();
+        final int end = vertical
+                ? mRecyclerView.getHeight() - mRecyclerView.getPaddingBottom()
+                : mRecyclerView.getWidth() - mRecyclerView.getPaddingRight();
+        final int itemCount = mAdapter.getItemCount();
+
+        for (int i = 0, count = mRecyclerView.getChildCount(); i < count; i++) {
+            final View child = mRecyclerView.getChildAt(i);
+            final int position = mRecyclerView.getChildAdapterPosition(child);
+            if (position == RecyclerView.NO_POSITION || position >= itemCount) {
+                continue;
+            }
+            final float fraction = vertical
+                    ? visibleFraction(child.getTop(), child.getBottom(), start, end)
+                    : visibleFraction(child.getLeft(), child.getRight(), start, end);
+            if (fraction <= 0 || fraction < mMinVisibleFraction) {
+                continue;
+            }
+            final long id = mAdapter.getItemHolderId(position);
+            int slot = indexOf(id);
+            if (slot < 0) {
+                slot = obtainSlot(id, now);
+            }
+            mSeen[slot] = true;
+            mMaxFractions[slot] = Math.max(mMaxFractions[slot], fraction);
+        }
+
+        for (int i = mVisibleCount - 1; i >= 0; i--) {
+            if (!mSeen[i]) {
+                end(i, now);
+            }
+        }
+    }
+
+    private static float visibleFraction(int childStart, int childEnd, int start, int end) {
+        final int size = childEnd - childStart;
+        if (size <= 0) {
+            return 0;
+        }
+        final int visible = Math.min(childEnd, end) - Math.max(childStart, start);
+        return visible <= 0 ? 0 : (float) visible / size;
+    }
+
+    /**
+     * Linear search, the visible items are a handful
+     */
+    private int indexOf(long id) {
+        for (int i = 0; i < mVisibleCount; i++) {
+            if (mVisibleIds[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int obtainSlot(long id, long now) {
+        if (mVisibleCount == mVisibleIds.length) {
+            final int capacity = mVisibleCount * 2;
+            mVisibleIds = Arrays.copyOf(mVisibleIds, capacity);
+            mStartTimes = Arrays.copyOf(mStartTimes, capacity);
+            mMaxFractions = Arrays.copyOf(mMaxFractions, capacity);
+            mSeen = Arrays.copyOf(mSeen, capacity);
+        }
+        final int slot = mVisibleCount++;
+        mVisibleIds[slot] = id;
+        mStartTimes[slot] = now;
+        mMaxFractions[slot] = 0;
+        return slot;
+    }
+
+    /**
+     * Records the impression of the specified slot and fills the slot with the last one.
+     */
+    private void end(int slot, long now) {
+        final long duration = now - mStartTimes[slot];
+        if (duration >= mMinDwell) {
+            mBufferIds[mBufferCount] = mVisibleIds[slot];
+            mBufferDurations[mBufferCount] = duration;
+            mBufferFractions[mBufferCount] = mMaxFractions[slot];
+            mBufferCount++;
+            if (mBufferCount == mBufferIds.length) {
+                flush();
+            }
+        }
+        final int last = --mVisibleCount;
+        mVisibleIds[slot] = mVisibleIds[last];
+        mStartTimes[slot] = mStartTimes[last];
+        mMaxFractions[slot] = mMaxFractions[last];
+        mSeen[slot] = mSeen[last];
+    }
+
+    /**
+     * Completed impressions handed to a {@link Sink}, the i-th impression is made of the i-th element of every
+     * array.
+     */
+    public static class ImpressionBatch {
+        private final long[] mItemIds;
+        private final long[] mDurations;
+        private final float[] mMaxVisibleFractions;
+
+        ImpressionBatch(long[] itemIds, long[] durations, float[] maxVisibleFractions) {
+            mItemIds = itemIds;
+            mDurations = durations;
+            mMaxVisibleFractions = maxVisibleFractions;
+        }
+
+        public int size() {
+            return mItemIds.length;
+        }
+
+        public long getItemId(int index) {
+            return mItemIds[index];
+        }
+
+        /**
+         * @return the time in milliseconds the item stayed visible
+         */
+        public long getDuration(int index) {
+            return mDurations[index];
+        }
+
+        /**
+         * @return the max fraction of the area of the item visible during the impression
+         */
+        public float getMaxVisibleFraction(int index) {
+            return mMaxVisibleFractions[index];
+        }
+    }
+
+    /**
+     * Receives the completed impressions of an {@link ImpressionTracker}, invoked on its {@link Executor}.
+     */
+    public interface Sink {
+        void onImpressions(ImpressionBatch batch);
+    }
+}
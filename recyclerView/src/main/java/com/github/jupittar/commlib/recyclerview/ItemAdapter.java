@@ -3,211 +3,83 @@ package com.github.jupittar.commlib.recyclerview;
 
 import android.os.Bundle;
 import android.support.annotation.NonNull;
+import android.support.v7.util.DiffUtil;
+import android.support.v7.util.ListUpdateCallback;
 import android.support.v7.widget.RecyclerView;
-import android.util.SparseArray;
-import android.view.ViewGroup;
 
-import com.github.jupittar.commlib.recyclerview.listener.OnItemChangedListener;
 import com.github.jupittar.commlib.recyclerview.listener.OnItemClickedListener;
+import com.github.jupittar.commlib.recyclerview.util.LongLongHashMap;
+import com.github.jupittar.commlib.recyclerview.util.TreeList;
 
 import java.util.ArrayList;
 import java.util.List;
 
 /**
- * Base adapter class for displaying a collection of items. Provides functionality for handling changing items,
+ * Adapter class for displaying a list of items. Provides functionality for handling changing items,
  * persistent item state, item click events and reusable item views.
- * <p>
- * @see <a href="https://android.googlesource.com/platform/packages/apps/DeskClock/+/master/src/com/android/deskclock
- * /ItemAdapter.java">Original code</a>
+ *
+ * @see BaseItemAdapter
  */
-public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<ItemViewHolder> {
+public class ItemAdapter<T extends ItemHolder> extends BaseItemAdapter<T> {
 
     /**
-     * List of {@link ItemHolder} this adapter represented exclude headers and footers
-     */
-    private List<T> mItemHolders;
-
-    /**
-     * List of {@link ItemHolder} for the headers this adapter represented
-     */
-    private List<ItemHolder> mHeaderHolders;
-
-    /**
-     * List of {@link ItemHolder} for the footers this adapter represented
-     */
-    private List<ItemHolder> mFooterHolders;
-
-    public List<ItemHolder> getHeaderHolders() {
-        return mHeaderHolders == null ? new ArrayList<ItemHolder>() : mHeaderHolders;
-    }
-
-    public List<ItemHolder> getFooterHolders() {
-        return mFooterHolders == null ? new ArrayList<ItemHolder>() : mFooterHolders;
-    }
-
-
-    /**
-     * Invoked when any item changed
-     */
-    private OnItemChangedListener mOnItemChangedListener;
-
-    /**
-     * Factories for creating new {@link ItemViewHolder}
+     * payload of the changes replacing the bound item holder by a new one of the same content, e.g. in
+     * {@link #updateItems(List)}, which only swaps the holder without binding the view again
      */
-    private final SparseArray<ItemViewHolder.Factory> mFactoriesByViewType = new SparseArray<>();
+    public static final Object PAYLOAD_ITEM_REPLACED = new Object();
 
     /**
-     * Click listeners to invoke in {@link #mOnItemClickedListener}
+     * the states of a row in {@link #updateItems(List)}: the very same holder, a new holder of the same content
+     * or a new holder of changed or new content
      */
-    private final SparseArray<OnItemClickedListener> mClickListenersByViewType = new SparseArray<>();
+    private static final int ROW_SAME = 0;
+    private static final int ROW_REPLACED = 1;
+    private static final int ROW_CHANGED = 2;
 
     /**
-     * Finds the position of the changed item holder and invoke {@link #notifyItemChanged(int)} or
-     * {@link #notifyItemChanged(int, Object)} if payloads are present(in order to do in-place animation)
+     * List of {@link ItemHolder} this adapter represented exclude headers and footers
      */
-    private final OnItemChangedListener mItemChangedNotifier = new OnItemChangedListener() {
-        @Override
-        public void onItemChanged(ItemHolder<?> itemHolder) {
-            if (mOnItemChangedListener != null) {
-                mOnItemChangedListener.onItemChanged(itemHolder);
-            }
-            int position = mItemHolders.indexOf(itemHolder);
-            position += getHeaderCount();
-            if (position != RecyclerView.NO_POSITION) {
-                notifyItemChanged(position);
-            }
-        }
-
-        @Override
-        public void onItemChanged(ItemHolder<?> itemHolder, Object payload) {
-            if (mOnItemChangedListener != null) {
-                mOnItemChangedListener.onItemChanged(itemHolder, payload);
-            }
-            int position = mItemHolders.indexOf(itemHolder);
-            position += getHeaderCount();
-            if (position != RecyclerView.NO_POSITION) {
-                notifyItemChanged(position, payload);
-            }
-        }
-    };
+    private List<T> mItemHolders;
 
     /**
-     * Invokes the {@link OnItemClickedListener} in {@link #mClickListenersByViewType} corresponding to
-     * {@link ItemViewHolder#getItemViewType()}
+     * the counts of rows left unchanged and notified as changed by {@link #updateItems(List)}
      */
-    private final OnItemClickedListener mOnItemClickedListener = new OnItemClickedListener() {
-        @Override
-        public void onItemClicked(ItemViewHolder<?> viewHolder, int id) {
-            final OnItemClickedListener listener = mClickListenersByViewType.get(viewHolder.getItemViewType());
-            if (listener != null) {
-                listener.onItemClicked(viewHolder, id);
-            }
-        }
-    };
+    private int mAvoidedRebindCount;
+    private int mChangedCount;
 
-    /**
-     * Convenience for calling {@link #setHasStableIds(boolean)} with {@code true}
-     *
-     * @return this object, allowing calls to methods in this class to be chained
-     */
+    @Override
     public ItemAdapter setHasStableIds() {
-        setHasStableIds(true);
+        super.setHasStableIds();
         return this;
     }
 
-    /**
-     * Sets the {@link ItemViewHolder.Factory} used to create
-     * new item view holders in {@link #onCreateViewHolder(ViewGroup, int)}.
-     *
-     * @param factory   the {@link ItemViewHolder.Factory} used to create new item view holders
-     * @param viewTypes the unique identifier for the view types to be created
-     * @return this object, allowing calls to methods in this class to be chained
-     */
+    @Override
     public ItemAdapter withViewTypes(ItemViewHolder.Factory factory, int... viewTypes) {
-        for (int viewType :
-                viewTypes) {
-            mFactoriesByViewType.put(viewType, factory);
-        }
+        super.withViewTypes(factory, viewTypes);
         return this;
     }
 
-    /**
-     * Sets the {@link OnItemClickedListener}
-     *
-     * @param listener  the {@link OnItemClickedListener} invoked by {@link #mOnItemClickedListener}
-     * @param viewTypes the unique identifier for the view types to be created
-     * @return this object, allowing calls to methods in this class to be chained
-     */
+    @Override
     public ItemAdapter click(OnItemClickedListener listener, int... viewTypes) {
-        for (int viewType :
-                viewTypes) {
-            mClickListenersByViewType.put(viewType, listener);
-        }
+        super.click(listener, viewTypes);
         return this;
     }
 
-    /**
-     * @return the count of the headers this adapter represented
-     */
-    private int getHeaderCount() {
-        return getHeaderHolders().size();
-    }
-
-    /**
-     * @return the count of the footers this adapter represented
-     */
-    private int getFooterCount() {
-        return getFooterHolders().size();
-    }
-
-    /**
-     * Returns {@code true} if the item holder in the specified position is header
-     *
-     * @param position in which the item holder to judge
-     * @return {@code true} if the item holder in the specified position is header
-     */
-    private boolean isPositionForHeader(int position) {
-        return position < getHeaderCount();
-    }
-
-    /**
-     * Returns {@code true} if the item holder in the specified position is footer
-     *
-     * @param position in which the item holder to judge
-     * @return {@code true} if the item holder in the specified position is footer
-     */
-    private boolean isPositionForFooter(int position) {
-        return position >= getHeaderCount() + mItemHolders.size();
+    @Override
+    public ItemAdapter setLiteBindVelocity(float velocity) {
+        super.setLiteBindVelocity(velocity);
+        return this;
     }
 
-    /**
-     * Inserts the specified {@link ItemHolder}s as a header and
-     * invokes {@link #notifyItemInserted(int)} to update the UI.
-     *
-     * @param header the item holder to add
-     * @return this object, allowing calls of methods in this class to be chained
-     */
+    @Override
     public ItemAdapter addHeader(ItemHolder... header) {
-        for (ItemHolder itemHolder :
-                header) {
-            getHeaderHolders().add(itemHolder);
-            notifyItemInserted(getHeaderCount() - 1);
-        }
+        super.addHeader(header);
         return this;
     }
-/**
-     * Inserts the specified {@link ItemHolder}s as a footer and
-     * invokes {@link #notifyItemInserted(int)} to update the UI.
-     *
-     * @param footer the item holder to add
-     * @return this object, allowing calls of methods in this class to be chained
-     */
+
+    @Override
     public ItemAdapter addFooter(ItemHolder... footer) {
-        for (ItemHolder itemHolder :
-                footer) {
-            getFooterHolders().add(itemHolder);
-            notifyItemInserted(getFooterCount() - 1);
-        }
+        super.addFooter(footer);
         return this;
     }
 
@@ -228,7 +100,7 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
                 // remove the OnItemChangedListener from the old item holders
                 for (T oldItemHolder :
                         oldItemHolders) {
-                    oldItemHolder.removeOnItemChangedListener(mItemChangedNotifier);
+                    oldItemHolder.removeOnItemChangedListener(getItemChangedNotifier());
                 }
             }
 
@@ -260,7 +132,7 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
                 // add the item change listener to the new item holders
                 for (ItemHolder itemHolder :
                         itemHolders) {
-                    itemHolder.addOnItemChangedListener(mItemChangedNotifier);
+                    itemHolder.addOnItemChangedListener(getItemChangedNotifier());
                 }
             }
 
@@ -271,6 +143,175 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
         return this;
     }
 
+    /**
+     * Replaces the list of item holders with new ones, e.g. freshly built from synced data, and notifies only the
+     * rows whose content changed. A new holder with the same {@link ItemHolder#mItemId} and
+     * {@link ItemHolder#getContentHash()} as an old one is not rebound, only swapped into its view with
+     * {@link #PAYLOAD_ITEM_REPLACED}, and the instance state of every old
+     * holder is transferred to the new holder with the same id.
+     * <p/>
+     * The common case of the same ids in the same order is compared in O(n), the others are diffed by id with
+     * {@link DiffUtil}.
+     *
+     * @param itemHolders the new list of item holders
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ItemAdapter updateItems(@NonNull List<T> itemHolders) {
+        final List<T> oldItemHolders = mItemHolders;
+        if (oldItemHolders == null || oldItemHolders == itemHolders) {
+            return setItems(itemHolders);
+        }
+        final LongLongHashMap oldIndicesById = new LongLongHashMap(oldItemHolders.size());
+        for (int i = 0; i < oldItemHolders.size(); i++) {
+            final T oldItemHolder = oldItemHolders.get(i);
+            oldItemHolder.removeOnItemChangedListener(getItemChangedNotifier());
+            oldIndicesById.put(oldItemHolder.mItemId, i);
+        }
+        final Bundle bundle = new Bundle();
+        boolean sameIds = oldItemHolders.size() == itemHolders.size();
+        for (int i = 0; i < itemHolders.size(); i++) {
+            final T newItemHolder = itemHolders.get(i);
+            newItemHolder.addOnItemChangedListener(getItemChangedNotifier());
+            sameIds = sameIds && oldItemHolders.get(i).mItemId == newItemHolder.mItemId;
+            final T oldItemHolder = getOldItemHolder(oldItemHolders, oldIndicesById, newItemHolder.mItemId);
+            if (oldItemHolder == null || oldItemHolder == newItemHolder) {
+                // the same instance is notified by the holder itself, no rebind to avoid
+                continue;
+            }
+            if (isSameContent(oldItemHolder, newItemHolder)) {
+                mAvoidedRebindCount++;
+            } else {
+                mChangedCount++;
+            }
+            bundle.clear();
+            oldItemHolder.onSaveInstanceState(bundle);
+            newItemHolder.onRestoreInstanceState(bundle);
+        }
+        mItemHolders = itemHolders;
+
+        if (sameIds) {
+            // notify the runs of changed rows only, and swap the holders of the unchanged ones
+            notifyReplacedItems(oldItemHolders, oldIndicesById, true);
+            return this;
+        }
+        DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldItemHolders.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return mItemHolders.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldItemPosition, int newItemPosition) {
+                return oldItemHolders.get(oldItemPosition).mItemId == mItemHolders.get(newItemPosition).mItemId;
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldItemPosition, int newItemPosition) {
+                return isSameContent(oldItemHolders.get(oldItemPosition), mItemHolders.get(newItemPosition));
+            }
+        }).dispatchUpdatesTo(new ListUpdateCallback() {
+            // the diffed positions exclude the headers
+            @Override
+            public void onInserted(int position, int count) {
+                notifyItemRangeInserted(position + getHeaderCount(), count);
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                notifyItemRangeRemoved(position + getHeaderCount(), count);
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                notifyItemMoved(fromPosition + getHeaderCount(), toPosition + getHeaderCount());
+            }
+
+            @Override
+            public void onChanged(int position, int count, Object payload) {
+                notifyItemRangeChanged(position + getHeaderCount(), count, payload);
+            }
+        });
+        // the rows of the same content are not notified by the diff, their views still hold the old holders
+        notifyReplacedItems(oldItemHolders, oldIndicesById, false);
+        return this;
+    }
+
+    /**
+     * Notifies the rows of the new item holders, one change per run of adjacent rows in the same state: the
+     * holders of the same content as their old holders with {@link #PAYLOAD_ITEM_REPLACED}, and the changed ones
+     * with no payload if {@code notifyChanged}.
+     */
+    private void notifyReplacedItems(List<T> oldItemHolders, LongLongHashMap oldIndicesById, boolean notifyChanged) {
+        final int count = mItemHolders.size();
+        int runStart = 0;
+        int runState = ROW_SAME;
+        for (int i = 0; i <= count; i++) {
+            final int state = i < count ? getRowState(
+                    getOldItemHolder(oldItemHolders, oldIndicesById, mItemHolders.get(i).mItemId),
+                    mItemHolders.get(i)) : ROW_SAME;
+            if (i < count && state == runState) {
+                continue;
+            }
+            if (runState == ROW_REPLACED) {
+                notifyItemRangeChanged(runStart + getHeaderCount(), i - runStart, PAYLOAD_ITEM_REPLACED);
+            } else if (runState == ROW_CHANGED && notifyChanged) {
+                notifyItemRangeChanged(runStart + getHeaderCount(), i - runStart);
+            }
+            runStart = i;
+            runState = state;
+        }
+    }
+
+    /**
+     * @return the old item holder of the specified id, or {@code null} if none
+     */
+    private static <T> T getOldItemHolder(List<T> oldItemHolders, LongLongHashMap oldIndicesById, long itemId) {
+        final int index = (int) oldIndicesById.get(itemId, -1L);
+        return index < 0 ? null : oldItemHolders.get(index);
+    }
+
+    private static int getRowState(ItemHolder<?> oldItemHolder, ItemHolder<?> newItemHolder) {
+        if (oldItemHolder == newItemHolder) {
+            return ROW_SAME;
+        }
+        return oldItemHolder != null && isSameContent(oldItemHolder, newItemHolder) ? ROW_REPLACED : ROW_CHANGED;
+    }
+
+    private static boolean isSameContent(ItemHolder<?> oldItemHolder, ItemHolder<?> newItemHolder) {
+        if (oldItemHolder == newItemHolder) {
+            // mutated in place, notified by the holder itself
+            return true;
+        }
+        final long contentHash = newItemHolder.getContentHash();
+        return oldItemHolder.mItemId == newItemHolder.mItemId && contentHash != ItemHolder.NO_CONTENT_HASH
+                && contentHash == oldItemHolder.getContentHash();
+    }
+
+    /**
+     * @return the count of rows {@link #updateItems(List)} left unchanged since a new holder presents the same
+     * content as the old one, the holders passed again being not counted
+     */
+    public int getAvoidedRebindCount() {
+        return mAvoidedRebindCount;
+    }
+
+    /**
+     * @return the count of rows {@link #updateItems(List)} notified as changed
+     */
+    public int getChangedCount() {
+        return mChangedCount;
+    }
+
+    public void resetUpdateStats() {
+        mAvoidedRebindCount = 0;
+        mChangedCount = 0;
+    }
+
     /**
      * Inserts the specified item holder in the specified position. Invokes {@link #notifyItemInserted(int)}
      * to update the UI.
@@ -283,13 +324,59 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
         if (isPositionForHeader(position)) {
             throw new IllegalArgumentException("Can't add a normal item in header position!");
         }
-        itemHolder.addOnItemChangedListener(mItemChangedNotifier);
+        itemHolder.addOnItemChangedListener(getItemChangedNotifier());
         position = Math.min(position, mItemHolders.size() + getHeaderCount());
         mItemHolders.add(position, itemHolder);
         notifyItemInserted(position);
         return this;
     }
 
+    /**
+     * Inserts the specified item holders starting at the specified index of the item holders excluding headers.
+     * Invokes {@link #notifyItemRangeInserted(int, int)} once to update the UI.
+     *
+     * @param index       the index among the item holders at which to insert the first item holder
+     * @param itemHolders the item holders to add
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ItemAdapter addItems(int index, @NonNull List<T> itemHolders) {
+        if (mItemHolders == null) {
+            mItemHolders = new ArrayList<>();
+        }
+        for (T itemHolder :
+                itemHolders) {
+            itemHolder.addOnItemChangedListener(getItemChangedNotifier());
+        }
+        index = Math.max(0, Math.min(index, mItemHolders.size()));
+        mItemHolders.addAll(index, itemHolders);
+        notifyItemRangeInserted(index + getHeaderCount(), itemHolders.size());
+        return this;
+    }
+
+    /**
+     * Removes the specified count of item holders starting at the specified index of the item holders excluding
+     * headers. Invokes {@link #notifyItemRangeRemoved(int, int)} once to update the UI.
+     *
+     * @param index the index among the item holders of the first item holder to remove
+     * @param count the count of item holders to remove
+     * @return this object, allowing calls to methods in this class to be chained
+     * @throws IndexOutOfBoundsException if the range is not within the item holders
+     */
+    public ItemAdapter removeItems(int index, int count) {
+        if (index < 0 || count < 0 || index + count > mItemHolders.size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Count: " + count
+                    + ", Size: " + mItemHolders.size());
+        }
+        final List<T> range = mItemHolders.subList(index, index + count);
+        for (T itemHolder :
+                range) {
+            itemHolder.removeOnItemChangedListener(getItemChangedNotifier());
+        }
+        range.clear();
+        notifyItemRangeRemoved(index + getHeaderCount(), count);
+        return this;
+    }
+
     /**
      * Removes the first occurrence of the specified item holder in the list, if it is present
      * (optional operation). If the list does not contain this item holder, it is unchanged. Invokes
@@ -302,21 +389,42 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
         final int index = mItemHolders.indexOf(itemHolder);
         if (index >= 0) {
             itemHolder = mItemHolders.remove(index);
-            itemHolder.removeOnItemChangedListener(mItemChangedNotifier);
+            itemHolder.removeOnItemChangedListener(getItemChangedNotifier());
             notifyItemRemoved(index + getHeaderCount());
         }
         return this;
     }
 
     /**
-     * Sets the listener to be invoked whenever any item changes.
+     * Moves the item holder at the specified position to another position, shifting the item holders in between.
+     * Invokes {@link #notifyItemMoved(int, int)} once to update the UI.
+     * <p/>
+     * Moves cost O(log n) when the item holders are held in a {@link TreeList}, and O(n) in other lists.
      *
-     * @param listener the {@link OnItemChangedListener} to set
+     * @param fromPosition the adapter position of the item holder to move
+     * @param toPosition   the adapter position to move the item holder to
+     * @return this object, allowing calls to methods in this class to be chained
      */
-    public void setOnItemChangedListener(OnItemChangedListener listener) {
-        mOnItemChangedListener = listener;
+    public ItemAdapter moveItem(int fromPosition, int toPosition) {
+        if (isPositionForHeader(fromPosition) || isPositionForFooter(fromPosition)
+                || isPositionForHeader(toPosition) || isPositionForFooter(toPosition)) {
+            throw new IllegalArgumentException("Can't move a header or footer, or an item to their positions!");
+        }
+        if (fromPosition == toPosition) {
+            return this;
+        }
+        final int fromIndex = fromPosition - getHeaderCount();
+        final int toIndex = toPosition - getHeaderCount();
+        if (mItemHolders instanceof TreeList) {
+            ((TreeList<T>) mItemHolders).move(fromIndex, toIndex);
+        } else {
+            mItemHolders.add(toIndex, mItemHolders.remove(fromIndex));
+        }
+        notifyItemMoved(fromPosition, toPosition);
+        return this;
     }
 
+
     /**
      * @return the current list of item holders represented by this adapter excluding headers and footers
      */
@@ -324,12 +432,7 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
         return mItemHolders;
     }
 
-    /**
-     * Finds the item holder associating with the specified identifier.
-     *
-     * @param id the identifier by which to find
-     * @return the item holder associating with the specified identifier
-     */
+    @Override
     public T findItemById(long id) {
         for (T holder :
                 mItemHolders) {
@@ -340,66 +443,18 @@ public class ItemAdapter<T extends ItemHolder> extends RecyclerView.Adapter<Item
         return null;
     }
 
-    @NonNull @Override
-    public ItemViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        final ItemViewHolder.Factory factory = mFactoriesByViewType.get(viewType);
-        if (factory != null) {
-            return factory.createViewHolder(parent, viewType);
-        }
-        throw new IllegalArgumentException("Unsupported view type: " + viewType);
-    }
-
     @Override
-    @SuppressWarnings("unchecked")
-    public void onBindViewHolder(@NonNull ItemViewHolder holder, int position) {
-        // suppress any unchecked warnings since it is up to the subclass to guarantee
-        // compatibility of their view holders with the item holder corresponding position
-        if (isPositionForHeader(position)) {
-            holder.bindItemView(mHeaderHolders.get(position));
-        } else if (isPositionForFooter(position)) {
-            holder.bindItemView(mFooterHolders.get(position));
-        } else {
-            holder.bindItemView(mItemHolders.get(position));
-        }
-        holder.setOnItemClickedListener(mOnItemClickedListener);
-    }
-
-    @Override
-    public int getItemViewType(int position) {
-        if (isPositionForHeader(position)) {
-            return getHeaderHolders().get(position).getItemViewType();
-        }
-        if (isPositionForFooter(position)) {
-            return getFooterHolders().get(position).getItemViewType();
-        }
-        return mItemHolders.get(position).getItemViewType();
-    }
-
-    @Override
-    public long getItemId(int position) {
-        if (hasStableIds() || isPositionForHeader(position) || isPositionForFooter(position)){
-            return RecyclerView.NO_ID;
-        } else {
-            return mItemHolders.get(position).mItemId;
-        }
+    public int getContentItemCount() {
+        return mItemHolders == null ? 0 : mItemHolders.size();
     }
 
     @Override
-    public void onViewRecycled(@NonNull ItemViewHolder holder) {
-        holder.setOnItemClickedListener(null);
-        holder.recycleItemView();
+    protected T getContentItemHolder(int index) {
+        return mItemHolders.get(index);
     }
 
     @Override
-    public int getItemCount() {
-        return getContentItemCount() + getHeaderCount() + getFooterCount();
-    }
-
-    /**
-     *
-     * @return the count of items excluding headers and footers
-     */
-    public int getContentItemCount() {
-        return mItemHolders == null ? 0 : mItemHolders.size();
+    protected int indexOfItemHolder(ItemHolder<?> itemHolder) {
+        return mItemHolders == null ? RecyclerView.NO_POSITION : mItemHolders.indexOf(itemHolder);
     }
 }
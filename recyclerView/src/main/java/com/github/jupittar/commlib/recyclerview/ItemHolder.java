@@ -2,6 +2,7 @@ package com.github.jupittar.commlib.recyclerview;
 
 
 import android.os.Bundle;
+import android.support.annotation.WorkerThread;
 
 import com.github.jupittar.commlib.recyclerview.listener.OnItemChangedListener;
 
@@ -24,6 +25,12 @@ import java.util.List;
  */
 public abstract class ItemHolder<T> {
 
+    /**
+     * Returned by {@link #computeContentHash()} when the holder has no content fingerprint, its content is then
+     * never considered unchanged
+     */
+    public static final long NO_CONTENT_HASH = 0;
+
     /**
      * The item held by this holder
      */
@@ -39,6 +46,12 @@ public abstract class ItemHolder<T> {
      */
     private final List<OnItemChangedListener> mOnItemChangedListeners = new ArrayList<>();
 
+    /**
+     * The content fingerprint, computed once by {@link #getContentHash()}
+     */
+    private long mContentHash;
+    private boolean mContentHashComputed;
+
     public ItemHolder(T item, long itemId) {
         mItem = item;
         mItemId = itemId;
@@ -70,6 +83,7 @@ public abstract class ItemHolder<T> {
      * {@link #addOnItemChangedListener(OnItemChangedListener)}
      */
     public final void notifyItemChanged() {
+        mContentHashComputed = false;
         for (OnItemChangedListener listener :
                 mOnItemChangedListeners) {
             listener.onItemChanged(this);
@@ -81,6 +95,7 @@ public abstract class ItemHolder<T> {
      * {@link #addOnItemChangedListener(OnItemChangedListener)}
      */
     public final void notifyItemChanged(Object payload) {
+        mContentHashComputed = false;
         for (OnItemChangedListener listener :
                 mOnItemChangedListeners) {
             listener.onItemChanged(this, payload);
@@ -116,6 +131,56 @@ public abstract class ItemHolder<T> {
         // for subclasses
     }
 
+    /**
+     * Called by {@link PrefetchHelper} on a worker thread before the item scrolls into view, to load the
+     * secondary data needed to present it, e.g. a cover image or a price. The result is cached by
+     * {@link #mItemId} and can be retrieved with {@link PrefetchHelper#get(long)} when binding.
+     * <p>
+     *     Note: May be interrupted when the item leaves the prefetch window.
+     * </p>
+     *
+     * @return the prefetched data, or {@code null} if there is nothing to prefetch
+     * @throws Exception if the data could not be loaded, the item is prefetched again later
+     */
+    @WorkerThread
+    public Object onPrefetch() throws Exception {
+        return null;
+    }
+
+    /**
+     * Called by {@link TextPrecomputer} on the main thread before the item scrolls into view. Subclasses should
+     * override to hand the texts they display to {@link TextPrecomputer#precompute(long, int, CharSequence)}.
+     *
+     * @param precomputer the {@link TextPrecomputer} to hand the texts to
+     */
+    public void onPrecomputeText(TextPrecomputer precomputer) {
+        // for subclasses
+    }
+
+    /**
+     * @return the content fingerprint of the item, computed by {@link #computeContentHash()} once per holder and
+     * again after {@link #notifyItemChanged()}
+     */
+    public final long getContentHash() {
+        if (!mContentHashComputed) {
+            mContentHash = computeContentHash();
+            mContentHashComputed = true;
+        }
+        return mContentHash;
+    }
+
+    /**
+     * Called to fingerprint everything the view layer presents of the item, e.g. with
+     * {@link com.github.jupittar.commlib.recyclerview.util.ContentHash}. Holders with the same {@link #mItemId}
+     * and content hash are considered to present the same content, so that
+     * {@link ItemAdapter#updateItems(List)} does not rebind them.
+     *
+     * @return the content fingerprint of the item, or {@link #NO_CONTENT_HASH} if not supported, the default
+     */
+    protected long computeContentHash() {
+        return NO_CONTENT_HASH;
+    }
+
     /**
      * @return the unique identifier for the view that should be used to present the item.
      * e.g. the layout resource id
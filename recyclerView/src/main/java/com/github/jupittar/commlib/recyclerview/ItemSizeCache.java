@@ -0,0 +1,201 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+
+import com.github.jupittar.commlib.recyclerview.util.FenwickTree;
+import com.github.jupittar.commlib.recyclerview.util.LongLongHashMap;
+
+/**
+ * Measured sizes of the items of an {@link ItemAdapter}, keyed by {@link ItemHolder#mItemId} and the width they
+ * were measured with, recorded by {@link MeasuredLinearLayoutManager} after the first layout of every item.
+ * <p/>
+ * The sizes by position are held in a {@link FenwickTree}, giving the exact offset of any position, the total
+ * size of the list and the position at a given offset in O(log n). Items not measured yet count for the
+ * {@link #setEstimatedSize(int) estimated size}, or the average measured size. The tree is rebuilt in O(n) on
+ * the first query following a structural change of the adapter or a change of width.
+ * <p/>
+ * Note: Must be used from the main thread.
+ */
+public class ItemSizeCache {
+
+    private final BaseItemAdapter<?> mAdapter;
+
+    /**
+     * packed width and size by item id, not boxed as they are put for every laid out item
+     */
+    private final LongLongHashMap mSizes = new LongLongHashMap();
+
+    /**
+     * the sizes by position for {@link #mTreeWidth}, estimated for the items not measured yet
+     */
+    private final FenwickTree mTree = new FenwickTree();
+
+    /**
+     * the buffer the tree is rebuilt from
+     */
+    private int[] mTreeValues = new int[0];
+    private int mTreeWidth = -1;
+    private int mTreeEstimatedSize;
+    private boolean mTreeDirty = true;
+
+    private int mEstimatedSize;
+
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mTreeDirty = true;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mTreeDirty = true;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mTreeDirty = true;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mTreeDirty = true;
+        }
+    };
+
+    private ItemSizeCache(BaseItemAdapter<?> adapter) {
+        mAdapter = adapter;
+    }
+
+    public static ItemSizeCache attach(@NonNull BaseItemAdapter<?> adapter) {
+        final ItemSizeCache cache = new ItemSizeCache(adapter);
+        adapter.registerAdapterDataObserver(cache.mDataObserver);
+        return cache;
+    }
+
+    public void detach() {
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
+    }
+
+    /**
+     * @param size the size of the items not measured yet, or 0 for the average measured size
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ItemSizeCache setEstimatedSize(int size) {
+        mEstimatedSize = Math.max(0, size);
+        mTreeDirty = true;
+        return this;
+    }
+
+    private static long pack(int width, int size) {
+        return ((long) width << 32) | (size & 0xffffffffL);
+    }
+
+    /**
+     * @return the measured size of the item for the specified width, or -1 if not measured
+     */
+    public int getSize(long itemId, int width) {
+        // a missing item reads as width -1, never a measured width
+        final long size = mSizes.get(itemId, -1L);
+        return (int) (size >> 32) != width ? -1 : (int) size;
+    }
+
+    /**
+     * Records the measured size of an item.
+     *
+     * @param position the adapter position of the item, or {@link RecyclerView#NO_POSITION} if unknown
+     * @param itemId   the {@link ItemHolder#mItemId} of the item
+     * @param width    the width the item was measured with
+     * @param size     the measured size of the item, margins and decorations included
+     */
+    public void put(int position, long itemId, int width, int size) {
+        mSizes.put(itemId, pack(width, size));
+        if (mTreeEstimatedSize == 0) {
+            // the first measurements give the estimated size of the others
+            mTreeDirty = true;
+        } else if (!mTreeDirty && width == mTreeWidth && position >= 0 && position < mTree.size()
+                && mTree.get(position) != size) {
+            mTree.set(position, size);
+        }
+    }
+
+    /**
+     * Forgets the size of an item, e.g. after a change of its content that the list is not notified of.
+     */
+    public void invalidate(long itemId) {
+        mSizes.remove(itemId);
+        mTreeDirty = true;
+    }
+
+    public void clear() {
+        mSizes.clear();
+        mTreeDirty = true;
+    }
+
+    /**
+     * @return {@code true} if no item has been measured for the specified width yet
+     */
+    public boolean isEmpty(int width) {
+        ensureTree(width);
+        return mTree.total() == 0;
+    }
+
+    /**
+     * @return the sum of the sizes of the items before the specified position
+     */
+    public int getOffset(int position, int width) {
+        ensureTree(width);
+        return mTree.prefixSum(position);
+    }
+
+    /**
+     * @return the sum of the sizes of all items
+     */
+    public int getTotalSize(int width) {
+        ensureTree(width);
+        return mTree.total();
+    }
+
+    /**
+     * @return the position of the item at the specified offset from the start of the list, clamped to the
+     * last position
+     */
+    public int findPosition(int offset, int width) {
+        ensureTree(width);
+        return Math.max(0, Math.min(mTree.indexOf(offset), mTree.size() - 1));
+    }
+
+    private void ensureTree(int width) {
+        if (!mTreeDirty && width == mTreeWidth) {
+            return;
+        }
+        final int count = mAdapter.getItemCount();
+        if (mTreeValues.length < count) {
+            mTreeValues = new int[Math.max(count, mTreeValues.length * 2)];
+        }
+        long measuredSum = 0;
+        int measuredCount = 0;
+        for (int position = 0; position < count; position++) {
+            final int size = getSize(mAdapter.getItemHolderId(position), width);
+            mTreeValues[position] = size;
+            if (size >= 0) {
+                measuredSum += size;
+                measuredCount++;
+            }
+        }
+        int estimatedSize = mEstimatedSize;
+        if (estimatedSize == 0 && measuredCount > 0) {
+            estimatedSize = (int) (measuredSum / measuredCount);
+        }
+        for (int position = 0; position < count; position++) {
+            if (mTreeValues[position] < 0) {
+                mTreeValues[position] = estimatedSize;
+            }
+        }
+        mTree.setAll(mTreeValues, count);
+        mTreeEstimatedSize = estimatedSize;
+        mTreeWidth = width;
+        mTreeDirty = false;
+    }
+}
@@ -6,6 +6,8 @@ import android.view.ViewGroup;
 
 import com.github.jupittar.commlib.recyclerview.listener.OnItemClickedListener;
 
+import java.util.List;
+
 
 public class ItemViewHolder<T extends ItemHolder> extends RecyclerView.ViewHolder {
 
@@ -19,6 +21,35 @@ public class ItemViewHolder<T extends ItemHolder> extends RecyclerView.ViewHolde
      */
     private OnItemClickedListener mOnItemClickedListener;
 
+    /**
+     * whether the current item has been bound by {@link #onBindItemViewLite(ItemHolder)} only
+     */
+    private boolean mLiteBound;
+
+    /**
+     * The scroll state and velocity of the list when the current item was bound
+     */
+    private int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+    private float mScrollVelocity;
+
+    /**
+     * Incremented by every full bind, whenever the bound item changes and when the holder is recycled, cancelling
+     * the deferred tasks posted before. Swapping in a replacement holder of the same content keeps it.
+     */
+    private int mDeferredGeneration;
+
+    /**
+     * the width the {@link #itemView} was last measured with for the current content, or -1 if it must be
+     * measured again
+     */
+    private int mMeasuredWidth = -1;
+
+    /**
+     * the item id and content hash the {@link #itemView} was last measured with
+     */
+    private long mMeasuredItemId = RecyclerView.NO_ID;
+    private long mMeasuredContentHash = ItemHolder.NO_CONTENT_HASH;
+
     /**
      * Designated constructor
      *
@@ -41,10 +72,167 @@ public class ItemViewHolder<T extends ItemHolder> extends RecyclerView.ViewHolde
      * @param itemHolder the {@link ItemHolder} to bind
      */
     public final void bindItemView(T itemHolder) {
+        // the full bind posts its deferred work again, even for the same item holder
+        mDeferredGeneration++;
         mItemHolder = itemHolder;
+        mLiteBound = false;
+        invalidateMeasurement(itemHolder);
         onBindItemView(itemHolder);
     }
 
+    /**
+     * Binds the holder's {@link #itemView} to a particular item during a fast fling, through
+     * {@link #onBindItemViewLite(ItemHolder)} if supported.
+     *
+     * @param itemHolder the {@link ItemHolder} to bind
+     */
+    public final void bindItemViewLite(T itemHolder) {
+        mDeferredGeneration++;
+        mItemHolder = itemHolder;
+        mMeasuredWidth = -1;
+        mLiteBound = onBindItemViewLite(itemHolder);
+        if (!mLiteBound) {
+            onBindItemView(itemHolder);
+        }
+    }
+
+    /**
+     * @return {@code true} if the current item has only been bound by {@link #onBindItemViewLite(ItemHolder)},
+     * it is then fully bound with {@link BaseItemAdapter#PAYLOAD_FULL_BIND} once the scroll settles
+     */
+    public final boolean isLiteBound() {
+        return mLiteBound;
+    }
+
+    private void onItemHolderChanged(T itemHolder) {
+        if (itemHolder != mItemHolder) {
+            mDeferredGeneration++;
+            invalidateMeasurement(itemHolder);
+        }
+    }
+
+    /**
+     * Posts bind work which does not need to finish before the frame draws to the
+     * {@link DeferredTaskScheduler}, to run when the main thread is idle. The task is cancelled if the holder is
+     * recycled or bound to another item before it runs.
+     *
+     * @param task the work to run for the current item
+     */
+    protected final void postDeferred(Runnable task) {
+        DeferredTaskScheduler.getInstance().post(this, task);
+    }
+
+    final int getDeferredGeneration() {
+        return mDeferredGeneration;
+    }
+
+    /**
+     * @return {@code true} if the {@link #itemView} has been measured with the specified width since the current
+     * item was fully bound, payload-only binds and full binds of the same content hash keeping the measurement
+     */
+    final boolean isMeasuredFor(int width) {
+        return mMeasuredWidth == width;
+    }
+
+    final void setMeasuredFor(int width) {
+        mMeasuredWidth = width;
+        mMeasuredItemId = mItemHolder.mItemId;
+        // a lite bound view is measured with part of its content only
+        mMeasuredContentHash = mLiteBound ? ItemHolder.NO_CONTENT_HASH : mItemHolder.getContentHash();
+    }
+
+    /**
+     * Keeps the measurement only if the item presents the very content the {@link #itemView} was measured with
+     */
+    private void invalidateMeasurement(T itemHolder) {
+        final long contentHash = itemHolder.getContentHash();
+        if (contentHash == ItemHolder.NO_CONTENT_HASH || contentHash != mMeasuredContentHash
+                || itemHolder.mItemId != mMeasuredItemId) {
+            mMeasuredWidth = -1;
+        }
+    }
+
+    final void setScrollState(int scrollState, float scrollVelocity) {
+        mScrollState = scrollState;
+        mScrollVelocity = scrollVelocity;
+    }
+
+    /**
+     * @return the scroll state of the list when the current item was bound
+     */
+    public final int getScrollState() {
+        return mScrollState;
+    }
+
+    /**
+     * @return the scroll velocity in pixels per second of the list when the current item was bound
+     */
+    public final float getScrollVelocity() {
+        return mScrollVelocity;
+    }
+
+    /**
+     * Binds the holder's {@link #itemView} to a particular item, applying only the specified payloads if any.
+     *
+     * @param itemHolder the {@link ItemHolder} to bind
+     * @param payloads   the payloads of the changes to apply, empty for a full bind
+     */
+    public final void bindItemView(T itemHolder, List<Object> payloads) {
+        if (isReplacementOnly(payloads)) {
+            // a new holder of the same content, the view and its deferred work stay as they are
+            mItemHolder = itemHolder;
+            return;
+        }
+        if (payloads.isEmpty() || payloads.contains(BaseItemAdapter.PAYLOAD_FULL_BIND)) {
+            bindItemView(itemHolder);
+        } else {
+            onItemHolderChanged(itemHolder);
+            mItemHolder = itemHolder;
+            onBindItemView(itemHolder, payloads);
+        }
+    }
+
+    private static boolean isReplacementOnly(List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            return false;
+        }
+        for (Object payload :
+                payloads) {
+            if (payload != ItemAdapter.PAYLOAD_ITEM_REPLACED) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Called when the item bound to the holder changed with payloads, e.g.
+     * {@link MultiChoiceHelper#PAYLOAD_SELECTION}. Subclasses should override to update only the parts of their
+     * {@link #itemView} affected by the payloads, the default implementation binds the whole item.
+     * <p>
+     *     Note: The payloads must not change the size of the {@link #itemView}, which is not measured again by
+     *     {@link MeasuredLinearLayoutManager}.
+     * </p>
+     *
+     * @param itemHolder the {@link ItemHolder} to bind
+     * @param payloads   the payloads of the changes, never empty
+     */
+    protected void onBindItemView(T itemHolder, List<Object> payloads) {
+        onBindItemView(itemHolder);
+    }
+
+    /**
+     * Called instead of {@link #onBindItemView(ItemHolder)} when a new item is bound during a fling faster than
+     * {@link BaseItemAdapter#setLiteBindVelocity(float)}. Subclasses may override to bind only the cheap parts of the
+     * item, e.g. its texts but no images, the item is fully bound once the scroll settles.
+     *
+     * @param itemHolder the {@link ItemHolder} to bind
+     * @return {@code true} if the item has been bound, {@code false} to bind it fully right away
+     */
+    protected boolean onBindItemViewLite(T itemHolder) {
+        return false;
+    }
+
     /**
      * Called when a new item is bound to the holder. Subclasses should override to
      * bind any relevant data to their {@link #itemView} in this method.
@@ -59,7 +247,10 @@ public class ItemViewHolder<T extends ItemHolder> extends RecyclerView.ViewHolde
      * Recycles the current item view, unbinding the current item holder and state.
      */
     public final void recycleItemView() {
+        mDeferredGeneration++;
         mItemHolder = null;
+        mLiteBound = false;
+        mMeasuredWidth = -1;
         mOnItemClickedListener = null;
         onRecycleItemView();
     }
@@ -72,6 +263,15 @@ public class ItemViewHolder<T extends ItemHolder> extends RecyclerView.ViewHolde
         // for subclasses
     }
 
+    /**
+     * Called by {@link ItemAdapter} when the {@link #itemView} is about to be detached from the list, e.g.
+     * scrolled out, while its children are still laid out. Subclasses may override to save view state which is
+     * lost once the view is detached.
+     */
+    protected void onItemViewDetached() {
+        // for subclasses
+    }
+
     /**
      * Sets the current {@link OnItemClickedListener} to be invoked via {@link #notifyItemClicked(int)}.
      *
@@ -100,7 +300,7 @@ public class ItemViewHolder<T extends ItemHolder> extends RecyclerView.ViewHolde
      */
     public interface Factory {
         /**
-         * Used by {@link ItemAdapter#createViewHolder(ViewGroup, int)} to make a new {@link ItemViewHolder}
+         * Used by {@link BaseItemAdapter#createViewHolder(ViewGroup, int)} to make a new {@link ItemViewHolder}
          * for a given view type.
          *
          * @param parent the {@link ViewGroup} that the {@link ItemViewHolder#itemView} will be attached
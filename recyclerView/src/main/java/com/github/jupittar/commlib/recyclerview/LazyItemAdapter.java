@@ -0,0 +1,224 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.v4.util.LruCache;
+import android.support.v7.widget.RecyclerView;
+
+import com.github.jupittar.commlib.recyclerview.listener.OnItemClickedListener;
+
+import java.util.Map;
+
+/**
+ * Adapter backed by an indexed {@link RecordSource}, e.g. a database cursor or a record file with an
+ * offset index, instead of a list of item holders built up front.
+ * <p/>
+ * The count, view types and ids are read from the source without building any object. An {@link ItemHolder} is
+ * created only when its position is bound or prefetched, and kept in a small LRU cache by position, checked
+ * against the id of the record at that position. Headers and footers work as in {@link ItemAdapter}.
+ * <p/>
+ * The items are changed by setting a new source with {@link #setSource(RecordSource)}. Helpers reading the whole
+ * list, e.g. {@link ItemSizeCache}, read the ids through {@link #getItemHolderId(int)}, from the source.
+ *
+ * @param <T> the item holder type of the records
+ */
+public class LazyItemAdapter<T extends ItemHolder> extends BaseItemAdapter<T> {
+
+    /**
+     * Indexed source of the records, read on the main thread. Must be cheap for the count, ids and view types,
+     * e.g. read from an index or a cursor column.
+     */
+    public interface RecordSource<T extends ItemHolder> {
+        /**
+         * @return the count of records
+         */
+        int getCount();
+
+        /**
+         * @return the unique id of the record at the specified index, given to its {@link ItemHolder#mItemId}
+         */
+        long getId(int index);
+
+        /**
+         * @return the view type of the record at the specified index, see {@link ItemHolder#getItemViewType()}
+         */
+        int getViewType(int index);
+
+        /**
+         * @return a new item holder for the record at the specified index
+         */
+        T createItemHolder(int index);
+    }
+
+    private static final int DEFAULT_CACHE_SIZE = 64;
+
+    private RecordSource<T> mSource;
+
+    /**
+     * the amount of item holders created from the source
+     */
+    private int mCreatedCount;
+
+    /**
+     * the created item holders by index among the records
+     */
+    private final LruCache<Integer, T> mItemHolderCache = new LruCache<Integer, T>(DEFAULT_CACHE_SIZE) {
+        @Override
+        protected void entryRemoved(boolean evicted, Integer key, T oldValue, T newValue) {
+            if (oldValue != newValue) {
+                oldValue.removeOnItemChangedListener(getItemChangedNotifier());
+            }
+        }
+    };
+
+    /**
+     * @param size the max amount of item holders kept, at least the amount of rows visible and prefetched at once,
+     *             64 by default
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public LazyItemAdapter<T> cacheSize(int size) {
+        mItemHolderCache.resize(Math.max(1, size));
+        return this;
+    }
+
+    /**
+     * Sets the source of the records and invokes {@link #notifyDataSetChanged()} to update the UI. The previous
+     * source, e.g. its cursor, is not closed.
+     *
+     * @param source the new source, or {@code null} for no records
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public LazyItemAdapter<T> setSource(RecordSource<T> source) {
+        mSource = source;
+        mItemHolderCache.evictAll();
+        notifyDataSetChanged();
+        return this;
+    }
+
+    public RecordSource<T> getSource() {
+        return mSource;
+    }
+
+    /**
+     * Drops the item holders of the specified records, whose content changed in the source under the same ids,
+     * and invokes {@link #notifyItemRangeChanged(int, int)} to rebind them.
+     *
+     * @param index the index of the first changed record
+     * @param count the count of changed records
+     */
+    public void notifyRecordRangeChanged(int index, int count) {
+        for (int i = index; i < index + count; i++) {
+            mItemHolderCache.remove(i);
+        }
+        notifyItemRangeChanged(index + getHeaderCount(), count);
+    }
+
+    /**
+     * @return the amount of item holders created from the source so far
+     */
+    public int getCreatedItemCount() {
+        return mCreatedCount;
+    }
+
+    /**
+     * @return the item holder of the record at the specified index, created if not cached
+     */
+    private T getRecordItemHolder(int index) {
+        final long id = mSource.getId(index);
+        T itemHolder = mItemHolderCache.get(index);
+        if (itemHolder == null || itemHolder.mItemId != id) {
+            // not created yet, or another record moved to the index
+            itemHolder = mSource.createItemHolder(index);
+            itemHolder.addOnItemChangedListener(getItemChangedNotifier());
+            mItemHolderCache.put(index, itemHolder);
+            mCreatedCount++;
+        }
+        return itemHolder;
+    }
+
+    @Override
+    protected T getContentItemHolder(int index) {
+        return getRecordItemHolder(index);
+    }
+
+    @Override
+    protected long getContentItemId(int index) {
+        return mSource.getId(index);
+    }
+
+    @Override
+    protected int getContentItemViewType(int index) {
+        return mSource.getViewType(index);
+    }
+
+    /**
+     * Finds the index of the changed item holder among the cached ones, those bound being always cached
+     */
+    @Override
+    protected int indexOfItemHolder(ItemHolder<?> itemHolder) {
+        for (Map.Entry<Integer, T> entry :
+                mItemHolderCache.snapshot().entrySet()) {
+            if (entry.getValue() == itemHolder) {
+                return entry.getKey();
+            }
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    @Override
+    public int getContentItemCount() {
+        return mSource == null ? 0 : mSource.getCount();
+    }
+
+    /**
+     * Finds the item holder associating with the specified identifier among the item holders created and cached.
+     *
+     * @param id the identifier by which to find
+     * @return the cached item holder associating with the specified identifier, or {@code null}
+     */
+    @Override
+    public T findItemById(long id) {
+        for (T itemHolder :
+                mItemHolderCache.snapshot().values()) {
+            if (itemHolder.mItemId == id) {
+                return itemHolder;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public LazyItemAdapter<T> setHasStableIds() {
+        super.setHasStableIds();
+        return this;
+    }
+
+    @Override
+    public LazyItemAdapter<T> withViewTypes(ItemViewHolder.Factory factory, int... viewTypes) {
+        super.withViewTypes(factory, viewTypes);
+        return this;
+    }
+
+    @Override
+    public LazyItemAdapter<T> click(OnItemClickedListener listener, int... viewTypes) {
+        super.click(listener, viewTypes);
+        return this;
+    }
+
+    @Override
+    public LazyItemAdapter<T> setLiteBindVelocity(float velocity) {
+        super.setLiteBindVelocity(velocity);
+        return this;
+    }
+
+    @Override
+    public LazyItemAdapter<T> addHeader(ItemHolder... header) {
+        super.addHeader(header);
+        return this;
+    }
+
+    @Override
+    public LazyItemAdapter<T> addFooter(ItemHolder... footer) {
+        super.addFooter(footer);
+        return this;
+    }
+}
@@ -1,20 +1,45 @@
 package com.github.jupittar.commlib.recyclerview;
 
 
-import android.support.v7.widget.GridLayoutManager;
-import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
-import android.support.v7.widget.StaggeredGridLayoutManager;
 
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
 
+
+/**
+ * Helper class invoking {@link OnLoadMoreListener#onLoadMore()} when the end of the list is about to be reached.
+ * <p/>
+ * The decision is made by a {@link PaginationEngine}, which triggers a load early enough for the measured page
+ * load latency at the current scroll velocity. Works with linear, grid and staggered grid layouts.
+ */
 public class LoadMoreScrollHelper {
     /**
-     * the min amount of items to have below current scroll position before loading more.
+     * the min amount of rows to have below current scroll position before loading more.
      */
     private int mLoadMoreThreshold = 3;
 
     private RecyclerView mRecyclerView;
     private OnLoadMoreListener mOnLoadMoreListener;
+    private final PaginationEngine mPaginationEngine = new PaginationEngine(mLoadMoreThreshold);
+
+    private final OnScrollFrameListener mOnScrollFrameListener = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            if (snapshot.getDirection() <= 0) {
+                return;
+            }
+
+            // a row of a grid holds span count items
+            mPaginationEngine.setMinThreshold(mLoadMoreThreshold * snapshot.getSpanCount());
+
+            if (mPaginationEngine.onScrolled(snapshot.getFrameTimeMillis(), snapshot.getLastVisiblePosition(),
+                    snapshot.getItemCount())) {
+                if (mOnLoadMoreListener != null) {
+                    mOnLoadMoreListener.onLoadMore();
+                }
+            }
+        }
+    };
 
     private LoadMoreScrollHelper(RecyclerView recyclerView) {
         mRecyclerView = recyclerView;
@@ -30,85 +55,43 @@ public class LoadMoreScrollHelper {
         return this;
     }
 
+    /**
+     * @param threshold the min amount of rows(items for lists) to have below the last visible item before
+     *                  loading more, whatever the scroll velocity
+     * @return this object, allowing calls to methods in this class to be chained
+     */
     public LoadMoreScrollHelper threshold(int threshold) {
         mLoadMoreThreshold = threshold;
         return this;
     }
 
-    private void setUpScrollListener() {
-        mRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
-            /**
-             * the total number of items in the data set after the last loading.
-             */
-            private int mPreviousTotalCount = 0;
-
-            /**
-             * true if still waiting for the last set of data to load
-             */
-            private boolean mLoading = true;
-
-
-            @Override
-            public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
-                super.onScrolled(recyclerView, dx, dy);
-
-                if (dy <= 0) {
-                    return;
-                }
-
-                RecyclerView.Adapter adapter = recyclerView.getAdapter();
-                RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
-
-                int lastVisibleItemPos = 0;
-                int totalItemCount = adapter.getItemCount();
-
-                if (layoutManager instanceof GridLayoutManager) {
-                    GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
-                    lastVisibleItemPos = gridLayoutManager.findLastVisibleItemPosition();
-                    mLoadMoreThreshold *= gridLayoutManager.getSpanCount();
-                } else if (layoutManager instanceof LinearLayoutManager) {
-                    LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
-                    lastVisibleItemPos = linearLayoutManager.findFirstVisibleItemPosition();
-                } else if (layoutManager instanceof StaggeredGridLayoutManager) {
-                    StaggeredGridLayoutManager staggeredGridLayoutManager = (StaggeredGridLayoutManager) layoutManager;
-                    final int[] lastVisibleItemPositions = staggeredGridLayoutManager.findLastVisibleItemPositions(null);
-                    for (int i = 0; i < lastVisibleItemPositions.length; i++) {
-                        if (i == 0) {
-                            lastVisibleItemPos = lastVisibleItemPositions[i];
-                        } else if (lastVisibleItemPositions[i] > lastVisibleItemPos) {
-                            lastVisibleItemPos = lastVisibleItemPositions[i];
-                        }
-                    }
-                    mLoadMoreThreshold *= staggeredGridLayoutManager.getSpanCount();
-                }
-
-                // if the total item count is zero and the previous is not, assume the list
-                // is invalidate and should be reset to initial state
-                if (totalItemCount < mPreviousTotalCount) {
-                    mPreviousTotalCount = totalItemCount;
-                    if (totalItemCount == 0) {
-                        mLoading = true;
-                    }
-                }
-
-                // more data loaded
-                if (mLoading && totalItemCount > mPreviousTotalCount) {
-                    mLoading = false;
-                    mPreviousTotalCount = totalItemCount;
-                }
-
+    /**
+     * @return the {@link PaginationEngine} deciding when to load more
+     */
+    public PaginationEngine getPaginationEngine() {
+        return mPaginationEngine;
+    }
 
-                if (!mLoading && totalItemCount - lastVisibleItemPos <= mLoadMoreThreshold) {
-                    if (mOnLoadMoreListener != null) {
-                        mOnLoadMoreListener.onLoadMore();
-                    }
-                    mLoading = true;
-                }
+    /**
+     * Ends the current load, must be called when a load failed or delivered no items since only a growing item
+     * count ends it otherwise.
+     *
+     * @param hasMore {@code false} to stop loading more until {@link #reset()}
+     */
+    public void notifyLoadFinished(boolean hasMore) {
+        mPaginationEngine.onLoadFinished(hasMore);
+    }
 
-            }
-        });
+    /**
+     * Starts over, e.g. when the list is replaced by a new one of the same size or larger.
+     */
+    public void reset() {
+        mPaginationEngine.reset();
     }
 
+    private void setUpScrollListener() {
+        ScrollObserver.of(mRecyclerView).addOnScrollFrameListener(mOnScrollFrameListener);
+    }
 
     public interface OnLoadMoreListener {
         void onLoadMore();
@@ -0,0 +1,359 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs page loads off the calling thread for {@link LoadMoreScrollHelper} and the like.
+ * <p/>
+ * Providing the following features:
+ * <li>Loads run on a supplied {@link Executor}, results are delivered on a callback {@link Executor}</li>
+ * <li>Requests for a key already in flight join the running load instead of starting another one</li>
+ * <li>{@link #cancelAll()} drops every running load, e.g. when the list is replaced</li>
+ * <li>Failed loads are retried with exponential backoff</li>
+ * <li>Load latencies are recorded in {@link Metrics}</li>
+ * <p/>
+ * A typical use with {@link LoadMoreScrollHelper}, the results being delivered on the main thread to update the
+ * adapter:
+ * <pre>
+ *     pipeline = LoadPipeline.create(dataSource, executor).deliverOn(MainThreadExecutor.getInstance());
+ *
+ *     public void onLoadMore() {
+ *         pipeline.load(nextPage, new LoadPipeline.Callback&lt;Integer, List&lt;Book&gt;&gt;() {
+ *             public void onLoaded(Integer page, List&lt;Book&gt; books) {
+ *                 adapter.addAll(books);
+ *                 helper.notifyLoadFinished(!books.isEmpty());
+ *             }
+ *
+ *             public void onFailed(Integer page, Throwable error) {
+ *                 helper.notifyLoadFinished(true);
+ *             }
+ *         });
+ *     }
+ * </pre>
+ *
+ * @param <K> the key type identifying a load, e.g. a page number
+ * @param <V> the result type of a load
+ */
+public class LoadPipeline<K, V> {
+
+    private static final int DEFAULT_MAX_RETRIES = 2;
+    private static final long DEFAULT_INITIAL_BACKOFF = 500;
+    private static final long MAX_BACKOFF = 30000;
+
+    private static ScheduledExecutorService sRetryScheduler;
+
+    private final DataSource<K, V> mDataSource;
+    private final Executor mLoadExecutor;
+    private Executor mCallbackExecutor;
+    private ScheduledExecutorService mRetryScheduler;
+    private int mMaxRetries = DEFAULT_MAX_RETRIES;
+    private long mInitialBackoff = DEFAULT_INITIAL_BACKOFF;
+
+    private final Object mLock = new Object();
+
+    /**
+     * the loads in flight by key, guarded by {@link #mLock}
+     */
+    private final Map<K, Request> mRequests = new HashMap<>();
+
+    private final Metrics mMetrics = new Metrics();
+
+    private LoadPipeline(DataSource<K, V> dataSource, Executor loadExecutor) {
+        mDataSource = dataSource;
+        mLoadExecutor = loadExecutor;
+        mCallbackExecutor = loadExecutor;
+    }
+
+    /**
+     * @param dataSource   the {@link DataSource} to load from
+     * @param loadExecutor the {@link Executor} on which to run the loads, also used to deliver the results
+     *                     unless {@link #deliverOn(Executor)} is set, so that callbacks touching views must set it
+     */
+    public static <K, V> LoadPipeline<K, V> create(DataSource<K, V> dataSource, Executor loadExecutor) {
+        return new LoadPipeline<>(dataSource, loadExecutor);
+    }
+
+    /**
+     * Sets the {@link Executor} on which the {@link Callback}s are invoked, e.g. the main thread.
+     */
+    public LoadPipeline<K, V> deliverOn(Executor callbackExecutor) {
+        mCallbackExecutor = callbackExecutor;
+        return this;
+    }
+
+    /**
+     * @param maxRetries     the max amount of retries of a failed load
+     * @param initialBackoff the delay in milliseconds before the first retry, doubled for every further retry
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public LoadPipeline<K, V> retry(int maxRetries, long initialBackoff) {
+        mMaxRetries = Math.max(0, maxRetries);
+        mInitialBackoff = Math.max(0, initialBackoff);
+        return this;
+    }
+
+    /**
+     * Sets the {@link ScheduledExecutorService} used to wait before retries, a shared daemon thread otherwise.
+     */
+    public LoadPipeline<K, V> retryScheduler(ScheduledExecutorService scheduler) {
+        mRetryScheduler = scheduler;
+        return this;
+    }
+
+    public Metrics getMetrics() {
+        return mMetrics;
+    }
+
+    /**
+     * Loads the specified key, joining the load in flight for the same key if any.
+     *
+     * @param key      the key to load
+     * @param callback the {@link Callback} to invoke with the result
+     */
+    public void load(K key, Callback<K, V> callback) {
+        final Request request;
+        synchronized (mLock) {
+            final Request running = mRequests.get(key);
+            mMetrics.onRequest(running != null);
+            if (running != null) {
+                running.mCallbacks.add(callback);
+                return;
+            }
+            request = new Request(key);
+            request.mCallbacks.add(callback);
+            mRequests.put(key, request);
+        }
+        mLoadExecutor.execute(request);
+    }
+
+    /**
+     * @return {@code true} if a load of the specified key is in flight
+     */
+    public boolean isLoading(K key) {
+        synchronized (mLock) {
+            return mRequests.containsKey(key);
+        }
+    }
+
+    /**
+     * Cancels every load in flight, their callbacks are never invoked.
+     */
+    public void cancelAll() {
+        synchronized (mLock) {
+            mMetrics.onCancelled(mRequests.size());
+            // outdated loads find themselves missing from the map and drop their results
+            mRequests.clear();
+        }
+    }
+
+    private ScheduledExecutorService getRetryScheduler() {
+        if (mRetryScheduler != null) {
+            return mRetryScheduler;
+        }
+        synchronized (LoadPipeline.class) {
+            if (sRetryScheduler == null) {
+                sRetryScheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        final Thread thread = new Thread(r, "LoadPipeline-retry");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return sRetryScheduler;
+        }
+    }
+
+    private class Request implements Runnable {
+        final K mKey;
+        final long mStartTime = System.nanoTime();
+        final List<Callback<K, V>> mCallbacks = new ArrayList<>(1);
+        int mAttempt;
+
+        Request(K key) {
+            mKey = key;
+        }
+
+        boolean isCancelled() {
+            synchronized (mLock) {
+                return mRequests.get(mKey) != this;
+            }
+        }
+
+        @Override
+        public void run() {
+            if (isCancelled()) {
+                return;
+            }
+            boolean retrying = false;
+            try {
+                final V result = mDataSource.load(mKey);
+                deliver(result, null);
+            } catch (Exception e) {
+                if (mAttempt < mMaxRetries && !isCancelled()) {
+                    final long backoff = Math.min(MAX_BACKOFF, mInitialBackoff << mAttempt);
+                    mAttempt++;
+                    mMetrics.onRetry();
+                    getRetryScheduler().schedule(new Runnable() {
+                        @Override
+                        public void run() {
+                            mLoadExecutor.execute(Request.this);
+                        }
+                    }, backoff, TimeUnit.MILLISECONDS);
+                    retrying = true;
+                } else {
+                    deliver(null, e);
+                }
+            } finally {
+                if (!retrying) {
+                    // an Error thrown by the load must not leave the key in flight forever
+                    remove();
+                }
+            }
+        }
+
+        /**
+         * @return {@code true} if this request was still in flight
+         */
+        private boolean remove() {
+            synchronized (mLock) {
+                if (mRequests.get(mKey) != this) {
+                    return false;
+                }
+                mRequests.remove(mKey);
+                return true;
+            }
+        }
+
+        private void deliver(final V result, final Throwable error) {
+            final List<Callback<K, V>> callbacks;
+            synchronized (mLock) {
+                if (!remove()) {
+                    return;
+                }
+                callbacks = new ArrayList<>(mCallbacks);
+                mMetrics.record((System.nanoTime() - mStartTime) / 1000000, error == null);
+            }
+            mCallbackExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    for (Callback<K, V> callback : callbacks) {
+                        if (error == null) {
+                            callback.onLoaded(mKey, result);
+                        } else {
+                            callback.onFailed(mKey, error);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Counters and latencies of the loads of a {@link LoadPipeline}. Latencies are measured from the first
+     * request of a key to the delivery of its result, retries included.
+     */
+    public static class Metrics {
+        private int mRequestCount;
+        private int mDedupedCount;
+        private int mSuccessCount;
+        private int mFailureCount;
+        private int mRetryCount;
+        private int mCancelledCount;
+        private long mTotalLatency;
+        private long mLastLatency;
+        private long mMaxLatency;
+
+        synchronized void onRequest(boolean deduped) {
+            mRequestCount++;
+            if (deduped) {
+                mDedupedCount++;
+            }
+        }
+
+        synchronized void onRetry() {
+            mRetryCount++;
+        }
+
+        synchronized void onCancelled(int count) {
+            mCancelledCount += count;
+        }
+
+        synchronized void record(long latency, boolean success) {
+            if (success) {
+                mSuccessCount++;
+            } else {
+                mFailureCount++;
+            }
+            mTotalLatency += latency;
+            mLastLatency = latency;
+            mMaxLatency = Math.max(mMaxLatency, latency);
+        }
+
+        public synchronized int getRequestCount() {
+            return mRequestCount;
+        }
+
+        /**
+         * @return the count of requests which joined a load already in flight
+         */
+        public synchronized int getDedupedCount() {
+            return mDedupedCount;
+        }
+
+        public synchronized int getSuccessCount() {
+            return mSuccessCount;
+        }
+
+        public synchronized int getFailureCount() {
+            return mFailureCount;
+        }
+
+        public synchronized int getRetryCount() {
+            return mRetryCount;
+        }
+
+        public synchronized int getCancelledCount() {
+            return mCancelledCount;
+        }
+
+        /**
+         * @return the latency in milliseconds of the last completed load
+         */
+        public synchronized long getLastLatency() {
+            return mLastLatency;
+        }
+
+        public synchronized long getMaxLatency() {
+            return mMaxLatency;
+        }
+
+        public synchronized long getAverageLatency() {
+            final int completed = mSuccessCount + mFailureCount;
+            return completed == 0 ? 0 : mTotalLatency / completed;
+        }
+    }
+
+    /**
+     * Loads the value of a key, invoked on the load {@link Executor}.
+     */
+    public interface DataSource<K, V> {
+        V load(K key) throws Exception;
+    }
+
+    public interface Callback<K, V> {
+        void onLoaded(K key, V result);
+
+        void onFailed(K key, Throwable error);
+    }
+}
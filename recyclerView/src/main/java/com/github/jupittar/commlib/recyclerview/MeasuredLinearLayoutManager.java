@@ -0,0 +1,125 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.content.Context;
+import android.graphics.Rect;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * {@link LinearLayoutManager} recording the measured sizes of the items of an {@link ItemAdapter} in an
+ * {@link ItemSizeCache}, for vertical lists with rows of variable height.
+ * <p/>
+ * <ul>
+ * <li>A row already measured for its item and the current width is not measured again when it is rebound with
+ * payloads only, see {@link ItemViewHolder#bindItemView(ItemHolder, java.util.List)}, or fully rebound with the
+ * same {@link ItemHolder#getContentHash()}. Payloads must therefore not change the size of a row, notify such
+ * changes without payload.</li>
+ * <li>The scroll offset and range are computed from the cached sizes instead of being estimated from the
+ * visible children, so that the scrollbar does not jump, and {@link #scrollToOffset(int)} can scroll to any
+ * offset of the list.</li>
+ * </ul>
+ * Horizontal and reversed layouts fall back to the behavior of {@link LinearLayoutManager}.
+ */
+public class MeasuredLinearLayoutManager extends LinearLayoutManager {
+
+    private final ItemSizeCache mSizeCache;
+    private final Rect mTmpRect = new Rect();
+    private RecyclerView mRecyclerView;
+
+    public MeasuredLinearLayoutManager(Context context, @NonNull ItemSizeCache sizeCache) {
+        super(context);
+        mSizeCache = sizeCache;
+    }
+
+    public ItemSizeCache getSizeCache() {
+        return mSizeCache;
+    }
+
+    @Override
+    public void onAttachedToWindow(RecyclerView view) {
+        super.onAttachedToWindow(view);
+        mRecyclerView = view;
+    }
+
+    private boolean isSizeCacheUsed() {
+        return getOrientation() == VERTICAL && !getReverseLayout();
+    }
+
+    @Override
+    public void measureChildWithMargins(View child, int widthUsed, int heightUsed) {
+        final RecyclerView.ViewHolder viewHolder = mRecyclerView == null ? null
+                : mRecyclerView.getChildViewHolder(child);
+        if (!isSizeCacheUsed() || !(viewHolder instanceof ItemViewHolder)
+                || ((ItemViewHolder<?>) viewHolder).getItemHolder() == null) {
+            super.measureChildWithMargins(child, widthUsed, heightUsed);
+            return;
+        }
+        final ItemViewHolder<?> holder = (ItemViewHolder<?>) viewHolder;
+        final int width = getWidth();
+        if (holder.isMeasuredFor(width) && !child.isLayoutRequested()) {
+            // neither the content nor the views have changed since the last measure, only the decorations may have
+            calculateItemDecorationsForChild(child, mTmpRect);
+        } else {
+            super.measureChildWithMargins(child, widthUsed, heightUsed);
+            holder.setMeasuredFor(width);
+        }
+        final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) child.getLayoutParams();
+        mSizeCache.put(holder.getAdapterPosition(), holder.getItemHolder().mItemId, width,
+                getDecoratedMeasuredHeight(child) + params.topMargin + params.bottomMargin);
+    }
+
+    private boolean canComputeFromCache() {
+        return isSizeCacheUsed() && getChildCount() > 0 && !mSizeCache.isEmpty(getWidth());
+    }
+
+    @Override
+    public int computeVerticalScrollOffset(RecyclerView.State state) {
+        if (!canComputeFromCache()) {
+            return super.computeVerticalScrollOffset(state);
+        }
+        final View child = getChildAt(0);
+        final RecyclerView.LayoutParams params = (RecyclerView.LayoutParams) child.getLayoutParams();
+        final int top = getDecoratedTop(child) - params.topMargin - getPaddingTop();
+        return mSizeCache.getOffset(getPosition(child), getWidth()) - top;
+    }
+
+    @Override
+    public int computeVerticalScrollRange(RecyclerView.State state) {
+        if (!canComputeFromCache()) {
+            return super.computeVerticalScrollRange(state);
+        }
+        return mSizeCache.getTotalSize(getWidth()) + getPaddingTop() + getPaddingBottom();
+    }
+
+    @Override
+    public int computeVerticalScrollExtent(RecyclerView.State state) {
+        if (!canComputeFromCache()) {
+            return super.computeVerticalScrollExtent(state);
+        }
+        return getHeight();
+    }
+
+    /**
+     * @return the offset of the specified position from the start of the list, from the cached sizes
+     */
+    public int getOffsetOfPosition(int position) {
+        return mSizeCache.getOffset(position, getWidth());
+    }
+
+    /**
+     * Scrolls the list so that the specified offset from the start of the list, as computed from the cached
+     * sizes, is at the top.
+     *
+     * @param offset the offset in pixels to scroll to
+     */
+    public void scrollToOffset(int offset) {
+        if (!isSizeCacheUsed() || getItemCount() == 0) {
+            return;
+        }
+        final int position = mSizeCache.findPosition(offset, getWidth());
+        scrollToPositionWithOffset(position, mSizeCache.getOffset(position, getWidth()) - offset);
+    }
+}
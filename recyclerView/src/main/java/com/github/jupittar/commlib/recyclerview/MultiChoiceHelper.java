@@ -1,11 +1,23 @@
 package com.github.jupittar.commlib.recyclerview;
 
 
+import android.os.Bundle;
 import android.support.annotation.NonNull;
-import android.support.v4.util.LongSparseArray;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.RecyclerView;
-import android.util.SparseBooleanArray;
+
+import com.github.jupittar.commlib.recyclerview.util.LongBitSet;
+import com.github.jupittar.commlib.recyclerview.util.LongHashSet;
+import com.github.jupittar.commlib.recyclerview.util.SelectionCodec;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.UUID;
 
 /**
  *
@@ -30,37 +42,125 @@ import android.util.SparseBooleanArray;
  */
 public class MultiChoiceHelper {
 
+    /**
+     * payload of the changes notified for selection changes, so that only the check state is rebound
+     */
+    public static final Object PAYLOAD_SELECTION = new Object();
+
+    private static final String STATE_POSITIONS = "multi_choice_positions";
+    private static final String STATE_IDS = "multi_choice_ids";
+    private static final String STATE_FILE = "multi_choice_file";
+
+    /**
+     * the max size of the encoded selections to save in the {@link Bundle}, larger ones are saved to a file
+     * to stay well below the binder transaction limit
+     */
+    private static final int MAX_BUNDLE_BYTES = 128 * 1024;
+
     private AppCompatActivity mActivity;
     private RecyclerView.Adapter mAdapter;
 
     /**
-     * positions of the selected items
+     * positions of the selected items, its cardinality being the count of selected items
+     */
+    private LongBitSet mCheckStates;
+
+    /**
+     * item IDs of the selected items, only if the adapter has stable ids
      */
-    private SparseBooleanArray mCheckStates;
+    private LongHashSet mCheckedIdStates;
 
     /**
-     * count of selected items
+     * position of the last item checked or unchecked, from which {@link #extendSelectionTo(int)} selects
      */
-    private int mCheckedItemCount;
+    private int mAnchorPosition = RecyclerView.NO_POSITION;
 
     /**
-     * item IDs associated with current positions
+     * the duration in milliseconds of the last {@link #onRestoreInstanceState(Bundle)}
      */
-    private LongSparseArray<Integer> mCheckedIdStates;
+    private long mLastRestoreTime;
+
+    /**
+     * the file of the selections too large for a {@link Bundle}, named once per helper or taken over from the
+     * restored state, and overwritten by every save, or {@code null} if none
+     */
+    private File mStateFile;
+
+    /**
+     * Shifts the selections along with the items, positions being confirmed by id when the whole
+     * data set changed and the adapter has stable ids
+     */
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            if (mCheckedIdStates != null) {
+                confirmCheckedPositionsById();
+            } else {
+                // positions beyond the new end no longer hold an item
+                final int itemCount = mAdapter.getItemCount();
+                mCheckStates.set(itemCount, mCheckStates.capacity(), false);
+            }
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mCheckStates.insert(positionStart, itemCount);
+            if (mAnchorPosition >= positionStart) {
+                mAnchorPosition += itemCount;
+            }
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            final boolean checkedRemoved = mCheckStates.cardinality(positionStart, positionStart + itemCount) > 0;
+            mCheckStates.remove(positionStart, itemCount);
+            if (mAnchorPosition >= positionStart + itemCount) {
+                mAnchorPosition -= itemCount;
+            } else if (mAnchorPosition >= positionStart) {
+                mAnchorPosition = RecyclerView.NO_POSITION;
+            }
+            if (checkedRemoved && mCheckedIdStates != null) {
+                // the ids of the removed items can no longer be asked to the adapter
+                rebuildCheckedIds();
+            }
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            for (int i = 0; i < itemCount; i++) {
+                if (fromPosition > toPosition) {
+                    mCheckStates.move(fromPosition + i, toPosition + i);
+                } else {
+                    mCheckStates.move(fromPosition, toPosition + itemCount - 1);
+                }
+            }
+        }
+    };
 
     /**
      * Makes sure this constructor is called before setting the adapter on the RecyclerView
      * so that this class will be notified before the RecyclerView in case of dataset changes.
+     * The helper observes the adapter until {@link #detach()}, which must be called if the adapter outlives the
+     * activity.
      *
      **/
     public MultiChoiceHelper(@NonNull AppCompatActivity activity, @NonNull RecyclerView.Adapter adapter) {
         mActivity = activity;
         mAdapter = adapter;
 
-        mCheckStates = new SparseBooleanArray(0);
+        mCheckStates = new LongBitSet();
         if (adapter.hasStableIds()) {
-            mCheckedIdStates = new LongSparseArray<>(0);
+            mCheckedIdStates = new LongHashSet();
         }
+        adapter.registerAdapterDataObserver(mDataObserver);
+    }
+
+    /**
+     * Stops tracking the dataset changes of the adapter, e.g. when the activity is destroyed while the adapter is
+     * retained. The selections are left as they are.
+     */
+    public void detach() {
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
     }
 
     /**
@@ -80,27 +180,267 @@ public class MultiChoiceHelper {
      * @param value the new checked state for the item
      */
     public void setItemChecked(int position, boolean value) {
-        boolean oldValue = mCheckStates.get(position);
-        mCheckStates.put(position, value);
-
-        if (oldValue != value) {
+        mAnchorPosition = position;
+        if (mCheckStates.set(position, value) && mCheckedIdStates != null) {
+            final long id = mAdapter.getItemId(position);
             if (value) {
-                ++mCheckedItemCount;
+                mCheckedIdStates.add(id);
             } else {
-                --mCheckedItemCount;
+                mCheckedIdStates.remove(id);
             }
+        }
+    }
 
-            final long id = mAdapter.getItemId(position);
-            if (mCheckedIdStates != null) {
-                if (value) {
-                    mCheckedIdStates.put(id, position);
-                } else {
-                    mCheckedIdStates.delete(id);
+    /**
+     * Toggles the checked state of the specified position.
+     *
+     * @param position the position of the item whose checked state is to be changed
+     * @return the new checked state for the item
+     */
+    public boolean toggleItemChecked(int position) {
+        final boolean value = !isItemChecked(position);
+        setItemChecked(position, value);
+        return value;
+    }
+
+    /**
+     * Sets the checked state of a range of items and notifies the adapter with a single
+     * {@link RecyclerView.Adapter#notifyItemRangeChanged(int, int, Object)} carrying {@link #PAYLOAD_SELECTION}.
+     *
+     * @param positionStart the position of the first item whose checked state is to be changed
+     * @param itemCount     the count of items whose checked state is to be changed
+     * @param value         the new checked state for the items
+     */
+    public void setItemsChecked(int positionStart, int itemCount, boolean value) {
+        if (itemCount <= 0) {
+            return;
+        }
+        final int positionEnd = positionStart + itemCount;
+        final int changed = value
+                ? itemCount - mCheckStates.cardinality(positionStart, positionEnd)
+                : mCheckStates.cardinality(positionStart, positionEnd);
+        if (changed == 0) {
+            return;
+        }
+        if (mCheckedIdStates != null) {
+            for (int position = positionStart; position < positionEnd; position++) {
+                if (mCheckStates.get(position) != value) {
+                    final long id = mAdapter.getItemId(position);
+                    if (value) {
+                        mCheckedIdStates.add(id);
+                    } else {
+                        mCheckedIdStates.remove(id);
+                    }
                 }
             }
         }
+        mCheckStates.set(positionStart, positionEnd, value);
+        mAdapter.notifyItemRangeChanged(positionStart, itemCount, PAYLOAD_SELECTION);
+    }
+
+    /**
+     * Checks the items from the anchor, the last item checked or unchecked, to the specified position, e.g. on
+     * a shift click. Checks the specified item only if there is no anchor.
+     *
+     * @param position the position of the last item of the range
+     */
+    public void extendSelectionTo(int position) {
+        final int anchor = mAnchorPosition == RecyclerView.NO_POSITION ? position : mAnchorPosition;
+        setItemsChecked(Math.min(anchor, position), Math.abs(anchor - position) + 1, true);
+        mAnchorPosition = anchor;
+    }
+
+    /**
+     * Checks all the items of the adapter.
+     */
+    public void checkAll() {
+        setItemsChecked(0, mAdapter.getItemCount(), true);
+    }
+
+    /**
+     * Clears all the selections, notifying the adapter with {@link #PAYLOAD_SELECTION}.
+     */
+    public void clearChoices() {
+        mAnchorPosition = RecyclerView.NO_POSITION;
+        // one notification per run of checked items
+        final int itemCount = mAdapter.getItemCount();
+        int start = mCheckStates.nextSetBit(0);
+        while (start != -1 && start < itemCount) {
+            final int end = Math.min(itemCount, mCheckStates.nextClearBit(start));
+            mAdapter.notifyItemRangeChanged(start, end - start, PAYLOAD_SELECTION);
+            start = mCheckStates.nextSetBit(end);
+        }
+        mCheckStates.clear();
+        if (mCheckedIdStates != null) {
+            mCheckedIdStates.clear();
+        }
+    }
+
+    /**
+     * @return the count of selected items
+     */
+    public int getCheckedItemCount() {
+        return mCheckStates.cardinality();
+    }
+
+    /**
+     * @return the positions of the selected items in ascending order
+     */
+    public int[] getCheckedItemPositions() {
+        final int[] positions = new int[mCheckStates.cardinality()];
+        int index = 0;
+        for (int position = mCheckStates.nextSetBit(0); position != -1;
+             position = mCheckStates.nextSetBit(position + 1)) {
+            positions[index++] = position;
+        }
+        return positions;
+    }
+
+    /**
+     * @return the ids of the selected items, empty if the adapter has no stable ids
+     */
+    public long[] getCheckedItemIds() {
+        return mCheckedIdStates == null ? new long[0] : mCheckedIdStates.toArray();
+    }
+
+    private void rebuildCheckedIds() {
+        mCheckedIdStates.clear();
+        for (int position = mCheckStates.nextSetBit(0); position != -1;
+             position = mCheckStates.nextSetBit(position + 1)) {
+            mCheckedIdStates.add(mAdapter.getItemId(position));
+        }
+    }
+
+    /**
+     * Checks the positions of the items whose ids are checked, dropping the ids no longer in the adapter.
+     */
+    private void confirmCheckedPositionsById() {
+        mCheckStates.clear();
+        if (mCheckedIdStates.isEmpty()) {
+            return;
+        }
+        final LongHashSet found = new LongHashSet(mCheckedIdStates.size());
+        for (int position = 0, count = mAdapter.getItemCount(); position < count; position++) {
+            final long id = mAdapter.getItemId(position);
+            if (mCheckedIdStates.contains(id)) {
+                mCheckStates.set(position, true);
+                found.add(id);
+            }
+        }
+        mCheckedIdStates = found;
     }
 
+    /**
+     * Saves the selections, to be called from {@link AppCompatActivity#onSaveInstanceState(Bundle)}.
+     * <p/>
+     * The selections are saved compressed, or in a file of the cache directory if they are still too large
+     * for a {@link Bundle}.
+     *
+     * @param outState the {@link Bundle} in which to place saved state
+     */
+    public void onSaveInstanceState(Bundle outState) {
+        final byte[] positions = SelectionCodec.encodePositions(mCheckStates);
+        final byte[] ids = mCheckedIdStates == null ? new byte[0] : SelectionCodec.encodeIds(mCheckedIdStates.toArray());
+        if (positions.length + ids.length <= MAX_BUNDLE_BYTES) {
+            outState.putByteArray(STATE_POSITIONS, positions);
+            outState.putByteArray(STATE_IDS, ids);
+            deleteStateFile();
+            return;
+        }
+        if (mStateFile == null) {
+            mStateFile = new File(mActivity.getCacheDir(), "multi_choice_" + UUID.randomUUID());
+        }
+        final File file = mStateFile;
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new FileOutputStream(file));
+            out.writeInt(positions.length);
+            out.write(positions);
+            out.writeInt(ids.length);
+            out.write(ids);
+            outState.putString(STATE_FILE, file.getAbsolutePath());
+        } catch (IOException e) {
+            // dropping the selections beats exceeding the transaction limit
+            deleteStateFile();
+        } finally {
+            closeQuietly(out);
+        }
+    }
 
+    private void deleteStateFile() {
+        if (mStateFile != null) {
+            //noinspection ResultOfMethodCallIgnored
+            mStateFile.delete();
+            mStateFile = null;
+        }
+    }
 
+    /**
+     * Restores the selections saved by {@link #onSaveInstanceState(Bundle)}, to be called once the adapter
+     * holds its items again.
+     *
+     * @param savedInstanceState the {@link Bundle} in which to retrieve saved state, may be {@code null}
+     */
+    public void onRestoreInstanceState(Bundle savedInstanceState) {
+        if (savedInstanceState == null) {
+            return;
+        }
+        final long start = System.nanoTime();
+        byte[] positions = savedInstanceState.getByteArray(STATE_POSITIONS);
+        byte[] ids = savedInstanceState.getByteArray(STATE_IDS);
+        final String path = savedInstanceState.getString(STATE_FILE);
+        if (path != null) {
+            final File file = new File(path);
+            DataInputStream in = null;
+            try {
+                in = new DataInputStream(new FileInputStream(file));
+                positions = new byte[in.readInt()];
+                in.readFully(positions);
+                ids = new byte[in.readInt()];
+                in.readFully(ids);
+            } catch (IOException e) {
+                positions = null;
+                ids = null;
+            } finally {
+                closeQuietly(in);
+            }
+            // kept in case the same state is restored again, e.g. after another process death, the next save
+            // overwrites or deletes it
+            if (!file.equals(mStateFile)) {
+                deleteStateFile();
+                mStateFile = file;
+            }
+        }
+        if (positions == null) {
+            return;
+        }
+
+        mAnchorPosition = RecyclerView.NO_POSITION;
+        SelectionCodec.decodePositions(positions, mCheckStates);
+        if (mCheckedIdStates != null) {
+            final long[] checkedIds = ids == null ? new long[0] : SelectionCodec.decodeIds(ids);
+            mCheckedIdStates = new LongHashSet(checkedIds.length);
+            for (long id : checkedIds) {
+                mCheckedIdStates.add(id);
+            }
+        }
+        mLastRestoreTime = (System.nanoTime() - start) / 1000000;
+    }
+
+    /**
+     * @return the duration in milliseconds of the last {@link #onRestoreInstanceState(Bundle)}
+     */
+    public long getLastRestoreTime() {
+        return mLastRestoreTime;
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // nothing to do
+            }
+        }
+    }
 }
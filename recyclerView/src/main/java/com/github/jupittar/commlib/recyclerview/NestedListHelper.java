@@ -0,0 +1,162 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.os.Parcelable;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+
+/**
+ * Helper class for lists nested in the rows of an outer list, e.g. horizontal carousels, usually used through
+ * {@link NestedListViewHolder}.
+ * <p/>
+ * <ul>
+ * <li>All inner lists of the same type share one {@link RecyclerView.RecycledViewPool}, so that a row bound
+ * to a new item reuses the inner views of the rows scrolled out instead of creating its own.</li>
+ * <li>The scroll state of an inner list is saved by the {@link ItemHolder#mItemId} of its outer item when the
+ * row is detached or rebound to another item, and restored when the item is bound again.</li>
+ * <li>The inner {@link LinearLayoutManager}s get an initial prefetch count, so that the first inner items are
+ * prefetched with the outer row by the prefetch pass of the outer list.</li>
+ * </ul>
+ * Note: Must be used from the main thread.
+ */
+public class NestedListHelper {
+
+    private static final int DEFAULT_INITIAL_PREFETCH_COUNT = 4;
+    private static final int DEFAULT_MAX_SAVED_STATES = 100;
+
+    private final SparseArray<CountingPool> mPoolsByType = new SparseArray<>();
+    private final LruCache<Long, Parcelable> mSavedStates = new LruCache<>(DEFAULT_MAX_SAVED_STATES);
+    private int mInitialPrefetchCount = DEFAULT_INITIAL_PREFETCH_COUNT;
+
+    /**
+     * @param count the amount of inner items prefetched with an outer row, e.g. the amount visible at once
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public NestedListHelper initialPrefetchCount(int count) {
+        mInitialPrefetchCount = Math.max(0, count);
+        return this;
+    }
+
+    /**
+     * @param max the max amount of inner scroll states to keep, the least recently saved are dropped first
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public NestedListHelper maxSavedStates(int max) {
+        mSavedStates.resize(Math.max(1, max));
+        return this;
+    }
+
+    /**
+     * @param type the type of the inner lists, e.g. the view type of their outer rows
+     * @return the pool shared by the inner lists of the specified type
+     */
+    public RecyclerView.RecycledViewPool getPool(int type) {
+        CountingPool pool = mPoolsByType.get(type);
+        if (pool == null) {
+            pool = new CountingPool();
+            mPoolsByType.put(type, pool);
+        }
+        return pool;
+    }
+
+    /**
+     * Sets an inner list up, to be called once when its outer row is created, after its layout manager is set.
+     *
+     * @param innerList the inner {@link RecyclerView}
+     * @param type      the type of the inner list, e.g. the view type of its outer row
+     */
+    public void setUp(@NonNull RecyclerView innerList, int type) {
+        innerList.setRecycledViewPool(getPool(type));
+        final RecyclerView.LayoutManager layoutManager = innerList.getLayoutManager();
+        if (layoutManager instanceof LinearLayoutManager) {
+            ((LinearLayoutManager) layoutManager).setInitialPrefetchItemCount(mInitialPrefetchCount);
+            // hand the inner views to the shared pool when the row is detached
+            ((LinearLayoutManager) layoutManager).setRecycleChildrenOnDetach(true);
+        }
+    }
+
+    /**
+     * Saves the scroll state of an inner list for the specified outer item, to be called while the inner list is
+     * laid out, e.g. before its row is detached: its children are recycled on detach, leaving no state to save.
+     */
+    public void saveState(@NonNull RecyclerView innerList, long outerItemId) {
+        final RecyclerView.LayoutManager layoutManager = innerList.getLayoutManager();
+        // an inner list without children would save an invalid anchor over the saved state
+        if (layoutManager != null && layoutManager.getChildCount() > 0) {
+            mSavedStates.put(outerItemId, layoutManager.onSaveInstanceState());
+        }
+    }
+
+    /**
+     * Restores the scroll state of an inner list saved for the specified outer item, or scrolls it to the start,
+     * to be called after its adapter is bound to the item.
+     */
+    public void restoreState(@NonNull RecyclerView innerList, long outerItemId) {
+        final RecyclerView.LayoutManager layoutManager = innerList.getLayoutManager();
+        if (layoutManager == null) {
+            return;
+        }
+        final Parcelable state = mSavedStates.get(outerItemId);
+        if (state != null) {
+            layoutManager.onRestoreInstanceState(state);
+        } else {
+            // the list may still be scrolled to where the previous item was
+            layoutManager.scrollToPosition(0);
+        }
+    }
+
+    public void clearSavedStates() {
+        mSavedStates.evictAll();
+    }
+
+    /**
+     * @return the amount of inner views taken from the pools of all types instead of being created
+     */
+    public int getReusedViewCount() {
+        int count = 0;
+        for (int i = 0; i < mPoolsByType.size(); i++) {
+            count += mPoolsByType.valueAt(i).mHitCount;
+        }
+        return count;
+    }
+
+    /**
+     * @return the amount of inner views created for lack of a pooled one, for all types
+     */
+    public int getCreatedViewCount() {
+        int count = 0;
+        for (int i = 0; i < mPoolsByType.size(); i++) {
+            count += mPoolsByType.valueAt(i).mMissCount;
+        }
+        return count;
+    }
+
+    public void resetStats() {
+        for (int i = 0; i < mPoolsByType.size(); i++) {
+            mPoolsByType.valueAt(i).mHitCount = 0;
+            mPoolsByType.valueAt(i).mMissCount = 0;
+        }
+    }
+
+    /**
+     * {@link RecyclerView.RecycledViewPool} counting the views reused and the views to create
+     */
+    private static class CountingPool extends RecyclerView.RecycledViewPool {
+        int mHitCount;
+        int mMissCount;
+
+        @Override
+        public RecyclerView.ViewHolder getRecycledView(int viewType) {
+            final RecyclerView.ViewHolder holder = super.getRecycledView(viewType);
+            if (holder != null) {
+                mHitCount++;
+            } else {
+                mMissCount++;
+            }
+            return holder;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+
+/**
+ * {@link ItemViewHolder} of an outer row holding an inner list, e.g. a horizontal carousel, set up with a
+ * {@link NestedListHelper}: the inner list shares the pool of its type and keeps its scroll position by the
+ * {@link ItemHolder#mItemId} of the outer item across recycling, saved when the row is detached.
+ * <p/>
+ * Subclasses bind the outer item and the data of the inner list in {@link #onBindNestedItemView(ItemHolder)}.
+ *
+ * @param <T> the item holder type of the outer row
+ */
+public abstract class NestedListViewHolder<T extends ItemHolder> extends ItemViewHolder<T> {
+
+    private final RecyclerView mInnerList;
+    private final NestedListHelper mNestedListHelper;
+
+    /**
+     * the id of the outer item whose state the inner list shows, or {@link RecyclerView#NO_ID}
+     */
+    private long mInnerStateItemId = RecyclerView.NO_ID;
+
+    /**
+     * @param itemView         the item {@link View} to associate with this holder
+     * @param innerList        the inner {@link RecyclerView}, with its layout manager set
+     * @param nestedListHelper the {@link NestedListHelper} shared by the rows of the outer list
+     * @param type             the type of the inner list, e.g. the view type of the row
+     */
+    public NestedListViewHolder(View itemView, @NonNull RecyclerView innerList,
+                                @NonNull NestedListHelper nestedListHelper, int type) {
+        super(itemView);
+        mInnerList = innerList;
+        mNestedListHelper = nestedListHelper;
+        nestedListHelper.setUp(innerList, type);
+    }
+
+    public final RecyclerView getInnerList() {
+        return mInnerList;
+    }
+
+    @Override
+    protected final void onBindItemView(T itemHolder) {
+        final boolean itemChanged = itemHolder.mItemId != mInnerStateItemId;
+        if (itemChanged) {
+            saveInnerState();
+        }
+        onBindNestedItemView(itemHolder);
+        if (itemChanged) {
+            // a rebind of the same item keeps the current scroll position
+            mNestedListHelper.restoreState(mInnerList, itemHolder.mItemId);
+            mInnerStateItemId = itemHolder.mItemId;
+        }
+    }
+
+    @Override
+    protected final void onItemViewDetached() {
+        // the inner children are recycled right after, the row may still be attached again without a rebind
+        if (mInnerStateItemId != RecyclerView.NO_ID) {
+            mNestedListHelper.saveState(mInnerList, mInnerStateItemId);
+        }
+    }
+
+    @Override
+    protected final void onRecycleItemView() {
+        // the state has been saved when the row was detached
+        mInnerStateItemId = RecyclerView.NO_ID;
+        onRecycleNestedItemView();
+    }
+
+    private void saveInnerState() {
+        if (mInnerStateItemId != RecyclerView.NO_ID) {
+            mNestedListHelper.saveState(mInnerList, mInnerStateItemId);
+            mInnerStateItemId = RecyclerView.NO_ID;
+        }
+    }
+
+    /**
+     * Called when an item is bound to the row. Subclasses should bind the outer item and hand the data of the
+     * inner list to its adapter, the scroll state of the inner list being restored afterwards.
+     *
+     * @param itemHolder the {@link ItemHolder} to bind
+     */
+    protected abstract void onBindNestedItemView(T itemHolder);
+
+    /**
+     * Called when the row is recycled, the scroll state of the inner list having been saved on detach.
+     */
+    protected void onRecycleNestedItemView() {
+        // for subclasses
+    }
+}
@@ -0,0 +1,211 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+/**
+ * Decides when to load the next page of a list from the scroll velocity and the measured page load latency.
+ * <p/>
+ * Instead of a fixed item threshold, the next page is requested as soon as the items left below the viewport
+ * would be scrolled through before a page load is expected to finish:
+ * <pre>
+ *     itemsLeft <= max(minThreshold, velocity * loadLatency * safetyFactor)
+ * </pre>
+ * where the velocity is a smoothed estimate in items per millisecond and the load latency is a smoothed
+ * estimate of the time between requesting a page and the item count growing.
+ * <p/>
+ * This class is layout-agnostic and does not depend on the Android framework, callers feed it the last visible
+ * adapter position and the item count with a timestamp, see {@link LoadMoreScrollHelper}.
+ */
+public class PaginationEngine {
+
+    /**
+     * load latency assumed before the first page load has been measured
+     */
+    public static final long DEFAULT_LOAD_LATENCY = 500;
+
+    /**
+     * default multiplier applied to the predicted amount of items scrolled during a page load
+     */
+    public static final float DEFAULT_SAFETY_FACTOR = 1.5f;
+
+    /**
+     * weight of a new sample in the smoothed velocity and latency
+     */
+    private static final float SMOOTHING = 0.3f;
+
+    /**
+     * samples further apart than this are not used to estimate the velocity
+     */
+    private static final long MAX_SAMPLE_INTERVAL = 250;
+
+    /**
+     * the min amount of items to have below the last visible position before loading more
+     */
+    private int mMinThreshold;
+
+    private float mSafetyFactor = DEFAULT_SAFETY_FACTOR;
+
+    /**
+     * smoothed scroll velocity towards the end of the list, in items per millisecond
+     */
+    private float mVelocity;
+
+    /**
+     * smoothed page load latency in milliseconds
+     */
+    private float mLoadLatency = DEFAULT_LOAD_LATENCY;
+
+    private long mLastSampleTime = -1;
+    private int mLastSamplePosition = -1;
+
+    /**
+     * the total number of items in the data set after the last loading
+     */
+    private int mPreviousItemCount;
+
+    /**
+     * true if still waiting for the last requested page to load
+     */
+    private boolean mLoading;
+
+    private long mLoadStartTime;
+
+    /**
+     * true once a load reported that there is nothing more to load
+     */
+    private boolean mEndReached;
+
+    public PaginationEngine(int minThreshold) {
+        mMinThreshold = Math.max(0, minThreshold);
+    }
+
+    public void setMinThreshold(int minThreshold) {
+        mMinThreshold = Math.max(0, minThreshold);
+    }
+
+    public int getMinThreshold() {
+        return mMinThreshold;
+    }
+
+    public void setSafetyFactor(float safetyFactor) {
+        mSafetyFactor = Math.max(0f, safetyFactor);
+    }
+
+    /**
+     * @return the smoothed scroll velocity towards the end of the list, in items per millisecond
+     */
+    public float getVelocity() {
+        return mVelocity;
+    }
+
+    /**
+     * @return the smoothed page load latency in milliseconds
+     */
+    public long getLoadLatency() {
+        return Math.round(mLoadLatency);
+    }
+
+    public boolean isLoading() {
+        return mLoading;
+    }
+
+    /**
+     * Feeds a scroll sample to the engine.
+     *
+     * @param now                 the time of the sample in milliseconds
+     * @param lastVisiblePosition the greatest visible adapter position
+     * @param itemCount           the current item count of the adapter
+     * @return {@code true} if the next page should be loaded now, the engine then waits for the item count to
+     * grow before requesting another one
+     */
+    public boolean onScrolled(long now, int lastVisiblePosition, int itemCount) {
+        onItemCountChanged(now, itemCount);
+        updateVelocity(now, lastVisiblePosition);
+
+        if (mLoading || mEndReached || itemCount == 0 || lastVisiblePosition < 0) {
+            return false;
+        }
+
+        final int itemsLeft = itemCount - 1 - lastVisiblePosition;
+        if (itemsLeft <= getThreshold()) {
+            mLoading = true;
+            mLoadStartTime = now;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Updates the item count without a scroll, e.g. when a page has been delivered while the list is idle.
+     *
+     * @param now       the current time in milliseconds
+     * @param itemCount the current item count of the adapter
+     */
+    public void onItemCountChanged(long now, int itemCount) {
+        if (itemCount < mPreviousItemCount) {
+            // the list has been invalidated, start over
+            reset();
+            mPreviousItemCount = itemCount;
+        } else if (itemCount > mPreviousItemCount) {
+            if (mLoading) {
+                final long latency = Math.max(0, now - mLoadStartTime);
+                mLoadLatency += SMOOTHING * (latency - mLoadLatency);
+                mLoading = false;
+            }
+            mPreviousItemCount = itemCount;
+        }
+    }
+
+    /**
+     * Ends the current load whether or not the item count grew, so that a failed or empty load does not block
+     * pagination. The load latency is only measured by item count changes.
+     *
+     * @param hasMore {@code false} to stop loading until {@link #reset()} or the list is replaced
+     */
+    public void onLoadFinished(boolean hasMore) {
+        mLoading = false;
+        mEndReached = !hasMore;
+    }
+
+    public boolean isEndReached() {
+        return mEndReached;
+    }
+
+    /**
+     * @return the current amount of items left below the last visible position at which a load is triggered
+     */
+    public int getThreshold() {
+        final int predicted = (int) Math.ceil(mVelocity * mLoadLatency * mSafetyFactor);
+        return Math.max(mMinThreshold, predicted);
+    }
+
+    /**
+     * Resets the engine to its initial state, keeping the measured load latency.
+     */
+    public void reset() {
+        mLoading = false;
+        mEndReached = false;
+        mPreviousItemCount = 0;
+        mVelocity = 0;
+        mLastSampleTime = -1;
+        mLastSamplePosition = -1;
+    }
+
+    private void updateVelocity(long now, int position) {
+        if (mLastSampleTime >= 0 && now <= mLastSampleTime) {
+            // keep the older sample so the movement within the same millisecond is not lost
+            return;
+        }
+        if (mLastSampleTime >= 0) {
+            final long interval = now - mLastSampleTime;
+            if (interval <= MAX_SAMPLE_INTERVAL) {
+                // only scrolling towards the end of the list brings the next page closer
+                final float velocity = Math.max(0, position - mLastSamplePosition) / (float) interval;
+                mVelocity += SMOOTHING * (velocity - mVelocity);
+            } else {
+                mVelocity = 0;
+            }
+        }
+        mLastSampleTime = now;
+        mLastSamplePosition = position;
+    }
+}
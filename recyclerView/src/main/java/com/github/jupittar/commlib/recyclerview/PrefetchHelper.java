@@ -0,0 +1,312 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v4.util.LongSparseArray;
+import android.support.v4.util.LruCache;
+import android.support.v7.widget.RecyclerView;
+
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
+import com.github.jupittar.commlib.recyclerview.util.MainThreadExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper class loading the secondary data of the items of an {@link ItemAdapter} before they scroll into
+ * view, through {@link ItemHolder#onPrefetch()}.
+ * <p/>
+ * Providing the following features:
+ * <li>The next {@link #prefetchCount(int)} items ahead of the viewport in the scroll direction are prefetched</li>
+ * <li>Prefetches run on a bounded {@link ExecutorService}</li>
+ * <li>Results are held in an LRU cache keyed by {@link ItemHolder#mItemId}</li>
+ * <li>Prefetches of items leaving the prefetch window are cancelled</li>
+ * <li>Items whose result arrives while visible are notified with {@link #PAYLOAD_PREFETCHED}</li>
+ * <p/>
+ * Bind the prefetched data in {@link ItemViewHolder#onBindItemView(ItemHolder)}:
+ * <pre>
+ *     Bitmap cover = (Bitmap) prefetchHelper.get(itemHolder.mItemId);
+ *     if (cover != null) {
+ *         mCoverView.setImageBitmap(cover);
+ *     }
+ * </pre>
+ * Note: Must be used from the main thread, the adapter must have stable ids.
+ */
+public class PrefetchHelper {
+
+    /**
+     * payload of the change notified to an item whose prefetched data arrived while visible
+     */
+    public static final Object PAYLOAD_PREFETCHED = new Object();
+
+    private static final int DEFAULT_PREFETCH_COUNT = 10;
+    private static final int DEFAULT_CACHE_SIZE = 100;
+
+    /**
+     * cached for items with nothing to prefetch, {@link LruCache} does not hold {@code null}
+     */
+    private static final Object NO_RESULT = new Object();
+
+    private final RecyclerView mRecyclerView;
+    private final BaseItemAdapter<?> mAdapter;
+    private ExecutorService mExecutor;
+    private int mPrefetchCount = DEFAULT_PREFETCH_COUNT;
+    private LruCache<Long, Object> mCache = new LruCache<>(DEFAULT_CACHE_SIZE);
+
+    /**
+     * the prefetches in flight or failed by item id, kept until the item leaves the window
+     */
+    private final LongSparseArray<Task> mTasks = new LongSparseArray<>();
+
+    /**
+     * the last non-zero scroll direction, forward until the first scroll
+     */
+    private int mDirection = 1;
+    private int mFirstVisiblePosition = RecyclerView.NO_POSITION;
+    private int mLastVisiblePosition = RecyclerView.NO_POSITION;
+
+    private final OnScrollFrameListener mOnScrollFrameListener = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            if (snapshot.getDirection() != 0) {
+                mDirection = snapshot.getDirection();
+            }
+            update(snapshot.getFirstVisiblePosition(), snapshot.getLastVisiblePosition());
+        }
+    };
+
+    /**
+     * Positions shift on data set changes, wait for the next frame to look at the window again
+     */
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            ScrollObserver.of(mRecyclerView).requestFrame();
+        }
+    };
+
+    private PrefetchHelper(RecyclerView recyclerView, BaseItemAdapter<?> adapter) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+    }
+
+    public static PrefetchHelper attach(@NonNull RecyclerView recyclerView, @NonNull BaseItemAdapter<?> adapter) {
+        final PrefetchHelper helper = new PrefetchHelper(recyclerView, adapter);
+        adapter.registerAdapterDataObserver(helper.mDataObserver);
+        final ScrollObserver observer = ScrollObserver.of(recyclerView);
+        observer.addOnScrollFrameListener(helper.mOnScrollFrameListener);
+        observer.requestFrame();
+        return helper;
+    }
+
+    /**
+     * @param count the amount of items ahead of the viewport to prefetch
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public PrefetchHelper prefetchCount(int count) {
+        mPrefetchCount = Math.max(1, count);
+        return this;
+    }
+
+    /**
+     * @param size the max amount of prefetched results to hold
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public PrefetchHelper cacheSize(int size) {
+        mCache.resize(Math.max(1, size));
+        return this;
+    }
+
+    /**
+     * Sets the {@link ExecutorService} on which to run the prefetches, which should be bounded. Two threads
+     * with a queue of {@link #prefetchCount(int)} tasks otherwise.
+     */
+    public PrefetchHelper executor(ExecutorService executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    /**
+     * @return the prefetched data of the item with the specified id, or {@code null} if not prefetched
+     */
+    public Object get(long itemId) {
+        final Object result = mCache.get(itemId);
+        return result == NO_RESULT ? null : result;
+    }
+
+    /**
+     * Drops the prefetched data of the item with the specified id, e.g. when the item changed.
+     */
+    public void invalidate(long itemId) {
+        mCache.remove(itemId);
+        cancel(mTasks.indexOfKey(itemId));
+    }
+
+    public void detach() {
+        for (int i = mTasks.size() - 1; i >= 0; i--) {
+            cancel(i);
+        }
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
+        ScrollObserver.of(mRecyclerView).removeOnScrollFrameListener(mOnScrollFrameListener);
+    }
+
+    private ExecutorService getExecutor() {
+        if (mExecutor == null) {
+            mExecutor = new ThreadPoolExecutor(2, 2, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(mPrefetchCount), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "PrefetchHelper");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+            ((ThreadPoolExecutor) mExecutor).allowCoreThreadTimeOut(true);
+        }
+        return mExecutor;
+    }
+
+    private void update(int firstVisiblePosition, int lastVisiblePosition) {
+        mFirstVisiblePosition = firstVisiblePosition;
+        mLastVisiblePosition = lastVisiblePosition;
+        if (firstVisiblePosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        final int itemCount = mAdapter.getItemCount();
+        final int start;
+        final int end;
+        if (mDirection > 0) {
+            start = lastVisiblePosition + 1;
+            end = Math.min(itemCount - 1, lastVisiblePosition + mPrefetchCount);
+        } else {
+            start = Math.max(0, firstVisiblePosition - mPrefetchCount);
+            end = firstVisiblePosition - 1;
+        }
+
+        // cancel the prefetches out of the window, the visible items are left to finish
+        for (int i = mTasks.size() - 1; i >= 0; i--) {
+            final int position = mTasks.valueAt(i).mPosition;
+            final boolean visible = position >= firstVisiblePosition && position <= lastVisiblePosition;
+            if (!visible && (position < start || position > end)) {
+                cancel(i);
+            }
+        }
+
+        // nearest items first, they are needed first
+        if (mDirection > 0) {
+            for (int position = start; position <= end; position++) {
+                prefetch(position);
+            }
+        } else {
+            for (int position = end; position >= start; position--) {
+                prefetch(position);
+            }
+        }
+    }
+
+    private void prefetch(int position) {
+        final ItemHolder<?> itemHolder = mAdapter.getItemHolder(position);
+        final long itemId = itemHolder.mItemId;
+        final Task running = mTasks.get(itemId);
+        if (running != null) {
+            running.mPosition = position;
+            return;
+        }
+        if (mCache.get(itemId) != null) {
+            return;
+        }
+        final Task task = new Task(itemHolder, position);
+        try {
+            task.mFuture = getExecutor().submit(task);
+            mTasks.put(itemId, task);
+        } catch (RejectedExecutionException e) {
+            // the queue is full, the item is prefetched on a later frame
+        }
+    }
+
+    private void cancel(int index) {
+        if (index < 0) {
+            return;
+        }
+        final Task task = mTasks.valueAt(index);
+        mTasks.removeAt(index);
+        if (task.mFuture != null) {
+            task.mFuture.cancel(true);
+        }
+    }
+
+    private void onPrefetched(Task task, Object result, boolean failed) {
+        final long itemId = task.mItemHolder.mItemId;
+        if (mTasks.get(itemId) != task) {
+            // cancelled or invalidated meanwhile
+            return;
+        }
+        if (failed) {
+            // kept in flight so that the item is not retried before leaving the window
+            task.mFuture = null;
+            return;
+        }
+        mTasks.remove(itemId);
+        mCache.put(itemId, result == null ? NO_RESULT : result);
+        if (result != null && task.mPosition >= mFirstVisiblePosition && task.mPosition <= mLastVisiblePosition) {
+            task.mItemHolder.notifyItemChanged(PAYLOAD_PREFETCHED);
+        }
+    }
+
+    private class Task implements Runnable {
+        final ItemHolder<?> mItemHolder;
+
+        /**
+         * the last known adapter position of the item, main thread only
+         */
+        int mPosition;
+        Future<?> mFuture;
+
+        Task(ItemHolder<?> itemHolder, int position) {
+            mItemHolder = itemHolder;
+            mPosition = position;
+        }
+
+        @Override
+        public void run() {
+            Object result = null;
+            boolean failed = false;
+            try {
+                result = mItemHolder.onPrefetch();
+            } catch (Exception e) {
+                failed = true;
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return;
+            }
+            final Object delivered = result;
+            final boolean deliveredFailed = failed;
+            MainThreadExecutor.getInstance().execute(new Runnable() {
+                @Override
+                public void run() {
+                    onPrefetched(Task.this, delivered, deliveredFailed);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+
+import com.github.jupittar.commlib.R;
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
+import com.github.jupittar.commlib.recyclerview.util.LayoutManagerUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single {@link RecyclerView.OnScrollListener} shared by every scroll-driven helper of a {@link RecyclerView}.
+ * <p/>
+ * Scroll events are coalesced into one {@link ScrollSnapshot} per frame: the visible range, direction and
+ * velocity are computed at most once per frame, from a {@link Choreographer} callback, and dispatched to every
+ * registered {@link OnScrollFrameListener}. Consumers therefore never query the layout manager themselves on
+ * the scroll hot path.
+ * <p/>
+ * Note: Must be used from the main thread.
+ */
+public class ScrollObserver {
+
+    /**
+     * weight of the velocity of a new frame in the smoothed velocity
+     */
+    private static final float SMOOTHING = 0.5f;
+
+    /**
+     * frames further apart than this do not contribute to the smoothed velocity
+     */
+    private static final long MAX_FRAME_INTERVAL = 100;
+
+    private final RecyclerView mRecyclerView;
+    private final List<OnScrollFrameListener> mListeners = new ArrayList<>();
+    private final ScrollSnapshot mSnapshot = new ScrollSnapshot();
+
+    /**
+     * receives the per-span positions of a staggered grid without allocating
+     */
+    private int[] mSpanPositions = new int[0];
+
+    private int mPendingDx;
+    private int mPendingDy;
+    private boolean mFrameScheduled;
+
+    private final Choreographer.FrameCallback mFrameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mFrameScheduled = false;
+            dispatchFrame(frameTimeNanos / 1000000);
+        }
+    };
+
+    private final RecyclerView.OnScrollListener mOnScrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            mSnapshot.mScrollState = newState;
+            requestFrame();
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            mPendingDx += dx;
+            mPendingDy += dy;
+            requestFrame();
+        }
+    };
+
+    private ScrollObserver(RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        mSnapshot.mScrollState = recyclerView.getScrollState();
+        recyclerView.addOnScrollListener(mOnScrollListener);
+    }
+
+    /**
+     * @return the {@link ScrollObserver} of the specified {@link RecyclerView}, created on first use
+     */
+    public static ScrollObserver of(@NonNull RecyclerView recyclerView) {
+        ScrollObserver observer = (ScrollObserver) recyclerView.getTag(R.id.scroll_observer);
+        if (observer == null) {
+            observer = new ScrollObserver(recyclerView);
+            recyclerView.setTag(R.id.scroll_observer, observer);
+        }
+        return observer;
+    }
+
+    public RecyclerView getRecyclerView() {
+        return mRecyclerView;
+    }
+
+    public void addOnScrollFrameListener(OnScrollFrameListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    public void removeOnScrollFrameListener(OnScrollFrameListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * Requests a snapshot on the next frame even if the {@link RecyclerView} does not scroll, e.g. after the
+     * data set changed.
+     */
+    public void requestFrame() {
+        if (!mFrameScheduled && !mListeners.isEmpty()) {
+            mFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(mFrameCallback);
+        }
+    }
+
+    private void dispatchFrame(long frameTimeMillis) {
+        final ScrollSnapshot snapshot = mSnapshot;
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        final RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        if (layoutManager == null || adapter == null) {
+            mPendingDx = 0;
+            mPendingDy = 0;
+            return;
+        }
+
+        final int spanCount = LayoutManagerUtils.getSpanCount(layoutManager);
+        if (mSpanPositions.length != spanCount) {
+            mSpanPositions = new int[spanCount];
+        }
+        snapshot.mSpanCount = spanCount;
+        snapshot.mFirstVisiblePosition =
+                LayoutManagerUtils.findFirstVisibleItemPosition(layoutManager, mSpanPositions);
+        snapshot.mLastVisiblePosition =
+                LayoutManagerUtils.findLastVisibleItemPosition(layoutManager, mSpanPositions);
+        snapshot.mItemCount = adapter.getItemCount();
+
+        final long interval = frameTimeMillis - snapshot.mFrameTimeMillis;
+        if (snapshot.mScrollState == RecyclerView.SCROLL_STATE_IDLE) {
+            snapshot.mVelocityX = 0;
+            snapshot.mVelocityY = 0;
+        } else if (interval > 0) {
+            final float velocityX = mPendingDx * 1000f / interval;
+            final float velocityY = mPendingDy * 1000f / interval;
+            if (interval > MAX_FRAME_INTERVAL) {
+                snapshot.mVelocityX = velocityX;
+                snapshot.mVelocityY = velocityY;
+            } else {
+                snapshot.mVelocityX += SMOOTHING * (velocityX - snapshot.mVelocityX);
+                snapshot.mVelocityY += SMOOTHING * (velocityY - snapshot.mVelocityY);
+            }
+        }
+        snapshot.mDx = mPendingDx;
+        snapshot.mDy = mPendingDy;
+        snapshot.mFrameTimeMillis = frameTimeMillis;
+        mPendingDx = 0;
+        mPendingDy = 0;
+
+        // index loop as listeners may unregister themselves while dispatching
+        for (int i = mListeners.size() - 1; i >= 0; i--) {
+            if (i < mListeners.size()) {
+                mListeners.get(i).onScrollFrame(snapshot);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.v7.widget.RecyclerView;
+
+/**
+ * Scroll state of a {@link RecyclerView} computed once per frame by {@link ScrollObserver}.
+ * <p/>
+ * Note: A single instance is reused for every frame, consumers must copy the values they need to keep.
+ */
+public class ScrollSnapshot {
+
+    int mFirstVisiblePosition = RecyclerView.NO_POSITION;
+    int mLastVisiblePosition = RecyclerView.NO_POSITION;
+    int mItemCount;
+    int mSpanCount = 1;
+    int mDx;
+    int mDy;
+    float mVelocityX;
+    float mVelocityY;
+    int mScrollState = RecyclerView.SCROLL_STATE_IDLE;
+    long mFrameTimeMillis;
+
+    /**
+     * @return the smallest visible adapter position, or {@link RecyclerView#NO_POSITION}
+     */
+    public int getFirstVisiblePosition() {
+        return mFirstVisiblePosition;
+    }
+
+    /**
+     * @return the greatest visible adapter position, or {@link RecyclerView#NO_POSITION}
+     */
+    public int getLastVisiblePosition() {
+        return mLastVisiblePosition;
+    }
+
+    /**
+     * @return the item count of the adapter
+     */
+    public int getItemCount() {
+        return mItemCount;
+    }
+
+    /**
+     * @return the number of items laid out side by side, 1 for lists
+     */
+    public int getSpanCount() {
+        return mSpanCount;
+    }
+
+    /**
+     * @return the horizontal distance in pixels scrolled since the previous frame
+     */
+    public int getDx() {
+        return mDx;
+    }
+
+    /**
+     * @return the vertical distance in pixels scrolled since the previous frame
+     */
+    public int getDy() {
+        return mDy;
+    }
+
+    /**
+     * @return the smoothed horizontal velocity in pixels per second
+     */
+    public float getVelocityX() {
+        return mVelocityX;
+    }
+
+    /**
+     * @return the smoothed vertical velocity in pixels per second
+     */
+    public float getVelocityY() {
+        return mVelocityY;
+    }
+
+    /**
+     * @return 1 when scrolling towards the end of the list, -1 towards the start and 0 otherwise
+     */
+    public int getDirection() {
+        final int delta = mDy != 0 ? mDy : mDx;
+        return delta > 0 ? 1 : delta < 0 ? -1 : 0;
+    }
+
+    /**
+     * @return one of {@link RecyclerView#SCROLL_STATE_IDLE}, {@link RecyclerView#SCROLL_STATE_DRAGGING} or
+     * {@link RecyclerView#SCROLL_STATE_SETTLING}
+     */
+    public int getScrollState() {
+        return mScrollState;
+    }
+
+    /**
+     * @return the time of the frame in milliseconds, on the {@link System#nanoTime()} time base
+     */
+    public long getFrameTimeMillis() {
+        return mFrameTimeMillis;
+    }
+}
@@ -0,0 +1,298 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.os.Handler;
+import android.os.Looper;
+import android.support.annotation.NonNull;
+
+import com.github.jupittar.commlib.recyclerview.adapter.SectionedViewAdapter;
+import com.github.jupittar.commlib.recyclerview.model.SectionedItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Helper class grouping raw items into sections for a {@link SectionedViewAdapter} off the main thread.
+ * <p/>
+ * Items are grouped by the key returned by a {@link KeyFunction} on the supplied {@link Executor}. Finished
+ * sections(a head {@link SectionedItem} followed by its items) are appended to the adapter in chunks of
+ * about {@link #chunkSize(int)} items, each with a single range insertion.
+ * <p/>
+ * When the raw items are already ordered by key, see {@link #sortedByKey()}, every section is streamed as soon
+ * as its last item is read, so the first screen shows up before a large dataset is fully grouped. Otherwise a key
+ * may show up again anywhere, so all the items are grouped before the first section is appended.
+ * <p/>
+ * Every build replaces the sections appended by the previous one, which assumes the adapter is not changed
+ * meanwhile.
+ *
+ * @param <T> the raw item type
+ */
+public class SectionBuilder<T> {
+
+    private static final int DEFAULT_CHUNK_SIZE = 64;
+
+    private final Executor mExecutor;
+    private final KeyFunction<T> mKeyFunction;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * incremented by every build and cancellation so that chunks of outdated builds are dropped
+     */
+    private final AtomicInteger mGeneration = new AtomicInteger();
+
+    /**
+     * options read on the main thread when a build starts, and handed to the build
+     */
+    private Comparator<? super String> mKeyComparator;
+    private Comparator<? super T> mItemComparator;
+    private int mChunkSize = DEFAULT_CHUNK_SIZE;
+    private boolean mSortedByKey;
+    private OnSectionsBuiltListener mOnSectionsBuiltListener;
+
+    /**
+     * the adapter of the last build and the range of its data the build appended, accessed on the main thread
+     */
+    private SectionedViewAdapter<SectionedItem<T>> mAdapter;
+    private int mAppendStart;
+    private int mAppendedCount;
+    private boolean mFinished;
+
+    private SectionBuilder(Executor executor, KeyFunction<T> keyFunction) {
+        mExecutor = executor;
+        mKeyFunction = keyFunction;
+    }
+
+    /**
+     * @param executor    the {@link Executor} on which to group the items
+     * @param keyFunction the {@link KeyFunction} returning the section title of every item
+     */
+    public static <T> SectionBuilder<T> create(@NonNull Executor executor, @NonNull KeyFunction<T> keyFunction) {
+        return new SectionBuilder<>(executor, keyFunction);
+    }
+
+    /**
+     * Sorts the sections by their keys, sections keep the order of their first item otherwise. Ignored if the
+     * items are {@link #sortedByKey()}.
+     */
+    public SectionBuilder<T> sortKeys(Comparator<? super String> comparator) {
+        mKeyComparator = comparator;
+        return this;
+    }
+
+    /**
+     * Sorts the items of every section, items keep their original order otherwise.
+     */
+    public SectionBuilder<T> sortItems(Comparator<? super T> comparator) {
+        mItemComparator = comparator;
+        return this;
+    }
+
+    /**
+     * Declares the raw items ordered by key, the items of every section being adjacent, so that the sections are
+     * streamed while the items are read.
+     *
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public SectionBuilder<T> sortedByKey() {
+        mSortedByKey = true;
+        return this;
+    }
+
+    public SectionBuilder<T> chunkSize(int chunkSize) {
+        mChunkSize = Math.max(1, chunkSize);
+        return this;
+    }
+
+    public SectionBuilder<T> onSectionsBuiltListener(OnSectionsBuiltListener listener) {
+        mOnSectionsBuiltListener = listener;
+        return this;
+    }
+
+    /**
+     * Groups the raw items in the background and appends the resulting sections to the adapter, replacing the
+     * sections appended by the previous build. Any build still running is cancelled.
+     * <p/>
+     * Note: The raw items must not be modified until the build completes.
+     *
+     * @param rawItems the items to group
+     * @param adapter  the adapter to append the sections to
+     */
+    public void build(@NonNull final List<T> rawItems,
+                      @NonNull final SectionedViewAdapter<SectionedItem<T>> adapter) {
+        final int generation = mGeneration.incrementAndGet();
+        removeAppended();
+        mAdapter = adapter;
+        mAppendStart = adapter.getData().size();
+        mAppendedCount = 0;
+        mFinished = false;
+        // the options are handed over by the executor, never read again by the build
+        final Build build = new Build(generation, mKeyComparator, mItemComparator, mChunkSize);
+        final boolean sortedByKey = mSortedByKey;
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (sortedByKey) {
+                    build.streamSections(rawItems);
+                } else {
+                    build.groupSections(rawItems);
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels the running build, removing the sections it appended so far, chunks not appended yet are dropped.
+     */
+    public void cancel() {
+        mGeneration.incrementAndGet();
+        if (!mFinished) {
+            removeAppended();
+        }
+    }
+
+    /**
+     * Removes the sections appended by the last build
+     */
+    private void removeAppended() {
+        if (mAdapter != null && mAppendedCount > 0) {
+            mAdapter.removeRange(mAppendStart, mAppendedCount);
+        }
+        mAppendedCount = 0;
+    }
+
+    /**
+     * A build on the executor, posting its chunks to the main thread
+     */
+    private class Build {
+        final int mBuildGeneration;
+        final Comparator<? super String> mBuildKeyComparator;
+        final Comparator<? super T> mBuildItemComparator;
+        final int mBuildChunkSize;
+        List<SectionedItem<T>> mChunk;
+        int mSectionCount;
+
+        Build(int generation, Comparator<? super String> keyComparator, Comparator<? super T> itemComparator,
+              int chunkSize) {
+            mBuildGeneration = generation;
+            mBuildKeyComparator = keyComparator;
+            mBuildItemComparator = itemComparator;
+            mBuildChunkSize = chunkSize;
+            mChunk = new ArrayList<>(chunkSize);
+        }
+
+        boolean isCancelled() {
+            return mGeneration.get() != mBuildGeneration;
+        }
+
+        /**
+         * Groups the items whose keys are adjacent, appending every section once its last item is read
+         */
+        void streamSections(List<T> rawItems) {
+            List<T> group = new ArrayList<>();
+            String groupKey = null;
+            for (T item : rawItems) {
+                final String key = mKeyFunction.keyOf(item);
+                if (!group.isEmpty() && !(key == null ? groupKey == null : key.equals(groupKey))) {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    addSection(groupKey, group);
+                    group = new ArrayList<>();
+                }
+                groupKey = key;
+                group.add(item);
+            }
+            if (!group.isEmpty()) {
+                addSection(groupKey, group);
+            }
+            postChunk(true);
+        }
+
+        /**
+         * Groups all the items before appending the sections, a key may show up anywhere
+         */
+        void groupSections(List<T> rawItems) {
+            final Map<String, List<T>> groups = new LinkedHashMap<>();
+            for (T item : rawItems) {
+                final String key = mKeyFunction.keyOf(item);
+                List<T> group = groups.get(key);
+                if (group == null) {
+                    group = new ArrayList<>();
+                    groups.put(key, group);
+                }
+                group.add(item);
+            }
+            final List<String> keys = new ArrayList<>(groups.keySet());
+            if (mBuildKeyComparator != null) {
+                Collections.sort(keys, mBuildKeyComparator);
+            }
+            for (String key : keys) {
+                if (isCancelled()) {
+                    return;
+                }
+                addSection(key, groups.get(key));
+            }
+            postChunk(true);
+        }
+
+        private void addSection(String key, List<T> group) {
+            if (mBuildItemComparator != null) {
+                Collections.sort(group, mBuildItemComparator);
+            }
+            mChunk.add(new SectionedItem<T>(true, key));
+            for (T item : group) {
+                mChunk.add(new SectionedItem<>(item));
+            }
+            mSectionCount++;
+            if (mChunk.size() >= mBuildChunkSize) {
+                postChunk(false);
+                mChunk = new ArrayList<>(mBuildChunkSize);
+            }
+        }
+
+        private void postChunk(final boolean last) {
+            final List<SectionedItem<T>> chunk = mChunk;
+            final int sectionCount = mSectionCount;
+            mMainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (isCancelled()) {
+                        return;
+                    }
+                    if (!chunk.isEmpty()) {
+                        mAdapter.addAll(chunk);
+                        mAppendedCount += chunk.size();
+                    }
+                    if (last) {
+                        mFinished = true;
+                        if (mOnSectionsBuiltListener != null) {
+                            mOnSectionsBuiltListener.onSectionsBuilt(sectionCount);
+                        }
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Returns the section key of a raw item, invoked on the build {@link Executor}.
+     */
+    public interface KeyFunction<T> {
+        String keyOf(T item);
+    }
+
+    public interface OnSectionsBuiltListener {
+        /**
+         * Invoked on the main thread once the last section has been appended.
+         *
+         * @param sectionCount the number of sections built
+         */
+        void onSectionsBuilt(int sectionCount);
+    }
+}
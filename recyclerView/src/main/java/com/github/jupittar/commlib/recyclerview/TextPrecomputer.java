@@ -0,0 +1,353 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v4.text.PrecomputedTextCompat;
+import android.support.v4.util.LruCache;
+import android.support.v4.widget.TextViewCompat;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.widget.TextView;
+
+import com.github.jupittar.commlib.recyclerview.listener.OnScrollFrameListener;
+import com.github.jupittar.commlib.recyclerview.util.MainThreadExecutor;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Helper class measuring and laying out the texts of the upcoming items of an {@link ItemAdapter} on a
+ * background thread with {@link PrecomputedTextCompat}, so that binding them only hands the result to the
+ * {@link TextView}.
+ * <p/>
+ * The next {@link #precomputeCount(int)} items ahead of the viewport are asked for their texts through
+ * {@link ItemHolder#onPrecomputeText(TextPrecomputer)}. Results are held in a bounded cache keyed by
+ * {@link ItemHolder#mItemId}, the view id, the text and its {@link PrecomputedTextCompat.Params}, and consumed
+ * by {@link #setText(TextView, long, CharSequence)} when binding. A miss falls back to a plain
+ * {@link TextView#setText(CharSequence)}.
+ * <p/>
+ * The text params of a view id are learnt from the first bound {@link TextView} with that id, the views with
+ * the same id are expected to share their text appearance.
+ * <p/>
+ * Note: Must be used from the main thread.
+ */
+public class TextPrecomputer {
+
+    private static final int DEFAULT_PRECOMPUTE_COUNT = 10;
+    private static final int DEFAULT_CACHE_SIZE = 100;
+
+    private final RecyclerView mRecyclerView;
+    private final BaseItemAdapter<?> mAdapter;
+    private Executor mExecutor;
+
+    /**
+     * the executor created by {@link #getExecutor()} if none was set, shut down by {@link #detach()}
+     */
+    private ExecutorService mOwnedExecutor;
+    private int mPrecomputeCount = DEFAULT_PRECOMPUTE_COUNT;
+    private final LruCache<Key, Entry> mCache = new LruCache<>(DEFAULT_CACHE_SIZE);
+
+    /**
+     * the text params by view id, learnt when binding
+     */
+    private final SparseArray<PrecomputedTextCompat.Params> mParamsByViewId = new SparseArray<>();
+
+    /**
+     * the texts being precomputed
+     */
+    private final Set<Key> mPending = new HashSet<>();
+
+    /**
+     * the positions already asked for their texts, so that every frame only asks the newly upcoming items
+     */
+    private int mPrecomputedStart;
+    private int mPrecomputedEnd = -1;
+    private int mDirection = 1;
+
+    private int mHitCount;
+    private int mMissCount;
+    private long mSavedNanos;
+
+    private final OnScrollFrameListener mOnScrollFrameListener = new OnScrollFrameListener() {
+        @Override
+        public void onScrollFrame(ScrollSnapshot snapshot) {
+            if (snapshot.getDirection() != 0) {
+                mDirection = snapshot.getDirection();
+            }
+            update(snapshot.getFirstVisiblePosition(), snapshot.getLastVisiblePosition());
+        }
+    };
+
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            onDataChanged();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            onDataChanged();
+        }
+    };
+
+    private TextPrecomputer(RecyclerView recyclerView, BaseItemAdapter<?> adapter) {
+        mRecyclerView = recyclerView;
+        mAdapter = adapter;
+    }
+
+    public static TextPrecomputer attach(@NonNull RecyclerView recyclerView, @NonNull BaseItemAdapter<?> adapter) {
+        final TextPrecomputer precomputer = new TextPrecomputer(recyclerView, adapter);
+        adapter.registerAdapterDataObserver(precomputer.mDataObserver);
+        ScrollObserver.of(recyclerView).addOnScrollFrameListener(precomputer.mOnScrollFrameListener);
+        return precomputer;
+    }
+
+    /**
+     * @param count the amount of items ahead of the viewport to precompute the texts of
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public TextPrecomputer precomputeCount(int count) {
+        mPrecomputeCount = Math.max(1, count);
+        return this;
+    }
+
+    /**
+     * @param size the max amount of precomputed texts to hold
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public TextPrecomputer cacheSize(int size) {
+        mCache.resize(Math.max(1, size));
+        return this;
+    }
+
+    /**
+     * Sets the {@link Executor} on which to precompute the texts, a low priority thread shut down by
+     * {@link #detach()} otherwise.
+     */
+    public TextPrecomputer executor(Executor executor) {
+        mExecutor = executor;
+        return this;
+    }
+
+    public void detach() {
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
+        ScrollObserver.of(mRecyclerView).removeOnScrollFrameListener(mOnScrollFrameListener);
+        if (mOwnedExecutor != null) {
+            mOwnedExecutor.shutdownNow();
+            mOwnedExecutor = null;
+            mExecutor = null;
+        }
+        mPending.clear();
+    }
+
+    private Executor getExecutor() {
+        if (mExecutor == null) {
+            mOwnedExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    final Thread thread = new Thread(r, "TextPrecomputer");
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                }
+            });
+            mExecutor = mOwnedExecutor;
+        }
+        return mExecutor;
+    }
+
+    /**
+     * Precomputes the text of a view of an upcoming item in the background, to be called from
+     * {@link ItemHolder#onPrecomputeText(TextPrecomputer)}. Ignored until a view with the same id has been bound
+     * through {@link #setText(TextView, long, CharSequence)}.
+     *
+     * @param itemId the {@link ItemHolder#mItemId} of the item
+     * @param viewId the id of the {@link TextView} which will display the text
+     * @param text   the text to precompute
+     */
+    public void precompute(long itemId, int viewId, CharSequence text) {
+        final PrecomputedTextCompat.Params params = mParamsByViewId.get(viewId);
+        if (params == null || text == null) {
+            return;
+        }
+        final Key key = new Key(itemId, viewId, text.toString(), params);
+        if (mPending.contains(key) || mCache.get(key) != null) {
+            return;
+        }
+        mPending.add(key);
+        final CharSequence source = text;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                final long start = System.nanoTime();
+                Entry entry = null;
+                try {
+                    entry = new Entry(PrecomputedTextCompat.create(source, params), System.nanoTime() - start);
+                } finally {
+                    // a failed text is no longer pending either, so that it can be asked again
+                    final Entry result = entry;
+                    MainThreadExecutor.getInstance().execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (mPending.remove(key) && result != null) {
+                                mCache.put(key, result);
+                            }
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Sets the text of a {@link TextView} when binding, with the precomputed text if available.
+     *
+     * @param textView the {@link TextView} to set the text of, its id identifies the text of the item
+     * @param itemId   the {@link ItemHolder#mItemId} of the bound item
+     * @param text     the text to set
+     */
+    public void setText(TextView textView, long itemId, CharSequence text) {
+        if (text == null) {
+            textView.setText(null);
+            return;
+        }
+        final int viewId = textView.getId();
+        final PrecomputedTextCompat.Params params = TextViewCompat.getTextMetricsParams(textView);
+        mParamsByViewId.put(viewId, params);
+        final Entry entry = mCache.get(new Key(itemId, viewId, text.toString(), params));
+        if (entry != null) {
+            mHitCount++;
+            mSavedNanos += entry.mCostNanos;
+            TextViewCompat.setPrecomputedText(textView, entry.mText);
+        } else {
+            mMissCount++;
+            textView.setText(text);
+        }
+    }
+
+    public int getHitCount() {
+        return mHitCount;
+    }
+
+    public int getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * @return the ratio of texts set from the cache, between 0 and 1
+     */
+    public float getHitRate() {
+        final int count = mHitCount + mMissCount;
+        return count == 0 ? 0 : (float) mHitCount / count;
+    }
+
+    /**
+     * @return the time in milliseconds of text measurement moved off the main thread by the cache hits
+     */
+    public long getSavedTimeMillis() {
+        return mSavedNanos / 1000000;
+    }
+
+    public void resetStats() {
+        mHitCount = 0;
+        mMissCount = 0;
+        mSavedNanos = 0;
+    }
+
+    private void onDataChanged() {
+        // positions shifted, ask the upcoming items again, unchanged texts are found in the cache
+        mPrecomputedStart = 0;
+        mPrecomputedEnd = -1;
+        ScrollObserver.of(mRecyclerView).requestFrame();
+    }
+
+    private void update(int firstVisiblePosition, int lastVisiblePosition) {
+        if (firstVisiblePosition == RecyclerView.NO_POSITION || mParamsByViewId.size() == 0) {
+            return;
+        }
+        final int start;
+        final int end;
+        if (mDirection > 0) {
+            start = lastVisiblePosition + 1;
+            end = Math.min(mAdapter.getItemCount() - 1, lastVisiblePosition + mPrecomputeCount);
+        } else {
+            start = Math.max(0, firstVisiblePosition - mPrecomputeCount);
+            end = firstVisiblePosition - 1;
+        }
+        for (int position = start; position <= end; position++) {
+            if (position < mPrecomputedStart || position > mPrecomputedEnd) {
+                mAdapter.getItemHolder(position).onPrecomputeText(this);
+            }
+        }
+        mPrecomputedStart = start;
+        mPrecomputedEnd = end;
+    }
+
+    private static class Entry {
+        final PrecomputedTextCompat mText;
+
+        /**
+         * the time spent precomputing the text
+         */
+        final long mCostNanos;
+
+        Entry(PrecomputedTextCompat text, long costNanos) {
+            mText = text;
+            mCostNanos = costNanos;
+        }
+    }
+
+    private static class Key {
+        final long mItemId;
+        final int mViewId;
+        final String mText;
+        final PrecomputedTextCompat.Params mParams;
+
+        Key(long itemId, int viewId, String text, PrecomputedTextCompat.Params params) {
+            mItemId = itemId;
+            mViewId = viewId;
+            mText = text;
+            mParams = params;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key key = (Key) o;
+            return mItemId == key.mItemId && mViewId == key.mViewId && mText.equals(key.mText)
+                    && mParams.equals(key.mParams);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = (int) (mItemId ^ (mItemId >>> 32));
+            result = 31 * result + mViewId;
+            result = 31 * result + mText.hashCode();
+            result = 31 * result + mParams.hashCode();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package com.github.jupittar.commlib.recyclerview;
+
+
+import android.support.annotation.NonNull;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseBooleanArray;
+import android.util.SparseIntArray;
+
+import com.github.jupittar.commlib.recyclerview.adapter.CommonViewAdapter;
+import com.github.jupittar.commlib.recyclerview.adapter.SectionedViewAdapter;
+
+/**
+ * {@link GridLayoutManager.SpanSizeLookup} letting the items of the full span view types span all the columns,
+ * by default the headers and footers of {@link CommonViewAdapter} and the sections of
+ * {@link SectionedViewAdapter}. Other view types span one column unless set by {@link #setSpanSize(int, int)}.
+ * <p/>
+ * Both span indexes and span group indexes are cached, so that a layout pass only walks the items from the
+ * nearest cached position instead of from the start of the list. The caches are dropped by
+ * {@link GridLayoutManager} whenever the data set or the span count changes.
+ */
+public class ViewTypeSpanSizeLookup extends GridLayoutManager.SpanSizeLookup {
+
+    private final RecyclerView mRecyclerView;
+    private final SparseBooleanArray mFullSpanViewTypes = new SparseBooleanArray();
+
+    /**
+     * span sizes of the view types not spanning all the columns, 1 if absent
+     */
+    private final SparseIntArray mSpanSizes = new SparseIntArray();
+
+    /**
+     * span group indexes by position, computed for {@link #mGroupCacheSpanCount} spans
+     */
+    private final SparseIntArray mSpanGroupIndexCache = new SparseIntArray();
+    private int mGroupCacheSpanCount;
+
+    /**
+     * @param recyclerView the {@link RecyclerView} laid out by a {@link GridLayoutManager}
+     */
+    public ViewTypeSpanSizeLookup(@NonNull RecyclerView recyclerView) {
+        mRecyclerView = recyclerView;
+        setSpanIndexCacheEnabled(true);
+        setFullSpan(true, CommonViewAdapter.ITEM_TYPE_HEADER, CommonViewAdapter.ITEM_TYPE_FOOTER,
+                SectionedViewAdapter.ITEM_TYPE_SECTION);
+    }
+
+    /**
+     * @param fullSpan  {@code true} to let the items of the view types span all the columns
+     * @param viewTypes the view types to change
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ViewTypeSpanSizeLookup setFullSpan(boolean fullSpan, int... viewTypes) {
+        for (int viewType : viewTypes) {
+            if (fullSpan) {
+                mFullSpanViewTypes.put(viewType, true);
+            } else {
+                mFullSpanViewTypes.delete(viewType);
+            }
+        }
+        invalidateSpanIndexCache();
+        return this;
+    }
+
+    public boolean isFullSpan(int viewType) {
+        return mFullSpanViewTypes.get(viewType);
+    }
+
+    /**
+     * @param viewType the view type to change
+     * @param spanSize the amount of columns spanned by the items of the view type, capped by the span count
+     * @return this object, allowing calls to methods in this class to be chained
+     */
+    public ViewTypeSpanSizeLookup setSpanSize(int viewType, int spanSize) {
+        if (mSpanSizes.get(viewType, 1) != spanSize) {
+            mSpanSizes.put(viewType, Math.max(1, spanSize));
+            invalidateSpanIndexCache();
+        }
+        return this;
+    }
+
+    @Override
+    public int getSpanSize(int position) {
+        final RecyclerView.Adapter adapter = mRecyclerView.getAdapter();
+        final RecyclerView.LayoutManager layoutManager = mRecyclerView.getLayoutManager();
+        if (adapter == null || !(layoutManager instanceof GridLayoutManager)) {
+            return 1;
+        }
+        final int spanCount = ((GridLayoutManager) layoutManager).getSpanCount();
+        final int viewType = adapter.getItemViewType(position);
+        return isFullSpan(viewType) ? spanCount : Math.min(spanCount, mSpanSizes.get(viewType, 1));
+    }
+
+    @Override
+    public void invalidateSpanIndexCache() {
+        super.invalidateSpanIndexCache();
+        mSpanGroupIndexCache.clear();
+    }
+
+    @Override
+    public int getSpanGroupIndex(int adapterPosition, int spanCount) {
+        if (spanCount != mGroupCacheSpanCount) {
+            mSpanGroupIndexCache.clear();
+            mGroupCacheSpanCount = spanCount;
+        }
+        final int cached = mSpanGroupIndexCache.get(adapterPosition, -1);
+        if (cached != -1) {
+            return cached;
+        }
+
+        int span = 0;
+        int group = 0;
+        int start = 0;
+        final int reference = findReferencePosition(adapterPosition);
+        if (reference != -1) {
+            // resume from the end of the nearest cached item
+            group = mSpanGroupIndexCache.get(reference);
+            start = reference + 1;
+            span = getSpanIndex(reference, spanCount) + getSpanSize(reference);
+            if (span == spanCount) {
+                span = 0;
+                group++;
+            }
+        }
+        for (int i = start; i < adapterPosition; i++) {
+            final int size = getSpanSize(i);
+            span += size;
+            if (span == spanCount) {
+                span = 0;
+                group++;
+            } else if (span > spanCount) {
+                span = size;
+                group++;
+            }
+        }
+        if (span + getSpanSize(adapterPosition) > spanCount) {
+            group++;
+        }
+        mSpanGroupIndexCache.put(adapterPosition, group);
+        return group;
+    }
+
+    /**
+     * @return the greatest cached position before the specified one, or -1 if none
+     */
+    private int findReferencePosition(int position) {
+        int low = 0;
+        int high = mSpanGroupIndexCache.size() - 1;
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (mSpanGroupIndexCache.keyAt(mid) < position) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return high >= 0 ? mSpanGroupIndexCache.keyAt(high) : -1;
+    }
+}
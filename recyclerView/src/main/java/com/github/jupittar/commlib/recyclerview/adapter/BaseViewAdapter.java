@@ -51,15 +51,10 @@ public abstract class BaseViewAdapter<T> extends RecyclerView.Adapter<BaseViewHo
         convertView(holder, item);
     }
 
-    private void add(T item) {
-        mData.add(item);
-        notifyItemInserted(mData.size() - 1);
-    }
-
     public void addAll(List<T> list) {
-        for (T t : list) {
-            add(t);
-        }
+        final int positionStart = mData.size();
+        mData.addAll(list);
+        notifyItemRangeInserted(positionStart, list.size());
     }
 
     public void remove(T item) {
@@ -70,6 +65,15 @@ public abstract class BaseViewAdapter<T> extends RecyclerView.Adapter<BaseViewHo
         }
     }
 
+    /**
+     * Removes the specified count of items starting at the specified index with a single
+     * {@link #notifyItemRangeRemoved(int, int)}.
+     */
+    public void removeRange(int index, int count) {
+        mData.subList(index, index + count).clear();
+        notifyItemRangeRemoved(index, count);
+    }
+
     public void clear() {
         while (getItemCount() > 0) {
             remove(getItem(0));
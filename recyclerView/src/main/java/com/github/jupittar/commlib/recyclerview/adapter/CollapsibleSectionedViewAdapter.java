@@ -0,0 +1,185 @@
+package com.github.jupittar.commlib.recyclerview.adapter;
+
+import android.content.Context;
+import android.support.annotation.LayoutRes;
+import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import com.github.jupittar.commlib.recyclerview.BaseViewHolder;
+import com.github.jupittar.commlib.recyclerview.decoration.StickySectionHeaderDecoration;
+import com.github.jupittar.commlib.recyclerview.model.Section;
+import com.github.jupittar.commlib.recyclerview.util.FenwickTree;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Adapter displaying a list of {@link Section}s which can be expanded and collapsed.
+ * <p/>
+ * The visible size of every section(its head plus its items if expanded) is kept in a {@link FenwickTree},
+ * so mapping an adapter position to its section is O(log sections) and expanding or collapsing a section
+ * is a single range insertion or removal without copying any list.
+ */
+public abstract class CollapsibleSectionedViewAdapter<T> extends RecyclerView.Adapter<BaseViewHolder>
+        implements StickySectionHeaderDecoration.SectionLookup {
+
+    public static final int ITEM_TYPE_SECTION = SectionedViewAdapter.ITEM_TYPE_SECTION;
+
+    /**
+     * payload of {@link #notifyItemChanged(int, Object)} for a section head whose expansion state changed
+     */
+    public static final Object PAYLOAD_EXPANSION = new Object();
+
+    private final Context mContext;
+    @LayoutRes private final int mLayoutId;
+    @LayoutRes private final int mSectionLayoutId;
+
+    private final List<Section<T>> mSections = new ArrayList<>();
+
+    /**
+     * visible item count of every section including its head
+     */
+    private final FenwickTree mVisibleSizes = new FenwickTree();
+
+    public CollapsibleSectionedViewAdapter(Context context, @LayoutRes int layoutId,
+                                           @LayoutRes int sectionLayoutId) {
+        mContext = context;
+        mLayoutId = layoutId;
+        mSectionLayoutId = sectionLayoutId;
+    }
+
+    /**
+     * Replaces all sections of this adapter.
+     */
+    public void setSections(List<Section<T>> sections) {
+        mSections.clear();
+        mSections.addAll(sections);
+        final int[] sizes = new int[sections.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = visibleSizeOf(sections.get(i));
+        }
+        mVisibleSizes.setAll(sizes, sizes.length);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Appends a section to the end of this adapter.
+     */
+    public void addSection(Section<T> section) {
+        final int positionStart = mVisibleSizes.total();
+        final int size = visibleSizeOf(section);
+        mSections.add(section);
+        mVisibleSizes.append(size);
+        notifyItemRangeInserted(positionStart, size);
+    }
+
+    public Section<T> getSection(int sectionIndex) {
+        return mSections.get(sectionIndex);
+    }
+
+    public int getSectionCount() {
+        return mSections.size();
+    }
+
+    /**
+     * Expands the section if it is collapsed and collapses it otherwise.
+     */
+    public void toggleSection(int sectionIndex) {
+        setSectionExpanded(sectionIndex, !mSections.get(sectionIndex).isExpanded());
+    }
+
+    /**
+     * Expands or collapses the section, inserting or removing its items as a single range.
+     *
+     * @param sectionIndex the index of the section
+     * @param expanded     {@code true} to expand the section
+     */
+    public void setSectionExpanded(int sectionIndex, boolean expanded) {
+        final Section<T> section = mSections.get(sectionIndex);
+        if (section.isExpanded() == expanded) {
+            return;
+        }
+        section.setExpanded(expanded);
+
+        final int headPosition = getPositionForSection(sectionIndex);
+        final int itemCount = section.getItemCount();
+        mVisibleSizes.set(sectionIndex, visibleSizeOf(section));
+        notifyItemChanged(headPosition, PAYLOAD_EXPANSION);
+        if (itemCount > 0) {
+            if (expanded) {
+                notifyItemRangeInserted(headPosition + 1, itemCount);
+            } else {
+                notifyItemRangeRemoved(headPosition + 1, itemCount);
+            }
+        }
+    }
+
+    /**
+     * @param position the adapter position of any item
+     * @return the index of the section containing the specified position
+     */
+    public int getSectionForPosition(int position) {
+        return mVisibleSizes.indexOf(position);
+    }
+
+    /**
+     * @param sectionIndex the index of the section
+     * @return the adapter position of the head of the section
+     */
+    public int getPositionForSection(int sectionIndex) {
+        return mVisibleSizes.prefixSum(sectionIndex);
+    }
+
+    @Override
+    public boolean isSectionHead(int position) {
+        return getSectionHeadPosition(position) == position;
+    }
+
+    @Override
+    public int getSectionHeadPosition(int position) {
+        if (position < 0 || position >= getItemCount()) {
+            return RecyclerView.NO_POSITION;
+        }
+        return getPositionForSection(getSectionForPosition(position));
+    }
+
+    @NonNull @Override
+    public BaseViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        final int layoutId = viewType == ITEM_TYPE_SECTION ? mSectionLayoutId : mLayoutId;
+        View view = LayoutInflater.from(mContext).inflate(layoutId, parent, false);
+        return new BaseViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull BaseViewHolder holder, int position) {
+        final int sectionIndex = getSectionForPosition(position);
+        final Section<T> section = mSections.get(sectionIndex);
+        final int offset = position - getPositionForSection(sectionIndex);
+        if (offset == 0) {
+            convertSectionHead(holder, section, sectionIndex);
+        } else {
+            convertSectionItem(holder, section.getItems().get(offset - 1));
+        }
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return isSectionHead(position) ? ITEM_TYPE_SECTION : 0;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mVisibleSizes.total();
+    }
+
+    private int visibleSizeOf(Section<T> section) {
+        return 1 + (section.isExpanded() ? section.getItemCount() : 0);
+    }
+
+    public abstract void convertSectionHead(BaseViewHolder holder, Section<T> section, int sectionIndex);
+
+    public abstract void convertSectionItem(BaseViewHolder holder, T item);
+}
@@ -12,8 +12,8 @@ import java.util.List;
 
 public abstract class CommonViewAdapter<T> extends BaseViewAdapter<T> {
 
-    private static final int ITEM_TYPE_HEADER = 0x111;
-    private static final int ITEM_TYPE_FOOTER = 0x222;
+    public static final int ITEM_TYPE_HEADER = 0x111;
+    public static final int ITEM_TYPE_FOOTER = 0x222;
 
     private View mHeaderView;
     private View mFooterView;
@@ -86,15 +86,10 @@ public abstract class CommonViewAdapter<T> extends BaseViewAdapter<T> {
         return -1;
     }
 
-    private void add(T item) {
-        mData.add(item);
-        notifyItemInserted(hasHeader() ? mData.size() : mData.size() - 1);
-    }
-
     public void addAll(List<T> list) {
-        for (T t : list) {
-            add(t);
-        }
+        final int positionStart = hasHeader() ? mData.size() + 1 : mData.size();
+        mData.addAll(list);
+        notifyItemRangeInserted(positionStart, list.size());
     }
 
     public void remove(T item) {
@@ -105,6 +100,12 @@ public abstract class CommonViewAdapter<T> extends BaseViewAdapter<T> {
         }
     }
 
+    @Override
+    public void removeRange(int index, int count) {
+        mData.subList(index, index + count).clear();
+        notifyItemRangeRemoved(hasHeader() ? index + 1 : index, count);
+    }
+
     public void clear() {
         while (mData.size() > 0) {
             remove(mData.get(hasHeader() ? 1 : 0));
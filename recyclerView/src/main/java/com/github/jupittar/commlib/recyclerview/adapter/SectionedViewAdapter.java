@@ -3,24 +3,90 @@ package com.github.jupittar.commlib.recyclerview.adapter;
 import android.content.Context;
 import android.support.annotation.LayoutRes;
 import android.support.annotation.NonNull;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
 import com.github.jupittar.commlib.recyclerview.BaseViewHolder;
+import com.github.jupittar.commlib.recyclerview.decoration.StickySectionHeaderDecoration;
 import com.github.jupittar.commlib.recyclerview.model.SectionedItem;
 
-public abstract class SectionedViewAdapter<T extends SectionedItem> extends CommonViewAdapter<T> {
+import java.util.Arrays;
 
-    private static final int ITEM_TYPE_SECTION = 0x333;
+public abstract class SectionedViewAdapter<T extends SectionedItem> extends CommonViewAdapter<T>
+        implements StickySectionHeaderDecoration.SectionLookup {
+
+    public static final int ITEM_TYPE_SECTION = 0x333;
     @LayoutRes
     private int mSectionLayoutId;
 
+    /**
+     * sorted adapter positions of the section heads, or {@code null} if they have to be collected again
+     */
+    private int[] mSectionHeadPositions;
+    private int mSectionHeadCount;
+
+    /**
+     * the count of {@link RecyclerView}s observing this adapter, the section heads being cached only while
+     * {@link #mDataObserver} is registered
+     */
+    private int mAttachedCount;
+
+    /**
+     * registered once attached rather than in the constructor, so that {@link #setHasStableIds(boolean)} can
+     * still be called, which throws once the adapter has observers
+     */
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            mSectionHeadPositions = null;
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            mSectionHeadPositions = null;
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            mSectionHeadPositions = null;
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            mSectionHeadPositions = null;
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            mSectionHeadPositions = null;
+        }
+    };
+
     public SectionedViewAdapter(Context context, @LayoutRes int layoutId, @LayoutRes int sectionLayoutId) {
         super(context, layoutId);
         this.mSectionLayoutId = sectionLayoutId;
     }
 
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        if (mAttachedCount++ == 0) {
+            // the items may have changed while nothing was observed
+            mSectionHeadPositions = null;
+            registerAdapterDataObserver(mDataObserver);
+        }
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView recyclerView) {
+        super.onDetachedFromRecyclerView(recyclerView);
+        if (--mAttachedCount == 0) {
+            unregisterAdapterDataObserver(mDataObserver);
+        }
+    }
+
     @NonNull @Override
     public BaseViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
         if (viewType == ITEM_TYPE_SECTION) {
@@ -49,6 +115,40 @@ public abstract class SectionedViewAdapter<T extends SectionedItem> extends Comm
         return item.isHead() ? ITEM_TYPE_SECTION : 0;
     }
 
+    @Override
+    public boolean isSectionHead(int position) {
+        return getItemViewType(position) == ITEM_TYPE_SECTION;
+    }
+
+    @Override
+    public int getSectionHeadPosition(int position) {
+        if (mSectionHeadPositions == null || mAttachedCount == 0) {
+            collectSectionHeadPositions();
+        }
+        // find the last section head at or before the position
+        int index = Arrays.binarySearch(mSectionHeadPositions, 0, mSectionHeadCount, position);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index < 0 ? RecyclerView.NO_POSITION : mSectionHeadPositions[index];
+    }
+
+    private void collectSectionHeadPositions() {
+        final int itemCount = getItemCount();
+        int[] positions = new int[16];
+        int count = 0;
+        for (int position = 0; position < itemCount; position++) {
+            if (isSectionHead(position)) {
+                if (count == positions.length) {
+                    positions = Arrays.copyOf(positions, count * 2);
+                }
+                positions[count++] = position;
+            }
+        }
+        mSectionHeadPositions = positions;
+        mSectionHeadCount = count;
+    }
+
     public abstract void convertSectionHead(BaseViewHolder holder, T item);
 
     public abstract void convertSectionItem(BaseViewHolder holder, T item);
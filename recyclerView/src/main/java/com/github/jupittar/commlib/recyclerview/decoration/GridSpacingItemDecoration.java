@@ -1,40 +1,111 @@
 package com.github.jupittar.commlib.recyclerview.decoration;
 
 import android.graphics.Rect;
+import android.support.v7.widget.GridLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.view.View;
 
+/**
+ * Spaces the items of a vertical grid evenly.
+ * <p/>
+ * With a {@link GridLayoutManager} the column and the span size of an item are read from its layout params,
+ * which the layout manager fills from its cached {@link GridLayoutManager.SpanSizeLookup}, so that full span
+ * headers and sections and wider items are spaced right. The span count follows the layout manager. The
+ * horizontal offsets of every (column, span size) combination are precomputed whenever the span count changes.
+ */
 public class GridSpacingItemDecoration extends RecyclerView.ItemDecoration {
     private int spanCount;
     private int spacing;
     private boolean includeEdge;
 
+    /**
+     * the span count {@link #mLeftOffsets} and {@link #mRightOffsets} are computed for
+     */
+    private int mTableSpanCount;
+
+    /**
+     * horizontal offsets indexed by {@code column * spanCount + spanSize - 1}
+     */
+    private int[] mLeftOffsets = new int[0];
+    private int[] mRightOffsets = new int[0];
+
+    /**
+     * @param spacing     the spacing in pixels between the items
+     * @param includeEdge {@code true} to also space the items from the edges of the list
+     */
+    public GridSpacingItemDecoration(int spacing, boolean includeEdge) {
+        this(1, spacing, includeEdge);
+    }
+
+    /**
+     * @param spanCount the span count to use if the layout manager is not a {@link GridLayoutManager}
+     */
     public GridSpacingItemDecoration(int spanCount, int spacing, boolean includeEdge) {
-        this.spanCount = spanCount;
+        this.spanCount = Math.max(1, spanCount);
         this.spacing = spacing;
         this.includeEdge = includeEdge;
     }
 
     @Override
     public void getItemOffsets(Rect outRect, View view, RecyclerView parent, RecyclerView.State state) {
-        int position = parent.getChildAdapterPosition(view); // item position
-        int column = position % spanCount; // item column
+        final int position = parent.getChildAdapterPosition(view); // item position
+        final RecyclerView.LayoutManager layoutManager = parent.getLayoutManager();
 
-        if (includeEdge) {
-            outRect.left = spacing - column * spacing / spanCount; // spacing - column * ((1f / spanCount) * spacing)
-            outRect.right = (column + 1) * spacing / spanCount; // (column + 1) * ((1f / spanCount) * spacing)
+        final int spanCount;
+        final int column;
+        final int spanSize;
+        final boolean firstRow;
+        if (layoutManager instanceof GridLayoutManager
+                && view.getLayoutParams() instanceof GridLayoutManager.LayoutParams) {
+            final GridLayoutManager gridLayoutManager = (GridLayoutManager) layoutManager;
+            final GridLayoutManager.LayoutParams lp = (GridLayoutManager.LayoutParams) view.getLayoutParams();
+            spanCount = gridLayoutManager.getSpanCount();
+            column = lp.getSpanIndex();
+            spanSize = lp.getSpanSize();
+            // every item spans a column at least, so only the first span count positions may be in the first row
+            firstRow = position != RecyclerView.NO_POSITION && position < spanCount
+                    && gridLayoutManager.getSpanSizeLookup().getSpanGroupIndex(position, spanCount) == 0;
+        } else {
+            spanCount = this.spanCount;
+            column = position == RecyclerView.NO_POSITION ? 0 : position % spanCount;
+            spanSize = 1;
+            firstRow = position != RecyclerView.NO_POSITION && position < spanCount;
+        }
+        if (spanCount != mTableSpanCount) {
+            buildOffsetTables(spanCount);
+        }
 
-            if (position < spanCount) { // top edge
-                outRect.top = spacing;
-            }
+        final int index = column >= 0 && spanSize > 0 && column + spanSize <= spanCount
+                ? column * spanCount + spanSize - 1 : 0;
+        outRect.left = mLeftOffsets[index];
+        outRect.right = mRightOffsets[index];
+        if (includeEdge) {
+            outRect.top = firstRow ? spacing : 0; // top edge
             outRect.bottom = spacing; // item bottom
         } else {
-            outRect.left = column * spacing / spanCount; // column * ((1f / spanCount) * spacing)
-            outRect.right = spacing - (column + 1) * spacing / spanCount; // spacing - (column + 1) * ((1f /    spanCount) * spacing)
-            if (position >= spanCount) {
-                outRect.top = spacing; // item top
+            outRect.top = firstRow ? 0 : spacing; // item top
+            outRect.bottom = 0;
+        }
+    }
+
+    private void buildOffsetTables(int spanCount) {
+        mTableSpanCount = spanCount;
+        mLeftOffsets = new int[spanCount * spanCount];
+        mRightOffsets = new int[spanCount * spanCount];
+        for (int column = 0; column < spanCount; column++) {
+            for (int spanSize = 1; column + spanSize <= spanCount; spanSize++) {
+                final int index = column * spanCount + spanSize - 1;
+                // the item ends in the last column it spans
+                final int lastColumn = column + spanSize - 1;
+                if (includeEdge) {
+                    mLeftOffsets[index] = spacing - column * spacing / spanCount;
+                    mRightOffsets[index] = (lastColumn + 1) * spacing / spanCount;
+                } else {
+                    mLeftOffsets[index] = column * spacing / spanCount;
+                    mRightOffsets[index] = spacing - (lastColumn + 1) * spacing / spanCount;
+                }
             }
         }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,289 @@
+package com.github.jupittar.commlib.recyclerview.decoration;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.annotation.NonNull;
+import android.support.v4.util.LruCache;
+import android.support.v7.widget.RecyclerView;
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link RecyclerView.ItemDecoration} pinning the header of the current section to the top of the
+ * {@link RecyclerView}.
+ * <p/>
+ * Only one header view is kept per section view type. It is measured once for the current width of the
+ * {@link RecyclerView} and rebound only when the section at the top changes. Every bound header is rendered
+ * into a {@link Bitmap} kept in a bounded cache, so {@link #onDrawOver(Canvas, RecyclerView, RecyclerView.State)}
+ * is a single bitmap draw while scrolling within or back into a recently seen section. The bitmaps dropped from
+ * the cache are reused to render the next headers of the same size.
+ * <p/>
+ * When the header of the next section reaches the pinned header, the pinned header is pushed up by it.
+ * <p/>
+ * Note: The decoration observes the adapter until {@link #detach()} is called.
+ */
+public class StickySectionHeaderDecoration extends RecyclerView.ItemDecoration {
+
+    /**
+     * default maximum size in bytes of the rendered headers cache
+     */
+    private static final int DEFAULT_CACHE_SIZE = 2 * 1024 * 1024;
+
+    /**
+     * the max amount of dropped bitmaps kept for reuse
+     */
+    private static final int MAX_REUSABLE_BITMAPS = 2;
+
+    private final RecyclerView.Adapter mAdapter;
+    private final SectionLookup mSectionLookup;
+
+    /**
+     * one header view holder per section view type
+     */
+    private final SparseArray<RecyclerView.ViewHolder> mHeaderHoldersByViewType = new SparseArray<>();
+
+    /**
+     * adapter position currently bound to the header view holder of each section view type
+     */
+    private final SparseIntArray mBoundPositionsByViewType = new SparseIntArray();
+
+    /**
+     * rendered headers keyed by the adapter position of their section head
+     */
+    private final LruCache<Integer, Bitmap> mRenderedHeaders;
+
+    /**
+     * bitmaps dropped from {@link #mRenderedHeaders}, to render other headers into instead of allocating
+     */
+    private final List<Bitmap> mReusableBitmaps = new ArrayList<>(MAX_REUSABLE_BITMAPS);
+
+    private final RecyclerView.AdapterDataObserver mDataObserver = new RecyclerView.AdapterDataObserver() {
+        @Override
+        public void onChanged() {
+            invalidateHeaders();
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount) {
+            invalidateHeaders(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeChanged(int positionStart, int itemCount, Object payload) {
+            invalidateHeaders(positionStart, itemCount);
+        }
+
+        @Override
+        public void onItemRangeInserted(int positionStart, int itemCount) {
+            invalidateHeaders();
+        }
+
+        @Override
+        public void onItemRangeRemoved(int positionStart, int itemCount) {
+            invalidateHeaders();
+        }
+
+        @Override
+        public void onItemRangeMoved(int fromPosition, int toPosition, int itemCount) {
+            invalidateHeaders();
+        }
+    };
+
+    /**
+     * the width the cached header views were measured with
+     */
+    private int mMeasuredWidth = -1;
+
+    public <A extends RecyclerView.Adapter & SectionLookup> StickySectionHeaderDecoration(@NonNull A adapter) {
+        this(adapter, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param adapter   the adapter of the decorated {@link RecyclerView}
+     * @param cacheSize the maximum size in bytes of the rendered headers cache
+     */
+    public <A extends RecyclerView.Adapter & SectionLookup> StickySectionHeaderDecoration(@NonNull A adapter,
+                                                                                        int cacheSize) {
+        mAdapter = adapter;
+        mSectionLookup = adapter;
+        mRenderedHeaders = new LruCache<Integer, Bitmap>(cacheSize) {
+            @Override
+            protected int sizeOf(Integer key, Bitmap value) {
+                return value.getByteCount();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Integer key, Bitmap oldValue, Bitmap newValue) {
+                if (oldValue != newValue && mReusableBitmaps.size() < MAX_REUSABLE_BITMAPS) {
+                    mReusableBitmaps.add(oldValue);
+                }
+            }
+        };
+        mAdapter.registerAdapterDataObserver(mDataObserver);
+    }
+
+    @Override
+    public void onDrawOver(Canvas c, RecyclerView parent, RecyclerView.State state) {
+        final int childCount = parent.getChildCount();
+        if (childCount == 0) {
+            return;
+        }
+
+        final int firstPosition = parent.getChildAdapterPosition(parent.getChildAt(0));
+        if (firstPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+        final int headPosition = mSectionLookup.getSectionHeadPosition(firstPosition);
+        if (headPosition == RecyclerView.NO_POSITION) {
+            return;
+        }
+
+        final Bitmap header = getRenderedHeader(parent, headPosition);
+        if (header == null) {
+            return;
+        }
+        final int headerHeight = header.getHeight();
+
+        // push the pinned header up when the head of the next section reaches it
+        final int headerBottom = parent.getPaddingTop() + headerHeight;
+        int offset = 0;
+        for (int i = 0; i < childCount; i++) {
+            final View child = parent.getChildAt(i);
+            if (child.getTop() >= headerBottom) {
+                break;
+            }
+            final int position = parent.getChildAdapterPosition(child);
+            if (position > headPosition && mSectionLookup.isSectionHead(position)) {
+                offset = Math.min(0, child.getTop() - headerBottom);
+                break;
+            }
+        }
+
+        c.drawBitmap(header, parent.getPaddingLeft(), parent.getPaddingTop() + offset, null);
+    }
+
+    /**
+     * Stops observing the adapter and drops the rendered headers, to be called once the decoration is removed from
+     * the {@link RecyclerView}.
+     */
+    public void detach() {
+        mAdapter.unregisterAdapterDataObserver(mDataObserver);
+        invalidateHeaders();
+        mReusableBitmaps.clear();
+        mHeaderHoldersByViewType.clear();
+    }
+
+    /**
+     * Drops every rendered header so that they are bound and rendered again on the next draw.
+     */
+    public void invalidateHeaders() {
+        mRenderedHeaders.evictAll();
+        mBoundPositionsByViewType.clear();
+    }
+
+    private void invalidateHeaders(int positionStart, int itemCount) {
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            mRenderedHeaders.remove(position);
+        }
+        for (int i = mBoundPositionsByViewType.size() - 1; i >= 0; i--) {
+            final int position = mBoundPositionsByViewType.valueAt(i);
+            if (position >= positionStart && position < positionStart + itemCount) {
+                mBoundPositionsByViewType.delete(mBoundPositionsByViewType.keyAt(i));
+            }
+        }
+    }
+
+    /**
+     * Returns the cached rendering of the section head in the specified position, binding and rendering
+     * the header view of its view type on a cache miss.
+     */
+    @SuppressWarnings("unchecked")
+    private Bitmap getRenderedHeader(RecyclerView parent, int headPosition) {
+        final int width = parent.getWidth() - parent.getPaddingLeft() - parent.getPaddingRight();
+        if (width <= 0) {
+            return null;
+        }
+        if (width != mMeasuredWidth) {
+            // every header has to be measured again for the new width
+            invalidateHeaders();
+            mMeasuredWidth = width;
+        }
+
+        Bitmap header = mRenderedHeaders.get(headPosition);
+        if (header != null) {
+            return header;
+        }
+
+        final int viewType = mAdapter.getItemViewType(headPosition);
+        RecyclerView.ViewHolder holder = mHeaderHoldersByViewType.get(viewType);
+        if (holder == null) {
+            holder = mAdapter.createViewHolder(parent, viewType);
+            mHeaderHoldersByViewType.put(viewType, holder);
+        }
+
+        final View headerView = holder.itemView;
+        if (mBoundPositionsByViewType.get(viewType, RecyclerView.NO_POSITION) != headPosition) {
+            mAdapter.bindViewHolder(holder, headPosition);
+            mBoundPositionsByViewType.put(viewType, headPosition);
+            measureHeader(headerView, width);
+        }
+
+        final int height = headerView.getMeasuredHeight();
+        if (height <= 0) {
+            return null;
+        }
+        header = obtainBitmap(width, height);
+        headerView.draw(new Canvas(header));
+        mRenderedHeaders.put(headPosition, header);
+        return header;
+    }
+
+    /**
+     * @return a cleared bitmap dropped from the cache if one has the specified size, a new bitmap otherwise
+     */
+    private Bitmap obtainBitmap(int width, int height) {
+        for (int i = mReusableBitmaps.size() - 1; i >= 0; i--) {
+            final Bitmap bitmap = mReusableBitmaps.get(i);
+            if (bitmap.getWidth() == width && bitmap.getHeight() == height) {
+                mReusableBitmaps.remove(i);
+                bitmap.eraseColor(Color.TRANSPARENT);
+                return bitmap;
+            }
+        }
+        return Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+    }
+
+    private void measureHeader(View headerView, int width) {
+        final ViewGroup.LayoutParams params = headerView.getLayoutParams();
+        final int widthSpec = View.MeasureSpec.makeMeasureSpec(width, View.MeasureSpec.EXACTLY);
+        final int heightSpec = ViewGroup.getChildMeasureSpec(
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED), 0,
+                params == null ? ViewGroup.LayoutParams.WRAP_CONTENT : params.height);
+        headerView.measure(widthSpec, heightSpec);
+        headerView.layout(0, 0, headerView.getMeasuredWidth(), headerView.getMeasuredHeight());
+    }
+
+    /**
+     * Interface implemented by adapters to describe their sections to {@link StickySectionHeaderDecoration}.
+     */
+    public interface SectionLookup {
+        /**
+         * @param position the adapter position to judge
+         * @return {@code true} if the item in the specified position is the head of a section
+         */
+        boolean isSectionHead(int position);
+
+        /**
+         * @param position the adapter position of any item
+         * @return the adapter position of the head of the section containing the specified position, or
+         * {@link RecyclerView#NO_POSITION} if the position is not in any section
+         */
+        int getSectionHeadPosition(int position);
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.jupittar.commlib.recyclerview.listener;
+
+
+import com.github.jupittar.commlib.recyclerview.ScrollObserver;
+import com.github.jupittar.commlib.recyclerview.ScrollSnapshot;
+
+/**
+ * Callback interface for consuming the scroll state of a RecyclerView once per frame.
+ */
+public interface OnScrollFrameListener {
+    /**
+     * Invoked by {@link ScrollObserver} at most once per frame while the RecyclerView scrolls.
+     *
+     * @param snapshot the scroll state of the frame, reused for every frame so it must not be kept
+     */
+    void onScrollFrame(ScrollSnapshot snapshot);
+}
@@ -0,0 +1,43 @@
+package com.github.jupittar.commlib.recyclerview.model;
+
+import java.util.List;
+
+public class Section<T> {
+    private String title;
+    private List<T> items;
+    private boolean expanded;
+
+    public Section(String title, List<T> items) {
+        this(title, items, true);
+    }
+
+    public Section(String title, List<T> items, boolean expanded) {
+        this.title = title;
+        this.items = items;
+        this.expanded = expanded;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public void setTitle(String title) {
+        this.title = title;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public int getItemCount() {
+        return items == null ? 0 : items.size();
+    }
+
+    public boolean isExpanded() {
+        return expanded;
+    }
+
+    public void setExpanded(boolean expanded) {
+        this.expanded = expanded;
+    }
+}
@@ -0,0 +1,269 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the buckets, e.g. the first letters, of a list sorted by bucket, mapping a fraction of a scroll
+ * track to a position of the list and back.
+ * <p/>
+ * Every bucket gets an equal share of the track, whatever its size, and the positions of a bucket are spread
+ * evenly over its share. The first position of every bucket is held in a prefix array, so that both mappings
+ * are O(1) and O(log b) for b buckets. Insertions, removals and changes in existing buckets update the index in
+ * O(b) plus a copy of the positions after the update, the others require a new index.
+ */
+public class BucketIndex {
+
+    private final Map<String, Integer> mBucketsByName = new HashMap<>();
+    private String[] mNames;
+    private int[] mCounts;
+
+    /**
+     * the first position of every bucket, followed by the size of the list
+     */
+    private int[] mStarts;
+    private int mBucketCount;
+
+    /**
+     * the bucket of every position, to update the counts on removals and changes
+     */
+    private int[] mBucketOfPosition;
+    private int mSize;
+
+    private BucketIndex(int capacity) {
+        mNames = new String[16];
+        mCounts = new int[16];
+        mStarts = new int[17];
+        mBucketOfPosition = new int[Math.max(16, capacity)];
+    }
+
+    /**
+     * Builds the index of the specified keys in O(n).
+     *
+     * @param keys  the bucket of every position, in list order
+     * @param count the number of keys to index
+     * @return the index of the keys
+     */
+    public static BucketIndex build(String[] keys, int count) {
+        final BucketIndex index = new BucketIndex(count);
+        int previous = -1;
+        String previousKey = null;
+        for (int position = 0; position < count; position++) {
+            final String key = keys[position] == null ? "" : keys[position];
+            // consecutive positions mostly share their bucket
+            final int bucket = previous != -1 && key.equals(previousKey) ? previous : index.obtainBucket(key);
+            index.mBucketOfPosition[position] = bucket;
+            index.mCounts[bucket]++;
+            previous = bucket;
+            previousKey = key;
+        }
+        index.mSize = count;
+        index.updateStarts();
+        return index;
+    }
+
+    private int obtainBucket(String name) {
+        final Integer bucket = mBucketsByName.get(name);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (mBucketCount == mNames.length) {
+            mNames = Arrays.copyOf(mNames, mBucketCount * 2);
+            mCounts = Arrays.copyOf(mCounts, mBucketCount * 2);
+            mStarts = Arrays.copyOf(mStarts, mBucketCount * 2 + 1);
+        }
+        mNames[mBucketCount] = name;
+        mBucketsByName.put(name, mBucketCount);
+        return mBucketCount++;
+    }
+
+    private void updateStarts() {
+        int start = 0;
+        for (int bucket = 0; bucket < mBucketCount; bucket++) {
+            mStarts[bucket] = start;
+            start += mCounts[bucket];
+        }
+        mStarts[mBucketCount] = start;
+    }
+
+    /**
+     * @return the number of indexed positions
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int getBucketCount() {
+        return mBucketCount;
+    }
+
+    public String getBucketName(int bucket) {
+        return mNames[bucket];
+    }
+
+    /**
+     * @return the first position of the specified bucket
+     */
+    public int getBucketStart(int bucket) {
+        return mStarts[bucket];
+    }
+
+    /**
+     * @return the bucket whose range of positions contains the specified position
+     */
+    public int getBucketForPosition(int position) {
+        int low = 0;
+        int high = mBucketCount - 1;
+        while (low < high) {
+            final int mid = (low + high + 1) >>> 1;
+            if (mStarts[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param fraction the fraction of the track, between 0 and 1
+     * @return the position at the specified fraction, or -1 if the index is empty
+     */
+    public int getPositionForFraction(float fraction) {
+        if (mSize == 0) {
+            return -1;
+        }
+        final float scaled = Math.max(0, Math.min(1, fraction)) * mBucketCount;
+        final int bucket = Math.min(mBucketCount - 1, (int) scaled);
+        final int position = mStarts[bucket] + (int) ((scaled - bucket) * mCounts[bucket]);
+        return Math.min(position, mStarts[bucket + 1] - 1);
+    }
+
+    /**
+     * @return the fraction of the track of the specified position, between 0 and 1
+     */
+    public float getFractionForPosition(int position) {
+        if (mSize == 0) {
+            return 0;
+        }
+        final int clamped = Math.max(0, Math.min(position, mSize - 1));
+        final int bucket = getBucketForPosition(clamped);
+        return (bucket + (float) (clamped - mStarts[bucket]) / mCounts[bucket]) / mBucketCount;
+    }
+
+    /**
+     * Inserts positions in existing buckets.
+     *
+     * @param positionStart the position of the first inserted key
+     * @param keys          the buckets of the inserted positions
+     * @return {@code false} if a key opens a new bucket, the index is left unchanged and must be built again
+     */
+    public boolean insert(int positionStart, String[] keys) {
+        final int[] buckets = findBuckets(keys);
+        if (buckets == null) {
+            return false;
+        }
+        if (mSize + keys.length > mBucketOfPosition.length) {
+            mBucketOfPosition = Arrays.copyOf(mBucketOfPosition,
+                    Math.max(mSize + keys.length, mBucketOfPosition.length * 2));
+        }
+        System.arraycopy(mBucketOfPosition, positionStart, mBucketOfPosition, positionStart + keys.length,
+                mSize - positionStart);
+        System.arraycopy(buckets, 0, mBucketOfPosition, positionStart, keys.length);
+        for (int bucket : buckets) {
+            mCounts[bucket]++;
+        }
+        mSize += keys.length;
+        updateStarts();
+        return true;
+    }
+
+    /**
+     * Removes positions.
+     *
+     * @return {@code false} if a bucket becomes empty, the index is left unchanged and must be built again
+     */
+    public boolean remove(int positionStart, int itemCount) {
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            mCounts[mBucketOfPosition[position]]--;
+        }
+        boolean emptied = false;
+        for (int position = positionStart; position < positionStart + itemCount; position++) {
+            emptied |= mCounts[mBucketOfPosition[position]] == 0;
+        }
+        if (emptied) {
+            for (int position = positionStart; position < positionStart + itemCount; position++) {
+                mCounts[mBucketOfPosition[position]]++;
+            }
+            return false;
+        }
+        System.arraycopy(mBucketOfPosition, positionStart + itemCount, mBucketOfPosition, positionStart,
+                mSize - positionStart - itemCount);
+        mSize -= itemCount;
+        updateStarts();
+        return true;
+    }
+
+    /**
+     * Changes the buckets of positions to existing buckets.
+     *
+     * @param positionStart the position of the first changed key
+     * @param keys          the new buckets of the changed positions
+     * @return {@code false} if a key opens a new bucket or a bucket becomes empty, the index is left unchanged
+     * and must be built again
+     */
+    public boolean change(int positionStart, String[] keys) {
+        final int[] buckets = findBuckets(keys);
+        if (buckets == null) {
+            return false;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            mCounts[mBucketOfPosition[positionStart + i]]--;
+            mCounts[buckets[i]]++;
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (mCounts[mBucketOfPosition[positionStart + i]] == 0) {
+                for (int j = 0; j < keys.length; j++) {
+                    mCounts[mBucketOfPosition[positionStart + j]]++;
+                    mCounts[buckets[j]]--;
+                }
+                return false;
+            }
+        }
+        System.arraycopy(buckets, 0, mBucketOfPosition, positionStart, keys.length);
+        updateStarts();
+        return true;
+    }
+
+    /**
+     * Moves a position, its bucket is expected to keep the list sorted.
+     */
+    public void move(int fromPosition, int toPosition) {
+        final int bucket = mBucketOfPosition[fromPosition];
+        if (fromPosition < toPosition) {
+            System.arraycopy(mBucketOfPosition, fromPosition + 1, mBucketOfPosition, fromPosition,
+                    toPosition - fromPosition);
+        } else {
+            System.arraycopy(mBucketOfPosition, toPosition, mBucketOfPosition, toPosition + 1,
+                    fromPosition - toPosition);
+        }
+        mBucketOfPosition[toPosition] = bucket;
+    }
+
+    /**
+     * @return the existing buckets of the specified keys, or {@code null} if a key has no bucket
+     */
+    private int[] findBuckets(String[] keys) {
+        final int[] buckets = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            final Integer bucket = mBucketsByName.get(keys[i] == null ? "" : keys[i]);
+            if (bucket == null) {
+                return null;
+            }
+            buckets[i] = bucket;
+        }
+        return buckets;
+    }
+}
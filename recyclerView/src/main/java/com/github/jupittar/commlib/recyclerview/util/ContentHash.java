@@ -0,0 +1,66 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+/**
+ * 64-bit FNV-1a hash of the fields presented by an item, to build
+ * {@link com.github.jupittar.commlib.recyclerview.ItemHolder#computeContentHash()}:
+ * <pre>
+ *     return new ContentHash().add(mItem.title).add(mItem.author).get();
+ * </pre>
+ */
+public class ContentHash {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long mHash = OFFSET_BASIS;
+
+    private void addByte(int value) {
+        mHash ^= value & 0xff;
+        mHash *= PRIME;
+    }
+
+    public ContentHash add(long value) {
+        for (int i = 0; i < 8; i++) {
+            addByte((int) (value >>> (8 * i)));
+        }
+        return this;
+    }
+
+    public ContentHash add(int value) {
+        for (int i = 0; i < 4; i++) {
+            addByte(value >>> (8 * i));
+        }
+        return this;
+    }
+
+    public ContentHash add(boolean value) {
+        addByte(value ? 1 : 0);
+        return this;
+    }
+
+    /**
+     * Adds a text, {@code null} hashing differently from an empty text.
+     */
+    public ContentHash add(CharSequence value) {
+        if (value == null) {
+            addByte(0xff);
+            return this;
+        }
+        final int length = value.length();
+        add(length);
+        for (int i = 0; i < length; i++) {
+            final char c = value.charAt(i);
+            addByte(c);
+            addByte(c >>> 8);
+        }
+        return this;
+    }
+
+    /**
+     * @return the hash of the added values
+     */
+    public long get() {
+        return mHash;
+    }
+}
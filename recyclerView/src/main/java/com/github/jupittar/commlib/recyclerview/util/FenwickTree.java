@@ -0,0 +1,167 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+import java.util.Arrays;
+
+/**
+ * Fenwick tree(binary indexed tree) of non-negative int values, providing O(log n) point updates,
+ * prefix sums and lookups of the index containing a given prefix sum.
+ */
+public class FenwickTree {
+
+    /**
+     * 1-based tree nodes, node i holds the sum of the values in (i - lowbit(i), i]
+     */
+    private int[] mTree;
+
+    /**
+     * the raw values, kept to answer {@link #get(int)} in O(1)
+     */
+    private int[] mValues;
+
+    private int mSize;
+
+    public FenwickTree() {
+        this(16);
+    }
+
+    public FenwickTree(int capacity) {
+        mTree = new int[Math.max(1, capacity) + 1];
+        mValues = new int[Math.max(1, capacity)];
+    }
+
+    /**
+     * Builds the tree from the specified values in O(n).
+     *
+     * @param values the values to hold, copied
+     */
+    public FenwickTree(int[] values) {
+        this(values.length);
+        setAll(values, values.length);
+    }
+
+    /**
+     * Replaces every value of this tree with the first {@code count} specified values in O(n).
+     */
+    public void setAll(int[] values, int count) {
+        ensureCapacity(count);
+        System.arraycopy(values, 0, mValues, 0, count);
+        Arrays.fill(mTree, 0);
+        mSize = count;
+        for (int i = 1; i <= count; i++) {
+            mTree[i] += values[i - 1];
+            final int parent = i + (i & -i);
+            if (parent <= count) {
+                mTree[parent] += mTree[i];
+            }
+        }
+    }
+
+    /**
+     * @return the number of values in this tree
+     */
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * Removes every value of this tree.
+     */
+    public void clear() {
+        Arrays.fill(mTree, 0, mSize + 1, 0);
+        Arrays.fill(mValues, 0, mSize, 0);
+        mSize = 0;
+    }
+
+    /**
+     * Appends a value to the end of this tree in O(log n).
+     */
+    public void append(int value) {
+        ensureCapacity(mSize + 1);
+        final int i = ++mSize;
+        mValues[i - 1] = value;
+        // node i covers (i - lowbit(i), i], that is the new value plus the values already in the tree
+        mTree[i] = value + prefixSum(i - 1) - prefixSum(i - (i & -i));
+    }
+
+    /**
+     * @return the value in the specified index
+     */
+    public int get(int index) {
+        checkIndex(index);
+        return mValues[index];
+    }
+
+    /**
+     * Replaces the value in the specified index in O(log n).
+     */
+    public void set(int index, int value) {
+        add(index, value - get(index));
+    }
+
+    /**
+     * Adds the delta to the value in the specified index in O(log n).
+     */
+    public void add(int index, int delta) {
+        checkIndex(index);
+        mValues[index] += delta;
+        for (int i = index + 1; i <= mSize; i += i & -i) {
+            mTree[i] += delta;
+        }
+    }
+
+    /**
+     * @param count the number of leading values to sum
+     * @return the sum of the values in [0, count)
+     */
+    public int prefixSum(int count) {
+        int sum = 0;
+        for (int i = Math.min(count, mSize); i > 0; i -= i & -i) {
+            sum += mTree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return the sum of all values
+     */
+    public int total() {
+        return prefixSum(mSize);
+    }
+
+    /**
+     * Finds the index whose range of prefix sums contains the specified sum in O(log n), that is the
+     * smallest index such that {@code prefixSum(index + 1) > sum}.
+     *
+     * @param sum the prefix sum to locate
+     * @return the index containing the sum, or {@link #size()} if the sum is not less than {@link #total()}
+     */
+    public int indexOf(int sum) {
+        if (sum < 0) {
+            return 0;
+        }
+        int index = 0;
+        for (int step = Integer.highestOneBit(Math.max(1, mSize)); step > 0; step >>= 1) {
+            final int next = index + step;
+            if (next <= mSize && mTree[next] <= sum) {
+                index = next;
+                sum -= mTree[next];
+            }
+        }
+        return index;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > mValues.length) {
+            final int newCapacity = Math.max(capacity, mValues.length * 2);
+            mValues = Arrays.copyOf(mValues, newCapacity);
+            // node i only covers values up to i, so the existing nodes stay valid
+            mTree = Arrays.copyOf(mTree, newCapacity + 1);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + mSize);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.support.v7.widget.StaggeredGridLayoutManager;
+
+/**
+ * Layout-agnostic queries over the {@link RecyclerView.LayoutManager}s of the support library.
+ */
+public final class LayoutManagerUtils {
+
+    private LayoutManagerUtils() {
+    }
+
+    /**
+     * @return the smallest visible adapter position, or {@link RecyclerView#NO_POSITION} if unknown
+     */
+    public static int findFirstVisibleItemPosition(RecyclerView.LayoutManager layoutManager) {
+        return findFirstVisibleItemPosition(layoutManager, null);
+    }
+
+    /**
+     * @param spanPositions array of span count length receiving the positions of every span of a
+     *                      {@link StaggeredGridLayoutManager} to avoid an allocation, or {@code null}
+     * @return the smallest visible adapter position, or {@link RecyclerView#NO_POSITION} if unknown
+     */
+    public static int findFirstVisibleItemPosition(RecyclerView.LayoutManager layoutManager, int[] spanPositions) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            // GridLayoutManager included
+            return ((LinearLayoutManager) layoutManager).findFirstVisibleItemPosition();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            final int[] positions = ((StaggeredGridLayoutManager) layoutManager)
+                    .findFirstVisibleItemPositions(spanPositions);
+            int first = RecyclerView.NO_POSITION;
+            for (int position : positions) {
+                if (position != RecyclerView.NO_POSITION && (first == RecyclerView.NO_POSITION || position < first)) {
+                    first = position;
+                }
+            }
+            return first;
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * @return the greatest visible adapter position, or {@link RecyclerView#NO_POSITION} if unknown
+     */
+    public static int findLastVisibleItemPosition(RecyclerView.LayoutManager layoutManager) {
+        return findLastVisibleItemPosition(layoutManager, null);
+    }
+
+    /**
+     * @param spanPositions array of span count length receiving the positions of every span of a
+     *                      {@link StaggeredGridLayoutManager} to avoid an allocation, or {@code null}
+     * @return the greatest visible adapter position, or {@link RecyclerView#NO_POSITION} if unknown
+     */
+    public static int findLastVisibleItemPosition(RecyclerView.LayoutManager layoutManager, int[] spanPositions) {
+        if (layoutManager instanceof LinearLayoutManager) {
+            // GridLayoutManager included
+            return ((LinearLayoutManager) layoutManager).findLastVisibleItemPosition();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            final int[] positions = ((StaggeredGridLayoutManager) layoutManager)
+                    .findLastVisibleItemPositions(spanPositions);
+            int last = RecyclerView.NO_POSITION;
+            for (int position : positions) {
+                last = Math.max(last, position);
+            }
+            return last;
+        }
+        return RecyclerView.NO_POSITION;
+    }
+
+    /**
+     * @return the number of items laid out side by side, 1 for lists
+     */
+    public static int getSpanCount(RecyclerView.LayoutManager layoutManager) {
+        if (layoutManager instanceof GridLayoutManager) {
+            return ((GridLayoutManager) layoutManager).getSpanCount();
+        } else if (layoutManager instanceof StaggeredGridLayoutManager) {
+            return ((StaggeredGridLayoutManager) layoutManager).getSpanCount();
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,302 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+import java.util.Arrays;
+
+/**
+ * Growable bit set backed by a {@code long[]}, keeping its count of set bits up to date so that
+ * {@link #cardinality()} is O(1).
+ * <p/>
+ * Ranges are set, cleared and counted a word at a time, and bits can be shifted to follow insertions and
+ * removals in a list.
+ */
+public class LongBitSet {
+
+    private static final int WORD_BITS = 64;
+
+    private long[] mWords;
+    private int mCardinality;
+
+    public LongBitSet() {
+        this(WORD_BITS);
+    }
+
+    /**
+     * @param capacity the initial capacity in bits
+     */
+    public LongBitSet(int capacity) {
+        mWords = new long[Math.max(1, wordCount(capacity))];
+    }
+
+    private static int wordCount(int bits) {
+        return (bits + WORD_BITS - 1) / WORD_BITS;
+    }
+
+    /**
+     * @return the mask of the bits from {@code fromIndex} inclusive to {@code toIndex} exclusive of a word,
+     * {@code toIndex} being at most 64
+     */
+    private static long mask(int fromIndex, int toIndex) {
+        final long high = toIndex == WORD_BITS ? -1L : (1L << toIndex) - 1;
+        return high & (-1L << fromIndex);
+    }
+
+    /**
+     * @return the capacity in bits, indexes beyond it are clear
+     */
+    public int capacity() {
+        return mWords.length * WORD_BITS;
+    }
+
+    private void ensureCapacity(int bits) {
+        final int words = wordCount(bits);
+        if (words > mWords.length) {
+            mWords = Arrays.copyOf(mWords, Math.max(words, mWords.length * 2));
+        }
+    }
+
+    public boolean get(int index) {
+        final int word = index / WORD_BITS;
+        return word < mWords.length && (mWords[word] & (1L << index)) != 0;
+    }
+
+    /**
+     * @return {@code true} if the bit changed
+     */
+    public boolean set(int index, boolean value) {
+        if (get(index) == value) {
+            return false;
+        }
+        ensureCapacity(index + 1);
+        mWords[index / WORD_BITS] ^= 1L << index;
+        mCardinality += value ? 1 : -1;
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the bit is now set
+     */
+    public boolean flip(int index) {
+        final boolean value = !get(index);
+        set(index, value);
+        return value;
+    }
+
+    /**
+     * Sets the bits from {@code fromIndex} inclusive to {@code toIndex} exclusive to the specified value.
+     */
+    public void set(int fromIndex, int toIndex, boolean value) {
+        if (fromIndex >= toIndex) {
+            return;
+        }
+        if (value) {
+            ensureCapacity(toIndex);
+        } else {
+            toIndex = Math.min(toIndex, capacity());
+        }
+        int index = fromIndex;
+        while (index < toIndex) {
+            final int word = index / WORD_BITS;
+            final int end = Math.min(toIndex, (word + 1) * WORD_BITS);
+            final long mask = mask(index % WORD_BITS, end - word * WORD_BITS);
+            final long before = mWords[word];
+            final long after = value ? before | mask : before & ~mask;
+            mCardinality += Long.bitCount(after) - Long.bitCount(before);
+            mWords[word] = after;
+            index = end;
+        }
+    }
+
+    public int cardinality() {
+        return mCardinality;
+    }
+
+    /**
+     * @return the count of set bits from {@code fromIndex} inclusive to {@code toIndex} exclusive
+     */
+    public int cardinality(int fromIndex, int toIndex) {
+        toIndex = Math.min(toIndex, capacity());
+        int count = 0;
+        int index = fromIndex;
+        while (index < toIndex) {
+            final int word = index / WORD_BITS;
+            final int end = Math.min(toIndex, (word + 1) * WORD_BITS);
+            count += Long.bitCount(mWords[word] & mask(index % WORD_BITS, end - word * WORD_BITS));
+            index = end;
+        }
+        return count;
+    }
+
+    /**
+     * @return the index of the first set bit at or after the specified index, or -1 if none
+     */
+    public int nextSetBit(int fromIndex) {
+        int word = fromIndex / WORD_BITS;
+        if (word >= mWords.length) {
+            return -1;
+        }
+        long bits = mWords[word] & (-1L << fromIndex);
+        while (true) {
+            if (bits != 0) {
+                return word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == mWords.length) {
+                return -1;
+            }
+            bits = mWords[word];
+        }
+    }
+
+    /**
+     * @return the index of the first clear bit at or after the specified index
+     */
+    public int nextClearBit(int fromIndex) {
+        int word = fromIndex / WORD_BITS;
+        if (word >= mWords.length) {
+            return fromIndex;
+        }
+        long bits = ~mWords[word] & (-1L << fromIndex);
+        while (true) {
+            if (bits != 0) {
+                return word * WORD_BITS + Long.numberOfTrailingZeros(bits);
+            }
+            if (++word == mWords.length) {
+                return word * WORD_BITS;
+            }
+            bits = ~mWords[word];
+        }
+    }
+
+    public void clear() {
+        Arrays.fill(mWords, 0);
+        mCardinality = 0;
+    }
+
+    /**
+     * @return the index of the highest set bit plus one, or 0 if no bit is set
+     */
+    private int length() {
+        for (int word = mWords.length - 1; word >= 0; word--) {
+            if (mWords[word] != 0) {
+                return (word + 1) * WORD_BITS - Long.numberOfLeadingZeros(mWords[word]);
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Shifts the bits at and after the specified index up by the specified count, leaving the gap clear. Grows
+     * only when the highest set bit is shifted beyond the capacity.
+     */
+    public void insert(int index, int count) {
+        final int length = length();
+        if (count <= 0 || index >= length) {
+            // the bits at and after the index are all clear
+            return;
+        }
+        ensureCapacity(length + count);
+        // descending copy is safe as the destination is ahead of the source
+        copyBitsDescending(mWords, index, mWords, index + count, length - index);
+        final int cardinality = mCardinality;
+        set(index, index + count, false);
+        mCardinality = cardinality;
+    }
+
+    /**
+     * Drops the specified count of bits at the specified index, shifting the following bits down.
+     */
+    public void remove(int index, int count) {
+        final int capacity = capacity();
+        if (count <= 0 || index >= capacity) {
+            return;
+        }
+        count = Math.min(count, capacity - index);
+        mCardinality -= cardinality(index, index + count);
+        // ascending copy is safe as the source is ahead of the destination
+        copyBits(mWords, index + count, mWords, index, capacity - index - count);
+        final int cardinality = mCardinality;
+        set(capacity - count, capacity, false);
+        mCardinality = cardinality;
+    }
+
+    /**
+     * Moves the bit at {@code fromIndex} to {@code toIndex}, shifting the bits in between.
+     */
+    public void move(int fromIndex, int toIndex) {
+        if (fromIndex == toIndex) {
+            return;
+        }
+        final boolean value = get(fromIndex);
+        remove(fromIndex, 1);
+        insert(toIndex, 1);
+        set(toIndex, value);
+    }
+
+    /**
+     * @return a copy of the words holding the bits, without trailing zero words
+     */
+    public long[] toLongArray() {
+        int length = mWords.length;
+        while (length > 0 && mWords[length - 1] == 0) {
+            length--;
+        }
+        return Arrays.copyOf(mWords, length);
+    }
+
+    /**
+     * Replaces the bits by those of the words returned by {@link #toLongArray()}.
+     */
+    public void fromLongArray(long[] words) {
+        mWords = Arrays.copyOf(words, Math.max(1, words.length));
+        mCardinality = 0;
+        for (long word : words) {
+            mCardinality += Long.bitCount(word);
+        }
+    }
+
+    /**
+     * @return the {@code length} bits, at most 64, starting at the specified bit index
+     */
+    private static long readBits(long[] words, int index, int length) {
+        final int word = index / WORD_BITS;
+        final int offset = index % WORD_BITS;
+        long bits = words[word] >>> offset;
+        if (offset != 0 && offset + length > WORD_BITS && word + 1 < words.length) {
+            bits |= words[word + 1] << (WORD_BITS - offset);
+        }
+        return length == WORD_BITS ? bits : bits & ((1L << length) - 1);
+    }
+
+    /**
+     * Writes the lowest {@code length} bits, at most 64, starting at the specified bit index.
+     */
+    private static void writeBits(long[] words, int index, int length, long bits) {
+        final int word = index / WORD_BITS;
+        final int offset = index % WORD_BITS;
+        final int first = Math.min(length, WORD_BITS - offset);
+        final long firstMask = mask(offset, offset + first);
+        words[word] = (words[word] & ~firstMask) | ((bits << offset) & firstMask);
+        if (first < length) {
+            final long secondMask = mask(0, length - first);
+            words[word + 1] = (words[word + 1] & ~secondMask) | ((bits >>> first) & secondMask);
+        }
+    }
+
+    private static void copyBits(long[] src, int srcIndex, long[] dst, int dstIndex, int length) {
+        while (length > 0) {
+            final int chunk = Math.min(WORD_BITS, length);
+            writeBits(dst, dstIndex, chunk, readBits(src, srcIndex, chunk));
+            srcIndex += chunk;
+            dstIndex += chunk;
+            length -= chunk;
+        }
+    }
+
+    private static void copyBitsDescending(long[] src, int srcIndex, long[] dst, int dstIndex, int length) {
+        while (length > 0) {
+            final int chunk = Math.min(WORD_BITS, length);
+            length -= chunk;
+            writeBits(dst, dstIndex + length, chunk, readBits(src, srcIndex + length, chunk));
+        }
+    }
+}
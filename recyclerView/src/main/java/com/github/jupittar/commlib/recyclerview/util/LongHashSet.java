@@ -0,0 +1,135 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive {@code long}s using open addressing with linear probing, which neither boxes its values
+ * nor allocates an entry per value.
+ */
+public class LongHashSet {
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] mKeys;
+    private boolean[] mUsed;
+    private int mSize;
+
+    public LongHashSet() {
+        this(16);
+    }
+
+    public LongHashSet(int expectedSize) {
+        int capacity = 16;
+        while (capacity * LOAD_FACTOR < expectedSize) {
+            capacity <<= 1;
+        }
+        mKeys = new long[capacity];
+        mUsed = new boolean[capacity];
+    }
+
+    private static int hash(long key) {
+        final long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return the slot holding the key, or the empty slot where it belongs
+     */
+    private int slotOf(long key) {
+        final int mask = mKeys.length - 1;
+        int slot = hash(key) & mask;
+        while (mUsed[slot] && mKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    public boolean isEmpty() {
+        return mSize == 0;
+    }
+
+    public boolean contains(long key) {
+        return mUsed[slotOf(key)];
+    }
+
+    /**
+     * @return {@code true} if the key was not in the set
+     */
+    public boolean add(long key) {
+        final int slot = slotOf(key);
+        if (mUsed[slot]) {
+            return false;
+        }
+        mKeys[slot] = key;
+        mUsed[slot] = true;
+        if (++mSize > mKeys.length * LOAD_FACTOR) {
+            rehash(mKeys.length * 2);
+        }
+        return true;
+    }
+
+    /**
+     * @return {@code true} if the key was in the set
+     */
+    public boolean remove(long key) {
+        int slot = slotOf(key);
+        if (!mUsed[slot]) {
+            return false;
+        }
+        mUsed[slot] = false;
+        mSize--;
+        // shift back the following keys of the probe sequence so that lookups do not stop at the hole
+        final int mask = mKeys.length - 1;
+        int next = (slot + 1) & mask;
+        while (mUsed[next]) {
+            final int home = hash(mKeys[next]) & mask;
+            // move the key if its home is not cyclically within (slot, next]
+            if (slot <= next ? (home <= slot || home > next) : (home <= slot && home > next)) {
+                mKeys[slot] = mKeys[next];
+                mUsed[slot] = true;
+                mUsed[next] = false;
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        return true;
+    }
+
+    public void clear() {
+        Arrays.fill(mUsed, false);
+        mSize = 0;
+    }
+
+    /**
+     * @return the keys in no particular order
+     */
+    public long[] toArray() {
+        final long[] array = new long[mSize];
+        int index = 0;
+        for (int i = 0; i < mKeys.length; i++) {
+            if (mUsed[i]) {
+                array[index++] = mKeys[i];
+            }
+        }
+        return array;
+    }
+
+    private void rehash(int capacity) {
+        final long[] keys = mKeys;
+        final boolean[] used = mUsed;
+        mKeys = new long[capacity];
+        mUsed = new boolean[capacity];
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                final int slot = slotOf(keys[i]);
+                mKeys[slot] = keys[i];
+                mUsed[slot] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * {@link Executor} posting its tasks to the main thread.
+ */
+public class MainThreadExecutor implements Executor {
+
+    private static MainThreadExecutor sInstance;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+    private MainThreadExecutor() {
+    }
+
+    public static synchronized MainThreadExecutor getInstance() {
+        if (sInstance == null) {
+            sInstance = new MainThreadExecutor();
+        }
+        return sInstance;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        mHandler.post(command);
+    }
+}
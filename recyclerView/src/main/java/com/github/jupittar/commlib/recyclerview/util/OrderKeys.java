@@ -0,0 +1,94 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+/**
+ * Fractional order keys: strings of base 62 digits read as fractions between 0 and 1, which compare like their
+ * fractions with {@link String#compareTo(String)}. A key can always be generated between any two keys, so that
+ * moving an item only changes its own key instead of the positions of all the items after it.
+ * <p/>
+ * Keys never end with the digit {@code 0}, keeping room below every key.
+ */
+public final class OrderKeys {
+
+    private static final String DIGITS = "0123456789ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz";
+    private static final char ZERO = '0';
+
+    private OrderKeys() {
+    }
+
+    /**
+     * @param lower the key to follow, or {@code null} for the start of the list
+     * @param upper the key to precede, or {@code null} for the end of the list
+     * @return a key greater than {@code lower} and less than {@code upper}
+     * @throws IllegalArgumentException if {@code lower} is not less than {@code upper} or a key ends with 0
+     */
+    public static String between(String lower, String upper) {
+        if (lower == null) {
+            lower = "";
+        }
+        if (upper != null && lower.compareTo(upper) >= 0) {
+            throw new IllegalArgumentException(lower + " is not less than " + upper);
+        }
+        if (endsWithZero(lower) || endsWithZero(upper)) {
+            throw new IllegalArgumentException("Order keys must not end with " + ZERO);
+        }
+        return midpoint(lower, upper);
+    }
+
+    /**
+     * @return {@code count} ascending keys between {@code lower} and {@code upper}, the length of the keys
+     * growing with log(count) only
+     */
+    public static String[] between(String lower, String upper, int count) {
+        final String[] keys = new String[count];
+        fill(keys, 0, count, lower, upper);
+        return keys;
+    }
+
+    private static void fill(String[] keys, int start, int end, String lower, String upper) {
+        if (start >= end) {
+            return;
+        }
+        final int mid = (start + end) >>> 1;
+        keys[mid] = between(lower, upper);
+        fill(keys, start, mid, lower, keys[mid]);
+        fill(keys, mid + 1, end, keys[mid], upper);
+    }
+
+    /**
+     * @return {@code true} if the key is a valid key strictly between {@code lower} and {@code upper}, either of
+     * them being {@code null} for no bound
+     */
+    public static boolean isBetween(String key, String lower, String upper) {
+        return key != null && !key.isEmpty() && !endsWithZero(key) && (lower == null || lower.compareTo(key) < 0)
+                && (upper == null || key.compareTo(upper) < 0);
+    }
+
+    private static boolean endsWithZero(String key) {
+        return key != null && !key.isEmpty() && key.charAt(key.length() - 1) == ZERO;
+    }
+
+    private static String midpoint(String lower, String upper) {
+        if (upper != null) {
+            // keep the common prefix, reading missing digits of the lower key as 0
+            int n = 0;
+            while (n < upper.length() && (n < lower.length() ? lower.charAt(n) : ZERO) == upper.charAt(n)) {
+                n++;
+            }
+            if (n > 0) {
+                return upper.substring(0, n)
+                        + midpoint(lower.substring(Math.min(n, lower.length())), upper.substring(n));
+            }
+        }
+        final int digitLower = lower.isEmpty() ? 0 : DIGITS.indexOf(lower.charAt(0));
+        final int digitUpper = upper != null ? DIGITS.indexOf(upper.charAt(0)) : DIGITS.length();
+        if (digitUpper - digitLower > 1) {
+            return String.valueOf(DIGITS.charAt((digitLower + digitUpper + 1) / 2));
+        }
+        // consecutive first digits
+        if (upper != null && upper.length() > 1) {
+            return upper.substring(0, 1);
+        }
+        return DIGITS.charAt(digitLower) + midpoint(lower.isEmpty() ? "" : lower.substring(1), null);
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+import java.util.Arrays;
+
+/**
+ * Compact binary encodings of selections, small enough to be saved in a {@link android.os.Bundle} for large
+ * selections.
+ * <p/>
+ * Positions are encoded either as runs, alternating the lengths of the clear and set runs, or as the raw
+ * bitmap words, whichever is smaller, so that both contiguous and scattered selections stay small. Ids are
+ * sorted and encoded as deltas. All numbers are written as varints.
+ */
+public final class SelectionCodec {
+
+    private static final byte FORMAT_RUNS = 0;
+    private static final byte FORMAT_BITMAP = 1;
+
+    private SelectionCodec() {
+    }
+
+    /**
+     * @return the encoded positions of the set bits of the specified bit set
+     */
+    public static byte[] encodePositions(LongBitSet bitSet) {
+        final Output runs = new Output(16);
+        runs.writeByte(FORMAT_RUNS);
+        int index = 0;
+        int start = bitSet.nextSetBit(0);
+        while (start != -1) {
+            final int end = bitSet.nextClearBit(start);
+            runs.writeVarLong(start - index);
+            runs.writeVarLong(end - start);
+            index = end;
+            start = bitSet.nextSetBit(end);
+        }
+
+        final long[] words = bitSet.toLongArray();
+        final int bitmapSize = 1 + 5 + words.length * 8;
+        if (runs.mSize <= bitmapSize) {
+            return runs.toByteArray();
+        }
+        final Output bitmap = new Output(bitmapSize);
+        bitmap.writeByte(FORMAT_BITMAP);
+        bitmap.writeVarLong(words.length);
+        for (long word : words) {
+            bitmap.writeLong(word);
+        }
+        return bitmap.toByteArray();
+    }
+
+    /**
+     * Sets the positions encoded by {@link #encodePositions(LongBitSet)} in the specified bit set, which is
+     * cleared first.
+     */
+    public static void decodePositions(byte[] data, LongBitSet bitSet) {
+        bitSet.clear();
+        if (data.length == 0) {
+            return;
+        }
+        final Input input = new Input(data);
+        final byte format = input.readByte();
+        if (format == FORMAT_BITMAP) {
+            final long[] words = new long[(int) input.readVarLong()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = input.readLong();
+            }
+            bitSet.fromLongArray(words);
+        } else if (format == FORMAT_RUNS) {
+            int index = 0;
+            while (input.hasRemaining()) {
+                final int start = index + (int) input.readVarLong();
+                final int end = start + (int) input.readVarLong();
+                bitSet.set(start, end, true);
+                index = end;
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown selection format " + format);
+        }
+    }
+
+    /**
+     * @return the encoded ids, in no particular order
+     */
+    public static byte[] encodeIds(long[] ids) {
+        final long[] sorted = Arrays.copyOf(ids, ids.length);
+        Arrays.sort(sorted);
+        final Output output = new Output(4 + sorted.length * 2);
+        output.writeVarLong(sorted.length);
+        long previous = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            // the first id may be negative, the following deltas are not
+            output.writeVarLong(i == 0 ? zigZag(sorted[0]) : sorted[i] - previous);
+            previous = sorted[i];
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * @return the ids encoded by {@link #encodeIds(long[])} in ascending order
+     */
+    public static long[] decodeIds(byte[] data) {
+        if (data.length == 0) {
+            return new long[0];
+        }
+        final Input input = new Input(data);
+        final long[] ids = new long[(int) input.readVarLong()];
+        long previous = 0;
+        for (int i = 0; i < ids.length; i++) {
+            final long value = input.readVarLong();
+            ids[i] = i == 0 ? unZigZag(value) : previous + value;
+            previous = ids[i];
+        }
+        return ids;
+    }
+
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class Output {
+        byte[] mBuffer;
+        int mSize;
+
+        Output(int capacity) {
+            mBuffer = new byte[Math.max(16, capacity)];
+        }
+
+        private void ensureCapacity(int extra) {
+            if (mSize + extra > mBuffer.length) {
+                mBuffer = Arrays.copyOf(mBuffer, Math.max(mSize + extra, mBuffer.length * 2));
+            }
+        }
+
+        void writeByte(byte value) {
+            ensureCapacity(1);
+            mBuffer[mSize++] = value;
+        }
+
+        /**
+         * Writes an unsigned varint, 7 bits per byte, least significant group first
+         */
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                mBuffer[mSize++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            mBuffer[mSize++] = (byte) value;
+        }
+
+        void writeLong(long value) {
+            ensureCapacity(8);
+            for (int i = 0; i < 8; i++) {
+                mBuffer[mSize++] = (byte) (value >>> (8 * i));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(mBuffer, mSize);
+        }
+    }
+
+    private static class Input {
+        final byte[] mData;
+        int mPosition;
+
+        Input(byte[] data) {
+            mData = data;
+        }
+
+        boolean hasRemaining() {
+            return mPosition < mData.length;
+        }
+
+        byte readByte() {
+            return mData[mPosition++];
+        }
+
+        long readVarLong() {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = mData[mPosition++];
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+
+        long readLong() {
+            long value = 0;
+            for (int i = 0; i < 8; i++) {
+                value |= (mData[mPosition++] & 0xFFL) << (8 * i);
+            }
+            return value;
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * {@link java.util.List} backed by an implicit treap, a balanced binary tree ordered by position whose nodes
+ * hold the sizes of their subtrees, so that {@link #get(int)}, {@link #set(int, Object)}, {@link #add(int,
+ * Object)}, {@link #remove(int)} and {@link #move(int, int)} all run in O(log n), where an
+ * {@link java.util.ArrayList} shifts up to n elements on every insertion or removal.
+ * <p/>
+ * Meant for lists reordered item by item, e.g. by drag and drop, see
+ * {@link com.github.jupittar.commlib.recyclerview.ItemAdapter#moveItem(int, int)}.
+ *
+ * @param <E> the element type
+ */
+public class TreeList<E> extends AbstractList<E> {
+
+    private static class Node<E> {
+        E mValue;
+        final int mPriority;
+        int mSize = 1;
+        Node<E> mLeft;
+        Node<E> mRight;
+
+        Node(E value, int priority) {
+            mValue = value;
+            mPriority = priority;
+        }
+    }
+
+    private final Random mRandom = new Random();
+    private Node<E> mRoot;
+
+    public TreeList() {
+    }
+
+    /**
+     * Builds a list of the specified elements in O(n).
+     */
+    public TreeList(Collection<? extends E> elements) {
+        // the nodes of a Cartesian tree on random priorities, built on the right spine with a stack
+        final ArrayList<Node<E>> spine = new ArrayList<>();
+        for (E element : elements) {
+            final Node<E> node = new Node<>(element, mRandom.nextInt());
+            Node<E> last = null;
+            while (!spine.isEmpty() && spine.get(spine.size() - 1).mPriority < node.mPriority) {
+                last = spine.remove(spine.size() - 1);
+                update(last);
+            }
+            node.mLeft = last;
+            if (!spine.isEmpty()) {
+                spine.get(spine.size() - 1).mRight = node;
+            }
+            spine.add(node);
+        }
+        for (int i = spine.size() - 1; i >= 0; i--) {
+            update(spine.get(i));
+        }
+        mRoot = spine.isEmpty() ? null : spine.get(0);
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.mSize;
+    }
+
+    private static void update(Node<?> node) {
+        node.mSize = 1 + size(node.mLeft) + size(node.mRight);
+    }
+
+    /**
+     * Merges two trees, all positions of the first preceding those of the second
+     */
+    private static <E> Node<E> merge(Node<E> left, Node<E> right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.mPriority > right.mPriority) {
+            left.mRight = merge(left.mRight, right);
+            update(left);
+            return left;
+        }
+        right.mLeft = merge(left, right.mLeft);
+        update(right);
+        return right;
+    }
+
+    /**
+     * Splits a tree into its first {@code count} positions, stored in {@code out[0]}, and the others, stored in
+     * {@code out[1]}
+     */
+    private static <E> void split(Node<E> node, int count, Node<E>[] out) {
+        if (node == null) {
+            out[0] = null;
+            out[1] = null;
+            return;
+        }
+        if (size(node.mLeft) < count) {
+            split(node.mRight, count - size(node.mLeft) - 1, out);
+            node.mRight = out[0];
+            update(node);
+            out[0] = node;
+        } else {
+            split(node.mLeft, count, out);
+            node.mLeft = out[1];
+            update(node);
+            out[1] = node;
+        }
+    }
+
+    private Node<E> node(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        Node<E> node = mRoot;
+        while (true) {
+            final int leftSize = size(node.mLeft);
+            if (index < leftSize) {
+                node = node.mLeft;
+            } else if (index == leftSize) {
+                return node;
+            } else {
+                index -= leftSize + 1;
+                node = node.mRight;
+            }
+        }
+    }
+
+    @Override
+    public int size() {
+        return size(mRoot);
+    }
+
+    @Override
+    public E get(int index) {
+        return node(index).mValue;
+    }
+
+    @Override
+    public E set(int index, E element) {
+        final Node<E> node = node(index);
+        final E previous = node.mValue;
+        node.mValue = element;
+        return previous;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        if (index < 0 || index > size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        insertNode(index, new Node<>(element, mRandom.nextInt()));
+        modCount++;
+    }
+
+    @Override
+    public E remove(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+        }
+        final E value = removeNode(index).mValue;
+        modCount++;
+        return value;
+    }
+
+    /**
+     * Moves the element at {@code fromIndex} to {@code toIndex} in O(log n), shifting the elements in between.
+     */
+    public void move(int fromIndex, int toIndex) {
+        if (fromIndex < 0 || fromIndex >= size() || toIndex < 0 || toIndex >= size()) {
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size());
+        }
+        if (fromIndex != toIndex) {
+            insertNode(toIndex, removeNode(fromIndex));
+            modCount++;
+        }
+    }
+
+    @Override
+    public void clear() {
+        mRoot = null;
+        modCount++;
+    }
+
+    private void insertNode(int index, Node<E> node) {
+        @SuppressWarnings("unchecked")
+        final Node<E>[] parts = (Node<E>[]) new Node<?>[2];
+        split(mRoot, index, parts);
+        mRoot = merge(merge(parts[0], node), parts[1]);
+    }
+
+    private Node<E> removeNode(int index) {
+        @SuppressWarnings("unchecked")
+        final Node<E>[] parts = (Node<E>[]) new Node<?>[2];
+        split(mRoot, index, parts);
+        final Node<E> left = parts[0];
+        split(parts[1], 1, parts);
+        final Node<E> node = parts[0];
+        mRoot = merge(left, parts[1]);
+        return node;
+    }
+}
@@ -0,0 +1,71 @@
+package com.github.jupittar.commlib.recyclerview.util;
+
+
+import android.support.v4.util.LongSparseArray;
+
+/**
+ * Measured sizes of item views by view type and width measure spec.
+ * <p/>
+ * The cache can be exported with {@link #toArray()} and imported with {@link #fromArray(long[])}, e.g. to keep
+ * the measurements across a configuration change.
+ */
+public class ViewTypeMeasurementCache {
+
+    /**
+     * packed measured sizes by packed view type and width spec
+     */
+    private final LongSparseArray<Long> mSizes = new LongSparseArray<>();
+
+    private static long key(int viewType, int widthSpec) {
+        return ((long) viewType << 32) | (widthSpec & 0xffffffffL);
+    }
+
+    public boolean contains(int viewType, int widthSpec) {
+        return mSizes.get(key(viewType, widthSpec)) != null;
+    }
+
+    public void put(int viewType, int widthSpec, int measuredWidth, int measuredHeight) {
+        mSizes.put(key(viewType, widthSpec), ((long) measuredWidth << 32) | (measuredHeight & 0xffffffffL));
+    }
+
+    /**
+     * @return the cached measured width, or -1 if not measured
+     */
+    public int getMeasuredWidth(int viewType, int widthSpec) {
+        final Long size = mSizes.get(key(viewType, widthSpec));
+        return size == null ? -1 : (int) (size >> 32);
+    }
+
+    /**
+     * @return the cached measured height, or -1 if not measured
+     */
+    public int getMeasuredHeight(int viewType, int widthSpec) {
+        final Long size = mSizes.get(key(viewType, widthSpec));
+        return size == null ? -1 : (int) (long) size;
+    }
+
+    public void clear() {
+        mSizes.clear();
+    }
+
+    /**
+     * @return the cached measurements as key and size pairs
+     */
+    public long[] toArray() {
+        final long[] array = new long[mSizes.size() * 2];
+        for (int i = 0; i < mSizes.size(); i++) {
+            array[2 * i] = mSizes.keyAt(i);
+            array[2 * i + 1] = mSizes.valueAt(i);
+        }
+        return array;
+    }
+
+    /**
+     * Adds the measurements exported by {@link #toArray()}.
+     */
+    public void fromArray(long[] array) {
+        for (int i = 0; i + 1 < array.length; i += 2) {
+            mSizes.put(array[i], array[i + 1]);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import com.github.jupittar.commlib.recyclerview.util.BucketIndex;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Incremental updates of the bucket index against an index built from scratch.
+ */
+public class BucketIndexTest {
+
+    private static BucketIndex build(List<String> keys) {
+        return BucketIndex.build(keys.toArray(new String[keys.size()]), keys.size());
+    }
+
+    private static void assertSameIndex(BucketIndex expected, BucketIndex actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int position = 0; position < expected.size(); position++) {
+            assertEquals(expected.getBucketName(expected.getBucketForPosition(position)),
+                    actual.getBucketName(actual.getBucketForPosition(position)));
+        }
+    }
+
+    @Test
+    public void fractions_mapBackToTheirPositions() throws Exception {
+        final List<String> keys = new ArrayList<>();
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            for (int i = 0; i < (letter - 'A') * 7 + 1; i++) {
+                keys.add(String.valueOf(letter));
+            }
+        }
+        final BucketIndex index = build(keys);
+        assertEquals(26, index.getBucketCount());
+        assertEquals(0, index.getPositionForFraction(0));
+        assertEquals(keys.size() - 1, index.getPositionForFraction(1));
+        for (int position = 0; position < keys.size(); position++) {
+            assertEquals(position, index.getPositionForFraction(index.getFractionForPosition(position) + 1e-6f));
+        }
+        // every bucket gets an equal share of the track, whatever its size
+        assertEquals(index.getBucketStart(13), index.getPositionForFraction(0.5f + 1e-6f));
+    }
+
+    @Test
+    public void incrementalUpdates_matchRebuilds() throws Exception {
+        final Random random = new Random(7);
+        final List<String> keys = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            keys.add(String.valueOf((char) ('A' + random.nextInt(26))));
+        }
+        Collections.sort(keys);
+        BucketIndex index = build(keys);
+        for (int step = 0; step < 2000; step++) {
+            // every update keeps the list sorted
+            switch (random.nextInt(3)) {
+                case 0: {
+                    final String key = String.valueOf((char) ('A' + random.nextInt(27)));
+                    int position = Collections.binarySearch(keys, key);
+                    position = position < 0 ? -position - 1 : position;
+                    keys.add(position, key);
+                    if (!index.insert(position, new String[]{key})) {
+                        index = build(keys);
+                    }
+                    break;
+                }
+                case 1: {
+                    final int position = random.nextInt(keys.size());
+                    keys.remove(position);
+                    if (!index.remove(position, 1)) {
+                        index = build(keys);
+                    }
+                    break;
+                }
+                default: {
+                    // an item takes the bucket of the previous one
+                    final int position = 1 + random.nextInt(keys.size() - 1);
+                    final String key = keys.get(position - 1);
+                    keys.set(position, key);
+                    if (!index.change(position, new String[]{key})) {
+                        index = build(keys);
+                    }
+                    break;
+                }
+            }
+            assertSameIndex(build(keys), index);
+        }
+    }
+
+    @Test
+    public void newBucket_requiresRebuild() throws Exception {
+        final List<String> keys = new ArrayList<>();
+        keys.add("A");
+        keys.add("A");
+        keys.add("C");
+        final BucketIndex index = build(keys);
+        assertFalse(index.insert(2, new String[]{"B"}));
+        assertFalse(index.remove(2, 1));
+        assertTrue(index.insert(2, new String[]{"A"}));
+        assertEquals(4, index.size());
+        assertEquals(3, index.getBucketStart(1));
+        assertTrue(index.remove(0, 1));
+        assertEquals(2, index.getBucketStart(1));
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import com.github.jupittar.commlib.recyclerview.util.FenwickTree;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Prefix sums and lookups of the Fenwick tree against a naive prefix array.
+ */
+public class FenwickTreeTest {
+
+    /**
+     * the section count {@link com.github.jupittar.commlib.recyclerview.adapter.CollapsibleSectionedViewAdapter}
+     * is expected to handle
+     */
+    private static final int SECTION_COUNT = 10000;
+
+    /**
+     * @return the prefix sums of the values, {@code values.length + 1} long
+     */
+    private static int[] prefixSums(int[] values, int count) {
+        final int[] sums = new int[count + 1];
+        for (int i = 0; i < count; i++) {
+            sums[i + 1] = sums[i] + values[i];
+        }
+        return sums;
+    }
+
+    /**
+     * @return the smallest index whose prefix sum including it exceeds the sum
+     */
+    private static int naiveIndexOf(int[] sums, int sum) {
+        int index = 0;
+        while (index < sums.length - 1 && sums[index + 1] <= sum) {
+            index++;
+        }
+        return index;
+    }
+
+    private static void assertMatches(int[] values, int count, FenwickTree tree) {
+        final int[] sums = prefixSums(values, count);
+        assertEquals(count, tree.size());
+        assertEquals(sums[count], tree.total());
+        for (int i = 0; i < count; i++) {
+            assertEquals(values[i], tree.get(i));
+        }
+        for (int i = 0; i <= count; i++) {
+            assertEquals(sums[i], tree.prefixSum(i));
+        }
+        for (int sum = -1; sum <= sums[count]; sum++) {
+            assertEquals(Math.max(0, naiveIndexOf(sums, sum)), tree.indexOf(sum));
+        }
+    }
+
+    private static int[] randomValues(Random random, int count) {
+        final int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            // empty values are the collapsed sections without header
+            values[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(20);
+        }
+        return values;
+    }
+
+    @Test
+    public void setAll_matchesPrefixArray() throws Exception {
+        final Random random = new Random(1);
+        final FenwickTree tree = new FenwickTree(4);
+        for (int count : new int[]{0, 1, 2, 7, 16, 33, 100}) {
+            final int[] values = randomValues(random, count);
+            tree.setAll(values, count);
+            assertMatches(values, count, tree);
+        }
+        // shrinking keeps no value of the previous, larger build
+        final int[] values = randomValues(random, 5);
+        tree.setAll(values, values.length);
+        assertMatches(values, values.length, tree);
+    }
+
+    @Test
+    public void append_matchesPrefixArray() throws Exception {
+        final Random random = new Random(2);
+        final int[] values = randomValues(random, 200);
+        final FenwickTree tree = new FenwickTree(1);
+        for (int count = 1; count <= values.length; count++) {
+            tree.append(values[count - 1]);
+            assertMatches(values, count, tree);
+        }
+    }
+
+    @Test
+    public void set_matchesPrefixArray() throws Exception {
+        final Random random = new Random(3);
+        final int[] values = randomValues(random, 100);
+        final FenwickTree tree = new FenwickTree(values);
+        for (int i = 0; i < 500; i++) {
+            final int index = random.nextInt(values.length);
+            values[index] = random.nextInt(20);
+            tree.set(index, values[index]);
+        }
+        assertMatches(values, values.length, tree);
+    }
+
+    @Test
+    public void tenThousandSections_mapPositionsAfterToggles() throws Exception {
+        final Random random = new Random(4);
+        final int[] itemCounts = new int[SECTION_COUNT];
+        final int[] values = new int[SECTION_COUNT];
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            itemCounts[i] = random.nextInt(50);
+            // the header plus the items of the expanded section
+            values[i] = 1 + itemCounts[i];
+        }
+        final FenwickTree tree = new FenwickTree(values);
+        for (int i = 0; i < SECTION_COUNT; i++) {
+            final int section = random.nextInt(SECTION_COUNT);
+            values[section] = values[section] == 1 ? 1 + itemCounts[section] : 1;
+            tree.set(section, values[section]);
+        }
+
+        final int[] sums = prefixSums(values, SECTION_COUNT);
+        assertEquals(sums[SECTION_COUNT], tree.total());
+        // every header and last item maps back to its section
+        for (int section = 0; section < SECTION_COUNT; section++) {
+            assertEquals(sums[section], tree.prefixSum(section));
+            assertEquals(section, tree.indexOf(sums[section]));
+            assertEquals(section, tree.indexOf(sums[section + 1] - 1));
+        }
+        assertEquals(SECTION_COUNT, tree.indexOf(sums[SECTION_COUNT]));
+    }
+}
@@ -0,0 +1,215 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class LoadPipelineTest {
+
+    private static final long TIMEOUT = 5000;
+
+    /**
+     * Local data source returning {@code pageSize} numbers per page, optionally failing the first attempts
+     * and blocking until released.
+     */
+    private static class FakeDataSource implements LoadPipeline.DataSource<Integer, List<Integer>> {
+        final AtomicInteger mLoadCount = new AtomicInteger();
+        final CountDownLatch mRelease;
+        final int mFailures;
+        final long mDelay;
+
+        FakeDataSource(int failures, boolean blocking, long delay) {
+            mFailures = failures;
+            mRelease = new CountDownLatch(blocking ? 1 : 0);
+            mDelay = delay;
+        }
+
+        @Override
+        public List<Integer> load(Integer page) throws Exception {
+            final int attempt = mLoadCount.incrementAndGet();
+            mRelease.await(TIMEOUT, TimeUnit.MILLISECONDS);
+            Thread.sleep(mDelay);
+            if (attempt <= mFailures) {
+                throw new IOException("attempt " + attempt);
+            }
+            final List<Integer> items = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                items.add(page * 10 + i);
+            }
+            return items;
+        }
+    }
+
+    private static class RecordingCallback implements LoadPipeline.Callback<Integer, List<Integer>> {
+        final CountDownLatch mDone = new CountDownLatch(1);
+        final List<List<Integer>> mResults = Collections.synchronizedList(new ArrayList<List<Integer>>());
+        final List<Throwable> mErrors = Collections.synchronizedList(new ArrayList<Throwable>());
+
+        @Override
+        public void onLoaded(Integer key, List<Integer> result) {
+            mResults.add(result);
+            mDone.countDown();
+        }
+
+        @Override
+        public void onFailed(Integer key, Throwable error) {
+            mErrors.add(error);
+            mDone.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return mDone.await(TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private ExecutorService mExecutor;
+    private ScheduledExecutorService mScheduler;
+
+    @Before
+    public void setUp() throws Exception {
+        mExecutor = Executors.newFixedThreadPool(2);
+        mScheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mExecutor.shutdownNow();
+        mScheduler.shutdownNow();
+    }
+
+    private LoadPipeline<Integer, List<Integer>> createPipeline(FakeDataSource dataSource, int maxRetries) {
+        return LoadPipeline.create(dataSource, mExecutor)
+                .retry(maxRetries, 1)
+                .retryScheduler(mScheduler);
+    }
+
+    @Test
+    public void load_deliversPage() throws Exception {
+        final FakeDataSource dataSource = new FakeDataSource(0, false, 0);
+        final RecordingCallback callback = new RecordingCallback();
+        createPipeline(dataSource, 0).load(2, callback);
+
+        assertTrue(callback.await());
+        assertEquals(Integer.valueOf(20), callback.mResults.get(0).get(0));
+    }
+
+    @Test
+    public void load_dedupesRequestsInFlight() throws Exception {
+        final FakeDataSource dataSource = new FakeDataSource(0, true, 0);
+        final LoadPipeline<Integer, List<Integer>> pipeline = createPipeline(dataSource, 0);
+        final RecordingCallback first = new RecordingCallback();
+        final RecordingCallback second = new RecordingCallback();
+        pipeline.load(1, first);
+        pipeline.load(1, second);
+        assertTrue(pipeline.isLoading(1));
+        dataSource.mRelease.countDown();
+
+        assertTrue(first.await());
+        assertTrue(second.await());
+        assertEquals(1, dataSource.mLoadCount.get());
+        assertEquals(1, pipeline.getMetrics().getDedupedCount());
+    }
+
+    @Test
+    public void load_retriesWithBackoff() throws Exception {
+        final FakeDataSource dataSource = new FakeDataSource(2, false, 0);
+        final LoadPipeline<Integer, List<Integer>> pipeline = createPipeline(dataSource, 3);
+        final RecordingCallback callback = new RecordingCallback();
+        pipeline.load(1, callback);
+
+        assertTrue(callback.await());
+        assertEquals(1, callback.mResults.size());
+        assertEquals(3, dataSource.mLoadCount.get());
+        assertEquals(2, pipeline.getMetrics().getRetryCount());
+    }
+
+    @Test
+    public void load_failsAfterMaxRetries() throws Exception {
+        final FakeDataSource dataSource = new FakeDataSource(5, false, 0);
+        final LoadPipeline<Integer, List<Integer>> pipeline = createPipeline(dataSource, 2);
+        final RecordingCallback callback = new RecordingCallback();
+        pipeline.load(1, callback);
+
+        assertTrue(callback.await());
+        assertEquals(1, callback.mErrors.size());
+        assertEquals(3, dataSource.mLoadCount.get());
+        assertEquals(1, pipeline.getMetrics().getFailureCount());
+        // the key is not stuck in flight
+        assertTrue(!pipeline.isLoading(1));
+    }
+
+    @Test
+    public void load_releasesKeyWhenLoadThrowsError() throws Exception {
+        final LoadPipeline<Integer, List<Integer>> pipeline = LoadPipeline.create(
+                new LoadPipeline.DataSource<Integer, List<Integer>>() {
+                    @Override
+                    public List<Integer> load(Integer page) throws Exception {
+                        throw new StackOverflowError();
+                    }
+                }, new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        command.run();
+                    }
+                });
+        try {
+            pipeline.load(1, new RecordingCallback());
+            fail();
+        } catch (StackOverflowError expected) {
+            // thrown through the direct executor
+        }
+        // a later request starts a new load instead of joining the dead one
+        assertTrue(!pipeline.isLoading(1));
+    }
+
+    @Test
+    public void cancelAll_dropsOutdatedLoads() throws Exception {
+        final FakeDataSource dataSource = new FakeDataSource(0, true, 0);
+        final LoadPipeline<Integer, List<Integer>> pipeline = createPipeline(dataSource, 0);
+        final RecordingCallback outdated = new RecordingCallback();
+        pipeline.load(1, outdated);
+        while (dataSource.mLoadCount.get() == 0) {
+            Thread.sleep(1);
+        }
+        pipeline.cancelAll();
+
+        // a request after the list is replaced starts a new load instead of joining the outdated one
+        final RecordingCallback current = new RecordingCallback();
+        pipeline.load(1, current);
+        dataSource.mRelease.countDown();
+
+        assertTrue(current.await());
+        assertTrue(!outdated.mDone.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, dataSource.mLoadCount.get());
+        assertEquals(1, pipeline.getMetrics().getCancelledCount());
+    }
+
+    @Test
+    public void metrics_recordLatency() throws Exception {
+        final FakeDataSource dataSource = new FakeDataSource(0, false, 50);
+        final LoadPipeline<Integer, List<Integer>> pipeline = createPipeline(dataSource, 0);
+        final RecordingCallback callback = new RecordingCallback();
+        pipeline.load(1, callback);
+
+        assertTrue(callback.await());
+        assertTrue(pipeline.getMetrics().getLastLatency() >= 50);
+        assertEquals(pipeline.getMetrics().getLastLatency(), pipeline.getMetrics().getMaxLatency());
+        assertEquals(1, pipeline.getMetrics().getSuccessCount());
+    }
+}
@@ -0,0 +1,161 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import com.github.jupittar.commlib.recyclerview.util.LongBitSet;
+import com.github.jupittar.commlib.recyclerview.util.LongHashSet;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks the selection bit set and id set against plain collections.
+ */
+public class LongBitSetTest {
+
+    private static void assertSameBits(List<Boolean> expected, LongBitSet bitSet) {
+        int cardinality = 0;
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals("bit " + i, expected.get(i), bitSet.get(i));
+            if (expected.get(i)) {
+                cardinality++;
+            }
+        }
+        assertEquals(cardinality, bitSet.cardinality());
+        assertEquals(-1, bitSet.nextSetBit(expected.size()));
+    }
+
+    @Test
+    public void randomOperations_matchList() throws Exception {
+        final Random random = new Random(42);
+        final LongBitSet bitSet = new LongBitSet();
+        final List<Boolean> expected = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            expected.add(false);
+        }
+
+        for (int step = 0; step < 2000; step++) {
+            final int size = expected.size();
+            switch (random.nextInt(5)) {
+                case 0: {
+                    final int index = random.nextInt(size);
+                    final boolean value = random.nextBoolean();
+                    assertEquals(expected.get(index) != value, bitSet.set(index, value));
+                    expected.set(index, value);
+                    break;
+                }
+                case 1: {
+                    final int from = random.nextInt(size);
+                    final int to = from + random.nextInt(size - from + 1);
+                    final boolean value = random.nextBoolean();
+                    bitSet.set(from, to, value);
+                    for (int i = from; i < to; i++) {
+                        expected.set(i, value);
+                    }
+                    break;
+                }
+                case 2: {
+                    final int index = random.nextInt(size + 1);
+                    final int count = 1 + random.nextInt(100);
+                    bitSet.insert(index, count);
+                    for (int i = 0; i < count; i++) {
+                        expected.add(index, false);
+                    }
+                    break;
+                }
+                case 3: {
+                    if (size < 50) {
+                        break;
+                    }
+                    final int index = random.nextInt(size);
+                    final int count = 1 + random.nextInt(Math.min(100, size - index));
+                    bitSet.remove(index, count);
+                    for (int i = 0; i < count; i++) {
+                        expected.remove(index);
+                    }
+                    break;
+                }
+                default: {
+                    final int from = random.nextInt(size);
+                    final int to = random.nextInt(size);
+                    bitSet.move(from, to);
+                    expected.add(to, expected.remove(from));
+                    break;
+                }
+            }
+            assertSameBits(expected, bitSet);
+        }
+    }
+
+    @Test
+    public void insertsAndMoves_keepCapacityBounded() throws Exception {
+        final LongBitSet bitSet = new LongBitSet();
+        bitSet.set(0, true);
+        for (int i = 0; i < 1000; i++) {
+            bitSet.insert(0, 1);
+        }
+        assertTrue(bitSet.get(1000));
+        assertEquals(1, bitSet.cardinality());
+        assertTrue(bitSet.capacity() <= 2048);
+
+        final LongBitSet moved = new LongBitSet(300);
+        moved.set(5, true);
+        final int capacity = moved.capacity();
+        for (int i = 0; i < 1000; i++) {
+            moved.move(i % 300, (i * 7) % 300);
+        }
+        assertEquals(1, moved.cardinality());
+        assertEquals(capacity, moved.capacity());
+    }
+
+    @Test
+    public void rangeCardinality_countsRange() throws Exception {
+        final LongBitSet bitSet = new LongBitSet();
+        bitSet.set(10, 100000, true);
+        assertEquals(99990, bitSet.cardinality());
+        assertEquals(54, bitSet.cardinality(0, 64));
+        assertEquals(100, bitSet.cardinality(500, 600));
+        bitSet.set(63, false);
+        assertEquals(53, bitSet.cardinality(0, 64));
+    }
+
+    @Test
+    public void longArray_roundTrips() throws Exception {
+        final LongBitSet bitSet = new LongBitSet();
+        bitSet.set(3, true);
+        bitSet.set(200, 260, true);
+        final LongBitSet restored = new LongBitSet();
+        restored.fromLongArray(bitSet.toLongArray());
+        assertEquals(61, restored.cardinality());
+        assertTrue(restored.get(3));
+        assertTrue(restored.get(259));
+        assertFalse(restored.get(260));
+    }
+
+    @Test
+    public void hashSet_matchesSet() throws Exception {
+        final Random random = new Random(7);
+        final LongHashSet hashSet = new LongHashSet();
+        final Set<Long> expected = new HashSet<>();
+        for (int step = 0; step < 20000; step++) {
+            // a small key space makes collisions and removals frequent
+            final long key = random.nextInt(500) * 0x100000000L - 1;
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), hashSet.add(key));
+            } else {
+                assertEquals(expected.remove(key), hashSet.remove(key));
+            }
+            assertEquals(expected.size(), hashSet.size());
+        }
+        for (long key = -1; key < 500 * 0x100000000L; key += 0x100000000L) {
+            assertEquals(expected.contains(key), hashSet.contains(key));
+        }
+    }
+}
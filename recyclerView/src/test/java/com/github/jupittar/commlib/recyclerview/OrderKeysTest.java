@@ -0,0 +1,51 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import com.github.jupittar.commlib.recyclerview.util.OrderKeys;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Keys generated between random neighbours of an ordered list of keys.
+ */
+public class OrderKeysTest {
+
+    @Test
+    public void between_staysBetweenItsBounds() throws Exception {
+        final Random random = new Random(11);
+        final List<String> keys = new ArrayList<>();
+        keys.add(OrderKeys.between(null, null));
+        for (int i = 0; i < 5000; i++) {
+            final int index = random.nextInt(keys.size() + 1);
+            final String lower = index == 0 ? null : keys.get(index - 1);
+            final String upper = index == keys.size() ? null : keys.get(index);
+            final String key = OrderKeys.between(lower, upper);
+            assertTrue(OrderKeys.isBetween(key, lower, upper));
+            keys.add(index, key);
+        }
+    }
+
+    @Test
+    public void keyLengths_growLogarithmically() throws Exception {
+        String lower = OrderKeys.between(null, null);
+        final String upper = OrderKeys.between(lower, null);
+        // always dropping right after the same item
+        for (int i = 0; i < 1000; i++) {
+            final String key = OrderKeys.between(lower, upper);
+            assertTrue(OrderKeys.isBetween(key, lower, upper));
+            lower = key;
+        }
+        // every key halves the gap, adding a digit every few keys
+        assertTrue(lower.length() < 1000 / 4);
+        final String[] keys = OrderKeys.between(null, null, 100000);
+        for (int i = 1; i < keys.length; i++) {
+            assertTrue(keys[i - 1].compareTo(keys[i]) < 0);
+            assertTrue(keys[i].length() <= 4);
+        }
+    }
+}
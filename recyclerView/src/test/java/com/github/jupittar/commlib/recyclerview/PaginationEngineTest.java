@@ -0,0 +1,129 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Replays scroll traces against a simulated paged data source.
+ */
+public class PaginationEngineTest {
+
+    private static final long FRAME = 16;
+
+    /**
+     * Scrolls through the list at a constant speed, delivering a page {@code latency} milliseconds after every
+     * load request.
+     *
+     * @return the number of frames in which the scroll was stopped by the end of the list
+     */
+    private static int replay(PaginationEngine engine, float itemsPerSecond, long latency, int pageSize,
+                              int initialCount, int visibleCount, long duration) {
+        int itemCount = initialCount;
+        float position = 0;
+        long pageArrival = -1;
+        int stalledFrames = 0;
+
+        for (long now = 0; now < duration; now += FRAME) {
+            if (pageArrival >= 0 && now >= pageArrival) {
+                itemCount += pageSize;
+                pageArrival = -1;
+                engine.onItemCountChanged(now, itemCount);
+            }
+
+            position += itemsPerSecond * FRAME / 1000f;
+            final int maxFirstVisible = itemCount - visibleCount;
+            if (position > maxFirstVisible) {
+                position = maxFirstVisible;
+                stalledFrames++;
+            }
+            final int lastVisible = (int) position + visibleCount - 1;
+
+            if (engine.onScrolled(now, lastVisible, itemCount)) {
+                assertTrue("requested a page while loading", pageArrival < 0);
+                pageArrival = now + latency;
+            }
+        }
+        return stalledFrames;
+    }
+
+    @Test
+    public void fling_neverReachesEnd() throws Exception {
+        final PaginationEngine engine = new PaginationEngine(3);
+        assertEquals(0, replay(engine, 60, 400, 30, 60, 10, 10000));
+    }
+
+    @Test
+    public void fixedThreshold_reachesEndOnFling() throws Exception {
+        // without the velocity prediction the engine degrades to the old fixed threshold
+        final PaginationEngine engine = new PaginationEngine(3);
+        engine.setSafetyFactor(0);
+        assertTrue(replay(engine, 60, 400, 30, 60, 10, 10000) > 0);
+    }
+
+    @Test
+    public void gridFling_neverReachesEnd() throws Exception {
+        // 3 columns, 10 rows visible, 20 rows per second
+        final PaginationEngine engine = new PaginationEngine(3 * 3);
+        assertEquals(0, replay(engine, 60, 400, 60, 120, 30, 10000));
+    }
+
+    @Test
+    public void slowScroll_loadsAtMinThreshold() throws Exception {
+        final PaginationEngine engine = new PaginationEngine(3);
+        long now = 0;
+        for (int lastVisible = 9; lastVisible < 16; lastVisible++) {
+            assertFalse(engine.onScrolled(now, lastVisible, 20));
+            now += 1000;
+        }
+        assertTrue(engine.onScrolled(now, 16, 20));
+        assertTrue(engine.isLoading());
+    }
+
+    @Test
+    public void threshold_doesNotGrowWhileScrolling() throws Exception {
+        final PaginationEngine engine = new PaginationEngine(3);
+        for (int i = 0; i < 100; i++) {
+            engine.setMinThreshold(3 * 4);
+            engine.onScrolled(i * FRAME, 10, 1000);
+        }
+        assertEquals(12, engine.getThreshold());
+    }
+
+    @Test
+    public void loadLatency_isMeasured() throws Exception {
+        final PaginationEngine engine = new PaginationEngine(3);
+        assertTrue(engine.onScrolled(1000, 18, 20));
+        engine.onItemCountChanged(1300, 40);
+        assertFalse(engine.isLoading());
+        assertEquals(440, engine.getLoadLatency());
+    }
+
+    @Test
+    public void failedLoad_doesNotBlockPagination() throws Exception {
+        final PaginationEngine engine = new PaginationEngine(3);
+        assertTrue(engine.onScrolled(0, 18, 20));
+        engine.onLoadFinished(true);
+        assertTrue(engine.onScrolled(FRAME, 19, 20));
+
+        // an empty page ends pagination until the list is reset
+        engine.onLoadFinished(false);
+        assertFalse(engine.onScrolled(2 * FRAME, 19, 20));
+        engine.reset();
+        assertTrue(engine.onScrolled(3 * FRAME, 19, 20));
+    }
+
+    @Test
+    public void listReset_startsOver() throws Exception {
+        final PaginationEngine engine = new PaginationEngine(3);
+        assertTrue(engine.onScrolled(0, 18, 20));
+        assertFalse(engine.onScrolled(FRAME, 19, 20));
+
+        // the list has been replaced by a shorter one
+        engine.onItemCountChanged(2 * FRAME, 0);
+        assertFalse(engine.isLoading());
+        assertTrue(engine.onScrolled(3 * FRAME, 9, 10));
+    }
+}
@@ -0,0 +1,62 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import com.github.jupittar.commlib.recyclerview.util.LongBitSet;
+import com.github.jupittar.commlib.recyclerview.util.SelectionCodec;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Round trips and sizes of the encoded selections of 100k items.
+ */
+public class SelectionCodecTest {
+
+    private static final int COUNT = 100000;
+
+    private static void assertRoundTrip(LongBitSet expected, byte[] data) {
+        final LongBitSet decoded = new LongBitSet();
+        SelectionCodec.decodePositions(data, decoded);
+        assertArrayEquals(expected.toLongArray(), decoded.toLongArray());
+        assertEquals(expected.cardinality(), decoded.cardinality());
+    }
+
+    @Test
+    public void selectAll_encodesToAFewBytes() throws Exception {
+        final LongBitSet bitSet = new LongBitSet();
+        bitSet.set(0, COUNT, true);
+        final byte[] data = SelectionCodec.encodePositions(bitSet);
+        assertTrue(data.length < 16);
+        assertRoundTrip(bitSet, data);
+    }
+
+    @Test
+    public void scatteredSelection_encodesAsBitmap() throws Exception {
+        final Random random = new Random(1);
+        final LongBitSet bitSet = new LongBitSet();
+        for (int i = 0; i < COUNT; i++) {
+            bitSet.set(i, random.nextBoolean());
+        }
+        final byte[] data = SelectionCodec.encodePositions(bitSet);
+        // one bit per item plus the header
+        assertTrue(data.length <= COUNT / 8 + 16);
+        assertRoundTrip(bitSet, data);
+    }
+
+    @Test
+    public void ids_roundTrip() throws Exception {
+        final long[] ids = new long[COUNT];
+        for (int i = 0; i < COUNT; i++) {
+            ids[i] = 1000000L + i * 3;
+        }
+        ids[0] = -5;
+        final byte[] data = SelectionCodec.encodeIds(ids);
+        // one byte per small delta
+        assertTrue(data.length < COUNT + 16);
+        assertArrayEquals(ids, SelectionCodec.decodeIds(data));
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.jupittar.commlib.recyclerview;
+
+import com.github.jupittar.commlib.recyclerview.util.TreeList;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Random edits of a tree list against an array list.
+ */
+public class TreeListTest {
+
+    @Test
+    public void randomEdits_matchArrayList() throws Exception {
+        final Random random = new Random(3);
+        final List<Integer> expected = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            expected.add(i);
+        }
+        final TreeList<Integer> actual = new TreeList<>(expected);
+        assertEquals(expected, actual);
+        for (int step = 0; step < 20000; step++) {
+            final int index = random.nextInt(expected.size());
+            switch (random.nextInt(4)) {
+                case 0:
+                    expected.add(index, step);
+                    actual.add(index, step);
+                    break;
+                case 1:
+                    assertEquals(expected.remove(index), actual.remove(index));
+                    break;
+                case 2:
+                    assertEquals(expected.set(index, -step), actual.set(index, -step));
+                    break;
+                default:
+                    final int toIndex = random.nextInt(expected.size());
+                    expected.add(toIndex, expected.remove(index));
+                    actual.move(index, toIndex);
+                    break;
+            }
+            assertEquals(expected.size(), actual.size());
+            assertEquals(expected.get(index % expected.size()), actual.get(index % expected.size()));
+        }
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    public void movesUndoneInReverse_restoreLargeList() throws Exception {
+        final List<Integer> values = new ArrayList<>();
+        for (int i = 0; i < 1000000; i++) {
+            values.add(i);
+        }
+        final TreeList<Integer> list = new TreeList<>(values);
+        final Random random = new Random(5);
+        final int[] fromIndices = new int[100000];
+        final int[] toIndices = new int[fromIndices.length];
+        for (int i = 0; i < fromIndices.length; i++) {
+            fromIndices[i] = random.nextInt(list.size());
+            toIndices[i] = random.nextInt(list.size());
+            list.move(fromIndices[i], toIndices[i]);
+        }
+        assertEquals(1000000, list.size());
+        for (int i = fromIndices.length - 1; i >= 0; i--) {
+            list.move(toIndices[i], fromIndices[i]);
+        }
+        int expected = 0;
+        for (Integer value : list) {
+            assertEquals(expected++, (int) value);
+        }
+        assertEquals(1000000, expected);
+    }
+}